@@ -0,0 +1,59 @@
+package benchmark;
+
+import tdas.Queue;
+
+/**
+ * Benchmark sencillo que mide el costo de encolar y luego vaciar una cola
+ * de N elementos. Si el vaciado es lineal, el tiempo por elemento se mantiene
+ * aproximadamente constante al crecer N.
+ *
+ * Uso: {@code java -cp build/classes benchmark.BenchmarkCola}
+ *
+ * @author piped
+ */
+public class BenchmarkCola {
+
+    /** Tamaños de cola a medir */
+    private static final int[] TAMANOS = {1_000, 10_000, 100_000, 1_000_000};
+
+    /** Repeticiones de calentamiento antes de medir */
+    private static final int CALENTAMIENTO = 5;
+
+    /**
+     * Ejecuta el benchmark para cada tamaño e imprime el tiempo total
+     * y el tiempo por elemento del vaciado.
+     */
+    public static void main(String[] args) {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            medirVaciado(TAMANOS[TAMANOS.length - 1]);
+        }
+        System.out.println("N\tvaciado(ms)\tns/elemento");
+        for (int n : TAMANOS) {
+            long ns = medirVaciado(n);
+            System.out.printf("%d\t%.3f\t%.2f%n", n, ns / 1e6, (double) ns / n);
+        }
+    }
+
+    /**
+     * Llena una cola con n elementos y mide el tiempo de desencolarlos todos.
+     *
+     * @param n número de elementos
+     * @return tiempo del vaciado en nanosegundos
+     */
+    private static long medirVaciado(int n) {
+        Queue<Integer> cola = new Queue<>();
+        for (int i = 0; i < n; i++) {
+            cola.enqueue(i);
+        }
+        long suma = 0;
+        long inicio = System.nanoTime();
+        while (!cola.isEmpty()) {
+            suma += cola.dequeue();
+        }
+        long fin = System.nanoTime();
+        if (suma < 0) {
+            System.out.println(suma); // evita que el JIT elimine el ciclo
+        }
+        return fin - inicio;
+    }
+}
@@ -0,0 +1,46 @@
+package benchmark;
+
+/**
+ * Operación a medir por {@link SuiteBenchmarks} para un tamaño de entrada n.
+ * Primero se llama a {@link #preparar(int)} (no se mide) y luego a
+ * {@link #ejecutar()}, cuyo tiempo se reparte entre los n elementos.
+ *
+ * @author piped
+ */
+public abstract class Medicion {
+
+    /** Nombre de la operación, por ejemplo "Queue.dequeue" */
+    private final String nombre;
+
+    /**
+     * Crea una medición con el nombre dado.
+     *
+     * @param nombre Nombre de la operación.
+     */
+    protected Medicion(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * Devuelve el nombre de la operación.
+     *
+     * @return Nombre de la medición.
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Construye el estado inicial para n elementos. Su tiempo no se mide.
+     *
+     * @param n Tamaño de la entrada.
+     */
+    public abstract void preparar(int n);
+
+    /**
+     * Ejecuta la operación sobre los n elementos preparados.
+     *
+     * @return Un valor derivado del resultado, para que el JIT no elimine el trabajo.
+     */
+    public abstract long ejecutar();
+}
@@ -0,0 +1,234 @@
+package benchmark;
+
+import bitacora.Bitacora;
+import cosas.Bodega;
+import cosas.Caja;
+import cosas.Camion;
+import cosas.Cliente;
+import cosas.GeneradorCarga;
+import cosas.GuiaEnvio;
+import java.io.PrintStream;
+import java.util.Random;
+import tdas.Bag;
+import tdas.List;
+import tdas.Queue;
+import tdas.Stack;
+
+/**
+ * Suite de benchmarks para los tdas y el flujo de despacho. Cada operación se mide
+ * con tamaños de 10 a 10.000.000 elementos, con calentamiento previo y repeticiones
+ * hasta acumular un tiempo mínimo. Se informa el tiempo por elemento; si crece
+ * mucho al aumentar n, la operación se marca como posiblemente cuadrática.
+ *
+ * Uso: {@code java -cp build/classes benchmark.SuiteBenchmarks [filtro] [nMaximo]}
+ *
+ * @author piped
+ */
+public class SuiteBenchmarks {
+
+    /** Tamaños de entrada a medir */
+    private static final int[] TAMANOS = {10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+
+    /** Tiempo mínimo de medición por tamaño (ns) */
+    private static final long TIEMPO_MINIMO = 200_000_000L;
+
+    /** Si una sola ejecución supera este tiempo (ns), no se miden tamaños mayores */
+    private static final long TIEMPO_LIMITE = 5_000_000_000L;
+
+    /** Crecimiento del tiempo por elemento, por cada factor 10 de n, que se considera sospechoso */
+    private static final double CRECIMIENTO_SOSPECHOSO = 3.0;
+
+    /** Salida donde se informan los resultados */
+    private static final PrintStream RESULTADOS = System.out;
+
+    /**
+     * Ejecuta la suite completa o solo las mediciones cuyo nombre contiene el filtro.
+     *
+     * @param args [filtro] [nMaximo]
+     */
+    public static void main(String[] args) {
+        String filtro = args.length > 0 ? args[0] : "";
+        int nMaximo = args.length > 1 ? Integer.parseInt(args[1]) : TAMANOS[TAMANOS.length - 1];
+        // Bodega y Camion registran cada caja; se apaga la bitácora durante las mediciones
+        Bitacora.get().setNivel(Bitacora.Nivel.APAGADO);
+        try {
+            for (Medicion m : mediciones()) {
+                if (m.getNombre().contains(filtro)) medir(m, nMaximo);
+            }
+        } finally {
+            Bitacora.get().setNivel(Bitacora.Nivel.INFO);
+        }
+    }
+
+    /**
+     * Mide una operación en todos los tamaños hasta nMaximo e imprime los resultados.
+     *
+     * @param m Medición.
+     * @param nMaximo Tamaño máximo a medir.
+     */
+    private static void medir(Medicion m, int nMaximo) {
+        RESULTADOS.println("== " + m.getNombre());
+        RESULTADOS.println("n\tns/elemento\trepeticiones");
+        calentar(m);
+        double anterior = -1;
+        int nAnterior = 0;
+        for (int n : TAMANOS) {
+            if (n > nMaximo) break;
+            long total = 0, peor = 0;
+            long sumidero = 0;
+            int reps = 0;
+            while (total < TIEMPO_MINIMO) {
+                m.preparar(n);
+                long inicio = System.nanoTime();
+                sumidero += m.ejecutar();
+                long t = System.nanoTime() - inicio;
+                total += t;
+                peor = Math.max(peor, t);
+                reps++;
+                if (t > TIEMPO_LIMITE) break;
+            }
+            double porElemento = (double) total / reps / n;
+            String alerta = "";
+            if (anterior > 0 && nAnterior >= 1_000) {
+                double crecimiento = porElemento / anterior;
+                if (crecimiento > CRECIMIENTO_SOSPECHOSO)
+                    alerta = String.format("\t<-- x%.1f: posible O(n^2)", crecimiento);
+            }
+            RESULTADOS.printf("%d\t%.2f\t%d%s%n", n, porElemento, reps, alerta);
+            if (sumidero == Long.MIN_VALUE) RESULTADOS.print("");
+            anterior = porElemento;
+            nAnterior = n;
+            if (peor > TIEMPO_LIMITE) {
+                RESULTADOS.println("(tamanos mayores omitidos: la ejecucion supero " + TIEMPO_LIMITE / 1_000_000_000L + " s)");
+                break;
+            }
+        }
+    }
+
+    /**
+     * Ejecuta la operación varias veces con un tamaño pequeño para que el JIT la compile.
+     *
+     * @param m Medición.
+     */
+    private static void calentar(Medicion m) {
+        long fin = System.nanoTime() + 500_000_000L;
+        while (System.nanoTime() < fin) {
+            m.preparar(1_000);
+            m.ejecutar();
+        }
+    }
+
+    /**
+     * Crea n cajas con guía, con dimensiones y distancias pseudoaleatorias reproducibles.
+     * El peso real se ajusta para que el total facturado quede cerca de pesoTotal.
+     *
+     * @param n Número de cajas.
+     * @param pesoTotal Peso facturado total aproximado (kg).
+     * @return Cajas creadas.
+     */
+    static Caja[] crearCajas(int n, double pesoTotal) {
+        Random r = new Random(42);
+        Cliente cli = new Cliente("C1", "Cliente Benchmark", "3000000000", "bench@correo.com", "Calle 1 #1");
+        Caja[] cajas = new Caja[n];
+        for (int i = 0; i < n; i++) {
+            Caja c = new Caja(1, 1, 1, pesoTotal / n);
+            c.setGuia(new GuiaEnvio("G" + i, cli, GuiaEnvio.Destino.NORTE, 1 + r.nextInt(100)));
+            cajas[i] = c;
+        }
+        return cajas;
+    }
+
+    /**
+     * Devuelve todas las mediciones de la suite.
+     *
+     * @return Mediciones a ejecutar.
+     */
+    static Medicion[] mediciones() {
+        return new Medicion[] {
+            new Medicion("List.list") {
+                List<Integer> l; int n;
+                public void preparar(int n) { this.n = n; l = new List<>(); }
+                public long ejecutar() { for (int i = 0; i < n; i++) l.list(i); return l.size(); }
+            },
+            new Medicion("List.add(0)") {
+                List<Integer> l; int n;
+                public void preparar(int n) { this.n = n; l = new List<>(); }
+                public long ejecutar() { for (int i = 0; i < n; i++) l.add(0, i); return l.size(); }
+            },
+            new Medicion("List.remove(0)") {
+                List<Integer> l; int n;
+                public void preparar(int n) { this.n = n; l = new List<>(); for (int i = 0; i < n; i++) l.list(i); }
+                public long ejecutar() { long s = 0; for (int i = 0; i < n; i++) s += l.remove(0); return s; }
+            },
+            new Medicion("List.get") {
+                List<Integer> l; int n;
+                public void preparar(int n) { this.n = n; if (l == null || l.size() != n) { l = new List<>(); for (int i = 0; i < n; i++) l.list(i); } }
+                public long ejecutar() { long s = 0; for (int i = 0; i < n; i++) s += l.get((int) ((i * 2654435761L) % n)); return s; }
+            },
+            new Medicion("List.stream.sum") {
+                List<Integer> l; int n;
+                public void preparar(int n) { this.n = n; if (l == null || l.size() != n) { l = new List<>(n); for (int i = 0; i < n; i++) l.list(i); } }
+                public long ejecutar() { return l.stream().mapToLong(Integer::longValue).sum(); }
+            },
+            new Medicion("List.parallelStream.sum") {
+                List<Integer> l; int n;
+                public void preparar(int n) { this.n = n; if (l == null || l.size() != n) { l = new List<>(n); for (int i = 0; i < n; i++) l.list(i); } }
+                public long ejecutar() { return l.parallelStream().mapToLong(Integer::longValue).sum(); }
+            },
+            new Medicion("Queue.enqueue") {
+                Queue<Integer> q; int n;
+                public void preparar(int n) { this.n = n; q = new Queue<>(); }
+                public long ejecutar() { for (int i = 0; i < n; i++) q.enqueue(i); return q.size(); }
+            },
+            new Medicion("Queue.dequeue") {
+                Queue<Integer> q; int n;
+                public void preparar(int n) { this.n = n; q = new Queue<>(); for (int i = 0; i < n; i++) q.enqueue(i); }
+                public long ejecutar() { long s = 0; for (int i = 0; i < n; i++) s += q.dequeue(); return s; }
+            },
+            new Medicion("Stack.push") {
+                Stack<Integer> p; int n;
+                public void preparar(int n) { this.n = n; p = new Stack<>(); }
+                public long ejecutar() { for (int i = 0; i < n; i++) p.push(i); return p.size(); }
+            },
+            new Medicion("Stack.pop") {
+                Stack<Integer> p; int n;
+                public void preparar(int n) { this.n = n; p = new Stack<>(); for (int i = 0; i < n; i++) p.push(i); }
+                public long ejecutar() { long s = 0; for (int i = 0; i < n; i++) s += p.pop(); return s; }
+            },
+            new Medicion("Bag.add") {
+                Bag<Integer> b; int n;
+                public void preparar(int n) { this.n = n; b = new Bag<>(); }
+                public long ejecutar() { for (int i = 0; i < n; i++) b.add(i); return b.size(); }
+            },
+            new Medicion("Bodega.recibirCaja+ordenarPorDistancia") {
+                Caja[] cajas; Bodega b;
+                public void preparar(int n) { if (cajas == null || cajas.length != n) cajas = crearCajas(n, 3000); b = new Bodega(GuiaEnvio.Destino.NORTE); }
+                public long ejecutar() { for (Caja c : cajas) b.recibirCaja(c); b.ordenarPorDistancia(); return b.cantidadCajas(); }
+            },
+            new Medicion("Camion.cargarCaja") {
+                Caja[] cajas; Camion c;
+                public void preparar(int n) { if (cajas == null || cajas.length != n) cajas = crearCajas(n, 3000); c = new Camion(GuiaEnvio.Destino.NORTE); }
+                public long ejecutar() { for (Caja caja : cajas) c.cargarCaja(caja); return c.obtenerNumeroCajas(); }
+            },
+            new Medicion("Camion.despachar") {
+                Caja[] cajas; Camion c;
+                public void preparar(int n) {
+                    if (cajas == null || cajas.length != n) cajas = crearCajas(n, 3000);
+                    c = new Camion(GuiaEnvio.Destino.NORTE);
+                    for (Caja caja : cajas) c.cargarCaja(caja);
+                }
+                public long ejecutar() { return c.despachar() ? 1 : 0; }
+            },
+            new Medicion("GeneradorCarga.clientes") {
+                GeneradorCarga g = new GeneradorCarga(42); int n;
+                public void preparar(int n) { this.n = n; }
+                public long ejecutar() { return g.clientes(n).length; }
+            },
+            new Medicion("GeneradorCarga.cajas") {
+                GeneradorCarga g = new GeneradorCarga(42); Cliente[] clientes = g.clientes(10_000); int n;
+                public void preparar(int n) { this.n = n; }
+                public long ejecutar() { return g.cajas(n, clientes).length; }
+            },
+        };
+    }
+}
@@ -0,0 +1,350 @@
+package bitacora;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import tdas.ConcurrentQueue;
+
+/**
+ * Bitácora de eventos asíncrona. Los mensajes se piden con un {@link Supplier}, que
+ * solo se evalúa si el nivel está activo; se evalúa en el hilo que registra el evento,
+ * para que el texto refleje el estado de ese momento, y el texto se deja en una cola
+ * circular sin candados. Un hilo de fondo escribe los eventos por lotes en un canal.
+ * Quien registra un evento nunca espera por la escritura: si la cola está llena,
+ * el evento se descarta y se cuenta, y el hilo de fondo deja en la bitácora un aviso
+ * con la cantidad descartada.
+ *
+ * Los eventos de cada caja (recibirla, cargarla, entregarla) son de
+ * {@link Nivel#DEPURACION}; con el nivel por defecto, INFO, no se formatean.
+ *
+ * Por defecto existe una bitácora global que agrega los eventos al archivo
+ * {@value #ARCHIVO_POR_DEFECTO}, o al indicado con {@code -Dbitacora.archivo=ruta};
+ * se puede reemplazar con {@link #configurar(Bitacora)}.
+ *
+ * @author piped
+ */
+public class Bitacora implements AutoCloseable {
+
+    /**
+     * Niveles de importancia de los eventos, de menor a mayor.
+     * APAGADO desactiva todos los eventos.
+     */
+    public enum Nivel { DEPURACION, INFO, AVISO, ERROR, APAGADO }
+
+    /** Capacidad por defecto de la cola de eventos */
+    public static final int CAPACIDAD = 1 << 16;
+
+    /** Tamaño de lote a partir del cual se escribe aunque queden eventos */
+    private static final int TAMANO_LOTE = 1 << 16;
+
+    /** Archivo de la bitácora global si no se indica otro */
+    public static final String ARCHIVO_POR_DEFECTO = "bitacora.log";
+
+    /** Bitácora global usada por las clases del sistema */
+    private static volatile Bitacora global = porDefecto();
+
+    /** Eventos pendientes de escribir */
+    private final ConcurrentQueue<Evento> eventos;
+
+    /** Canal de destino */
+    private final WritableByteChannel destino;
+
+    /** Indica si el canal se cierra junto con la bitácora */
+    private final boolean cerrarDestino;
+
+    /** Nivel mínimo de los eventos que se registran */
+    private volatile Nivel nivel;
+
+    /** Eventos aceptados en la cola */
+    private final AtomicLong aceptados = new AtomicLong();
+
+    /** Eventos descartados por cola llena */
+    private final AtomicLong descartados = new AtomicLong();
+
+    /** Descartados ya avisados en la bitácora; solo lo usa el hilo escritor */
+    private long descartadosAvisados;
+
+    /** Eventos ya escritos en el destino */
+    private volatile long escritos;
+
+    /** Indica que la bitácora se está cerrando */
+    private volatile boolean cerrada;
+
+    /** Hilo que escribe los eventos */
+    private final Thread escritor;
+
+    /**
+     * Crea una bitácora que escribe en el canal dado.
+     *
+     * @param destino Canal donde se escriben los eventos.
+     * @param nivel Nivel mínimo de los eventos a registrar.
+     * @param capacidad Número máximo de eventos pendientes.
+     * @param cerrarDestino true si el canal debe cerrarse al cerrar la bitácora.
+     */
+    public Bitacora(WritableByteChannel destino, Nivel nivel, int capacidad, boolean cerrarDestino) {
+        this.destino = destino;
+        this.nivel = nivel;
+        this.cerrarDestino = cerrarDestino;
+        this.eventos = new ConcurrentQueue<>(capacidad);
+        escritor = new Thread(this::escribirLotes, "bitacora");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Crea una bitácora que agrega los eventos al final de un archivo.
+     *
+     * @param archivo Ruta del archivo.
+     * @param nivel Nivel mínimo de los eventos a registrar.
+     * @return Bitácora sobre el archivo.
+     * @throws IOException si no se puede abrir el archivo.
+     */
+    public static Bitacora aArchivo(Path archivo, Nivel nivel) throws IOException {
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new Bitacora(canal, nivel, CAPACIDAD, true);
+    }
+
+    /**
+     * Crea la bitácora global sobre el archivo de la propiedad {@code bitacora.archivo}.
+     * Si el archivo no se puede abrir, escribe en la salida de errores.
+     *
+     * @return Bitácora global inicial.
+     */
+    private static Bitacora porDefecto() {
+        String archivo = System.getProperty("bitacora.archivo", ARCHIVO_POR_DEFECTO);
+        try {
+            return aArchivo(Paths.get(archivo), Nivel.INFO);
+        } catch (IOException | InvalidPathException ex) {
+            System.err.println("No se pudo abrir la bitacora " + archivo + ": " + ex.getMessage());
+            return new Bitacora(Channels.newChannel(new FileOutputStream(FileDescriptor.err)), Nivel.INFO, CAPACIDAD, false);
+        }
+    }
+
+    /**
+     * Devuelve la bitácora global.
+     *
+     * @return Bitácora global.
+     */
+    public static Bitacora get() {
+        return global;
+    }
+
+    /**
+     * Reemplaza la bitácora global. La anterior se vacía y se cierra.
+     *
+     * @param nueva Nueva bitácora global.
+     */
+    public static void configurar(Bitacora nueva) {
+        Bitacora anterior = global;
+        global = nueva;
+        anterior.close();
+    }
+
+    /**
+     * Cambia el nivel mínimo de los eventos a registrar.
+     *
+     * @param nivel Nuevo nivel.
+     */
+    public void setNivel(Nivel nivel) {
+        this.nivel = nivel;
+    }
+
+    /**
+     * Indica si los eventos del nivel dado se registran.
+     *
+     * @param n Nivel a consultar.
+     * @return true si el nivel está activo.
+     */
+    public boolean activo(Nivel n) {
+        return n != Nivel.APAGADO && n.compareTo(nivel) >= 0;
+    }
+
+    /**
+     * Registra un evento. El mensaje solo se construye si el nivel está activo,
+     * y se construye aquí, en el hilo que llama.
+     *
+     * @param n Nivel del evento.
+     * @param mensaje Constructor del mensaje.
+     */
+    public void registrar(Nivel n, Supplier<String> mensaje) {
+        if (!activo(n) || cerrada) return;
+        String texto;
+        try {
+            texto = mensaje.get();
+        } catch (RuntimeException ex) {
+            texto = "<error al construir el mensaje: " + ex + ">";
+        }
+        if (eventos.offer(new Evento(n, texto))) {
+            aceptados.incrementAndGet();
+        } else {
+            descartados.incrementAndGet();
+        }
+    }
+
+    /**
+     * Registra un evento de depuración.
+     *
+     * @param mensaje Constructor del mensaje.
+     */
+    public void depuracion(Supplier<String> mensaje) {
+        registrar(Nivel.DEPURACION, mensaje);
+    }
+
+    /**
+     * Registra un evento informativo.
+     *
+     * @param mensaje Constructor del mensaje.
+     */
+    public void info(Supplier<String> mensaje) {
+        registrar(Nivel.INFO, mensaje);
+    }
+
+    /**
+     * Registra un aviso.
+     *
+     * @param mensaje Constructor del mensaje.
+     */
+    public void aviso(Supplier<String> mensaje) {
+        registrar(Nivel.AVISO, mensaje);
+    }
+
+    /**
+     * Registra un error.
+     *
+     * @param mensaje Constructor del mensaje.
+     */
+    public void error(Supplier<String> mensaje) {
+        registrar(Nivel.ERROR, mensaje);
+    }
+
+    /**
+     * Devuelve cuántos eventos se descartaron porque la cola estaba llena.
+     *
+     * @return Eventos descartados.
+     */
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    /**
+     * Espera a que todos los eventos registrados hasta ahora estén escritos.
+     * Útil antes de escribir directamente en la consola, para no intercalar salidas.
+     */
+    public void vaciar() {
+        long objetivo = aceptados.get();
+        while (escritos < objetivo && escritor.isAlive()) {
+            LockSupport.unpark(escritor);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /**
+     * Ciclo del hilo escritor: toma eventos, los formatea y los escribe por lotes.
+     */
+    private void escribirLotes() {
+        StringBuilder lote = new StringBuilder(TAMANO_LOTE);
+        long enLote = 0;
+        while (true) {
+            Evento e = eventos.poll();
+            if (e != null) {
+                e.formatear(lote);
+                enLote++;
+                if (lote.length() < TAMANO_LOTE) continue;
+            }
+            long perdidos = descartados.get() - descartadosAvisados;
+            if (perdidos > 0) {
+                descartadosAvisados += perdidos;
+                new Evento(Nivel.AVISO, "Se descartaron " + perdidos + " eventos por cola llena.").formatear(lote);
+            }
+            if (lote.length() > 0) {
+                escribir(lote);
+                escritos += enLote;
+                enLote = 0;
+                lote.setLength(0);
+            } else if (cerrada) {
+                return;
+            } else {
+                LockSupport.parkNanos(1_000_000);
+            }
+        }
+    }
+
+    /**
+     * Escribe un lote en el canal de destino.
+     *
+     * @param lote Texto a escribir.
+     */
+    private void escribir(StringBuilder lote) {
+        ByteBuffer buf = ByteBuffer.wrap(lote.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buf.hasRemaining()) destino.write(buf);
+        } catch (IOException ex) {
+            System.err.println("No se pudo escribir la bitacora: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Escribe los eventos pendientes, detiene el hilo escritor y cierra el destino si corresponde.
+     */
+    @Override
+    public void close() {
+        vaciar();
+        cerrada = true;
+        LockSupport.unpark(escritor);
+        try {
+            escritor.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (cerrarDestino) {
+            try {
+                destino.close();
+            } catch (IOException ex) {
+                System.err.println("No se pudo cerrar la bitacora: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Evento pendiente de escribir.
+     */
+    private static class Evento {
+        private final Nivel nivel;
+        private final String mensaje;
+
+        /**
+         * Crea un evento.
+         *
+         * @param nivel Nivel del evento.
+         * @param mensaje Texto del mensaje.
+         */
+        Evento(Nivel nivel, String mensaje) {
+            this.nivel = nivel;
+            this.mensaje = mensaje;
+        }
+
+        /**
+         * Agrega el mensaje al lote como una línea.
+         * Los eventos informativos se escriben sin prefijo de nivel.
+         *
+         * @param lote Texto del lote.
+         */
+        void formatear(StringBuilder lote) {
+            if (nivel != Nivel.INFO) lote.append('[').append(nivel).append("] ");
+            lote.append(mensaje).append(System.lineSeparator());
+        }
+    }
+}
@@ -0,0 +1,693 @@
+package cosas;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import tdas.HashTable;
+import tdas.List;
+
+/**
+ * Almacén compacto de clientes. En lugar de cinco cadenas por cliente guarda cada
+ * dato en un arreglo primitivo paralelo:
+ * <ul>
+ * <li>ID: los de la forma {@code C<número>} se guardan como número; los demás, en
+ * minúsculas en el diccionario. Si el ID original difiere de esa forma se guarda aparte.</li>
+ * <li>Nombre: la primera palabra y el resto se codifican en un diccionario, así que
+ * cada nombre o apellido distinto se guarda una sola vez.</li>
+ * <li>Teléfono: se guarda como número junto con su cantidad de dígitos.</li>
+ * <li>Dirección: la calle va al diccionario y el número de casa ({@code " #n"}) se
+ * guarda aparte.</li>
+ * <li>Correo: si es el derivado del nombre ({@code nombre.apellido@correo.com}) no
+ * se guarda; se reconstruye al pedirlo.</li>
+ * </ul>
+ * Los datos que no siguen estos formatos se guardan completos en el diccionario,
+ * así que cualquier cliente se puede almacenar sin perder información.
+ *
+ * Los clientes se leen con {@link ClienteCompacto}, una vista que es un Cliente y
+ * construye sus cadenas solo cuando se piden. Es el almacenamiento de
+ * {@link RegistroClientes}. Un cliente ocupa unos 45 bytes, frente a unos 220 de un
+ * Cliente con cinco cadenas propias (medido con punteros comprimidos; ver las pruebas).
+ *
+ * @author piped
+ */
+public class AlmacenClientes implements Iterable<Cliente> {
+
+    /** Dominio de los correos derivados del nombre */
+    private static final String DOMINIO = "@correo.com";
+
+    /** Marca de dato nulo en las columnas de códigos */
+    private static final int NULO = -1;
+
+    /** Marca de correo derivado del nombre */
+    private static final int DERIVADO = -2;
+
+    /** ID numérico (C + número), o -(código + 1) del ID completo en el diccionario */
+    private long[] id;
+
+    /** Código de la primera palabra del nombre, y del resto (NULO si no hay resto) */
+    private int[] nombre, apellido;
+
+    /** Teléfono como número, o código en el diccionario si telefonoDigitos es 0 */
+    private long[] telefono;
+
+    /** Dígitos del teléfono (para conservar ceros a la izquierda); 0 = en diccionario, -1 = nulo */
+    private byte[] telefonoDigitos;
+
+    /** Código de la calle (o de la dirección completa si numero es -1) */
+    private int[] calle;
+
+    /** Número de casa, o -1 si la dirección no tiene ese formato */
+    private short[] numero;
+
+    /** Código del correo en el diccionario, o DERIVADO o NULO */
+    private int[] email;
+
+    /** Número de clientes */
+    private int count;
+
+    /** Diccionario de palabras, calles y datos que no siguen los formatos */
+    private final Diccionario diccionario = new Diccionario();
+
+    /** IDs que no coinciden con su forma canónica (por ejemplo en minúsculas), por fila */
+    private final HashTable<Integer, String> idOriginal = new HashTable<>();
+
+    /** Índice por ID: tabla de sondeo lineal con fila + 1 (0 = vacía) */
+    private int[] indice;
+
+    /**
+     * Crea un almacén vacío con capacidad inicial de 16 clientes.
+     */
+    public AlmacenClientes() {
+        this(16);
+    }
+
+    /**
+     * Crea un almacén vacío con la capacidad inicial indicada.
+     *
+     * @param capacidad Número de clientes para los que se reserva espacio.
+     */
+    public AlmacenClientes(int capacidad) {
+        int cap = Math.max(capacidad, 1);
+        id = new long[cap];
+        nombre = new int[cap];
+        apellido = new int[cap];
+        telefono = new long[cap];
+        telefonoDigitos = new byte[cap];
+        calle = new int[cap];
+        numero = new short[cap];
+        email = new int[cap];
+        indice = new int[Integer.highestOneBit(cap * 2 - 1) * 2];
+    }
+
+    /**
+     * Copia un cliente al almacén, si no hay otro con el mismo ID.
+     * Los IDs se comparan sin distinguir mayúsculas, como en {@link RegistroClientes}.
+     *
+     * @param c Cliente a agregar.
+     * @return Posición del cliente en el almacén, o -1 si el ID ya existía.
+     */
+    public int agregar(Cliente c) {
+        long clave = codificarId(c.getId());
+        if (buscarFila(clave) >= 0) return -1;
+        if (count == id.length) resize(2 * id.length);
+        int i = count++;
+        id[i] = clave;
+        escribirIdOriginal(i, c.getId());
+        escribirNombre(i, c.getNombre());
+        escribirTelefono(i, c.getTelefono());
+        escribirDireccion(i, c.getDireccion());
+        escribirEmail(i, c.getEmail());
+        if (2 * count > indice.length) reindexar(2 * indice.length);
+        insertarEnIndice(i);
+        return i;
+    }
+
+    /**
+     * Busca un cliente por su ID, sin distinguir mayúsculas.
+     *
+     * @param idCliente ID a buscar.
+     * @return Vista del cliente, o null si no existe.
+     */
+    public ClienteCompacto buscar(String idCliente) {
+        if (idCliente == null) return null;
+        long clave = claveBusqueda(idCliente);
+        int i = clave == Long.MIN_VALUE ? -1 : buscarFila(clave);
+        return i < 0 ? null : new ClienteCompacto(i);
+    }
+
+    /**
+     * Devuelve una vista del cliente en la posición dada.
+     *
+     * @param i Posición del cliente.
+     * @return Vista del cliente.
+     * @throws IndexOutOfBoundsException si la posición no existe.
+     */
+    public ClienteCompacto get(int i) {
+        if (i < 0 || i >= count) throw new IndexOutOfBoundsException("Indice: " + i);
+        return new ClienteCompacto(i);
+    }
+
+    /**
+     * Devuelve el número de clientes almacenados.
+     *
+     * @return Cantidad de clientes.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Devuelve el número de textos distintos guardados en el diccionario.
+     *
+     * @return Tamaño del diccionario.
+     */
+    public int tamanoDiccionario() {
+        return diccionario.size();
+    }
+
+    /**
+     * Recorre los clientes en orden de inserción.
+     *
+     * @return Iterador de vistas.
+     */
+    @Override
+    public Iterator<Cliente> iterator() {
+        return new Iterator<Cliente>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < count;
+            }
+
+            @Override
+            public Cliente next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return new ClienteCompacto(i++);
+            }
+        };
+    }
+
+    // ---- codificación ----
+
+    /**
+     * Codifica un ID: número si tiene la forma C + dígitos (sin ceros a la izquierda),
+     * o el código del ID en minúsculas en el diccionario.
+     *
+     * @param s ID.
+     * @return Clave del ID.
+     */
+    private long codificarId(String s) {
+        long n = idNumerico(s);
+        if (n >= 0) return n;
+        return -(diccionario.codigo(s == null ? "" : s.toLowerCase(Locale.ROOT)) + 1L);
+    }
+
+    /**
+     * Calcula la clave de un ID sin agregarlo al diccionario.
+     *
+     * @param s ID.
+     * @return Clave del ID, o Long.MIN_VALUE si ningún cliente puede tenerlo.
+     */
+    private long claveBusqueda(String s) {
+        long n = idNumerico(s);
+        if (n >= 0) return n;
+        int k = diccionario.buscar(s.toLowerCase(Locale.ROOT));
+        return k < 0 ? Long.MIN_VALUE : -(k + 1L);
+    }
+
+    /**
+     * Interpreta un ID de la forma C + dígitos.
+     *
+     * @param s ID.
+     * @return Número del ID, o -1 si no tiene esa forma.
+     */
+    private static long idNumerico(String s) {
+        if (s == null || s.length() < 2 || s.length() > 19) return -1;
+        char c0 = s.charAt(0);
+        if (c0 != 'C' && c0 != 'c') return -1;
+        if (s.charAt(1) == '0' && s.length() > 2) return -1;
+        long n = 0;
+        for (int i = 1; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') return -1;
+            n = n * 10 + (ch - '0');
+        }
+        return n;
+    }
+
+    /**
+     * Escribe el nombre de un cliente: primera palabra y resto.
+     *
+     * @param i Fila.
+     * @param s Nombre completo.
+     */
+    private void escribirNombre(int i, String s) {
+        if (s == null) {
+            nombre[i] = NULO;
+            apellido[i] = NULO;
+            return;
+        }
+        int espacio = s.indexOf(' ');
+        nombre[i] = diccionario.codigo(espacio < 0 ? s : s.substring(0, espacio));
+        apellido[i] = espacio < 0 ? NULO : diccionario.codigo(s.substring(espacio + 1));
+    }
+
+    /**
+     * Escribe el teléfono de un cliente, como número si solo tiene dígitos.
+     *
+     * @param i Fila.
+     * @param s Teléfono.
+     */
+    private void escribirTelefono(int i, String s) {
+        if (s == null) {
+            telefonoDigitos[i] = -1;
+            return;
+        }
+        boolean digitos = !s.isEmpty() && s.length() <= 18;
+        long n = 0;
+        for (int k = 0; digitos && k < s.length(); k++) {
+            char ch = s.charAt(k);
+            digitos = ch >= '0' && ch <= '9';
+            n = n * 10 + (ch - '0');
+        }
+        if (digitos) {
+            telefono[i] = n;
+            telefonoDigitos[i] = (byte) s.length();
+        } else {
+            telefono[i] = diccionario.codigo(s);
+            telefonoDigitos[i] = 0;
+        }
+    }
+
+    /**
+     * Escribe la dirección de un cliente, separando la calle del número de casa.
+     *
+     * @param i Fila.
+     * @param s Dirección.
+     */
+    private void escribirDireccion(int i, String s) {
+        if (s == null) {
+            calle[i] = NULO;
+            numero[i] = -1;
+            return;
+        }
+        int k = s.lastIndexOf(" #");
+        int n = k < 0 ? -1 : numeroCasa(s, k + 2);
+        calle[i] = diccionario.codigo(n < 0 ? s : s.substring(0, k));
+        numero[i] = (short) n;
+    }
+
+    /**
+     * Interpreta el número de casa al final de una dirección.
+     *
+     * @param s Dirección.
+     * @param desde Posición del primer dígito.
+     * @return Número (1 a 32767, sin ceros a la izquierda), o -1 si no lo es.
+     */
+    private static int numeroCasa(String s, int desde) {
+        int largo = s.length() - desde;
+        if (largo < 1 || largo > 5 || s.charAt(desde) == '0') return -1;
+        int n = 0;
+        for (int k = desde; k < s.length(); k++) {
+            char ch = s.charAt(k);
+            if (ch < '0' || ch > '9') return -1;
+            n = n * 10 + (ch - '0');
+        }
+        return n <= Short.MAX_VALUE ? n : -1;
+    }
+
+    /**
+     * Escribe el correo de un cliente; no se guarda si es el derivado de su nombre.
+     *
+     * @param i Fila.
+     * @param s Correo.
+     */
+    private void escribirEmail(int i, String s) {
+        if (s == null) {
+            email[i] = NULO;
+        } else if (s.equals(emailDerivado(i))) {
+            email[i] = DERIVADO;
+        } else {
+            email[i] = diccionario.codigo(s);
+        }
+    }
+
+    // ---- decodificación ----
+
+    /**
+     * Reconstruye el ID de un cliente con sus mayúsculas originales.
+     *
+     * @param i Fila.
+     * @return ID.
+     */
+    private String leerId(int i) {
+        String original = idOriginal.get(i);
+        return original != null ? original : idCanonico(id[i]);
+    }
+
+    /**
+     * Reconstruye la forma canónica de un ID: C + número, o el ID en minúsculas.
+     *
+     * @param clave Clave del ID.
+     * @return ID canónico.
+     */
+    private String idCanonico(long clave) {
+        return clave >= 0 ? "C" + clave : diccionario.valor((int) (-clave - 1));
+    }
+
+    /**
+     * Guarda el ID original de una fila si difiere de su forma canónica.
+     *
+     * @param i Fila.
+     * @param s ID original.
+     */
+    private void escribirIdOriginal(int i, String s) {
+        if (s != null && !s.equals(idCanonico(id[i]))) {
+            idOriginal.put(i, s);
+        } else {
+            idOriginal.put(i, null);
+        }
+    }
+
+    /**
+     * Reconstruye el nombre completo de un cliente.
+     *
+     * @param i Fila.
+     * @return Nombre completo, o null.
+     */
+    private String leerNombre(int i) {
+        if (nombre[i] == NULO) return null;
+        String n = diccionario.valor(nombre[i]);
+        return apellido[i] == NULO ? n : n + " " + diccionario.valor(apellido[i]);
+    }
+
+    /**
+     * Reconstruye el teléfono de un cliente.
+     *
+     * @param i Fila.
+     * @return Teléfono, o null.
+     */
+    private String leerTelefono(int i) {
+        int digitos = telefonoDigitos[i];
+        if (digitos < 0) return null;
+        if (digitos == 0) return diccionario.valor((int) telefono[i]);
+        char[] d = new char[digitos];
+        long n = telefono[i];
+        for (int k = digitos - 1; k >= 0; k--) {
+            d[k] = (char) ('0' + n % 10);
+            n /= 10;
+        }
+        return new String(d);
+    }
+
+    /**
+     * Reconstruye la dirección de un cliente.
+     *
+     * @param i Fila.
+     * @return Dirección, o null.
+     */
+    private String leerDireccion(int i) {
+        if (calle[i] == NULO) return null;
+        String c = diccionario.valor(calle[i]);
+        return numero[i] < 0 ? c : c + " #" + numero[i];
+    }
+
+    /**
+     * Reconstruye el correo de un cliente.
+     *
+     * @param i Fila.
+     * @return Correo, o null.
+     */
+    private String leerEmail(int i) {
+        if (email[i] == NULO) return null;
+        return email[i] == DERIVADO ? emailDerivado(i) : diccionario.valor(email[i]);
+    }
+
+    /**
+     * Construye el correo derivado del nombre: en minúsculas, con puntos en lugar de espacios.
+     *
+     * @param i Fila.
+     * @return Correo derivado, o null si el cliente no tiene nombre.
+     */
+    private String emailDerivado(int i) {
+        String n = leerNombre(i);
+        return n == null ? null : n.toLowerCase().replace(" ", ".") + DOMINIO;
+    }
+
+    // ---- índice por ID ----
+
+    /**
+     * Posición inicial de una clave en el índice.
+     *
+     * @param clave Clave del ID.
+     * @return Posición en el índice.
+     */
+    private int hash(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (indice.length - 1);
+    }
+
+    /**
+     * Busca la fila de un ID.
+     *
+     * @param clave Clave del ID.
+     * @return Fila, o -1 si no existe.
+     */
+    private int buscarFila(long clave) {
+        for (int p = hash(clave); indice[p] != 0; p = (p + 1) & (indice.length - 1)) {
+            if (id[indice[p] - 1] == clave) return indice[p] - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Agrega una fila al índice.
+     *
+     * @param i Fila.
+     */
+    private void insertarEnIndice(int i) {
+        int p = hash(id[i]);
+        while (indice[p] != 0) p = (p + 1) & (indice.length - 1);
+        indice[p] = i + 1;
+    }
+
+    /**
+     * Quita una fila del índice, reubicando las que siguen en su grupo.
+     *
+     * @param i Fila.
+     */
+    private void quitarDeIndice(int i) {
+        int m = indice.length - 1;
+        int p = hash(id[i]);
+        while (indice[p] != i + 1) p = (p + 1) & m;
+        indice[p] = 0;
+        for (int q = (p + 1) & m; indice[q] != 0; q = (q + 1) & m) {
+            int fila = indice[q] - 1;
+            indice[q] = 0;
+            insertarEnIndice(fila);
+        }
+    }
+
+    /**
+     * Reconstruye el índice con otro tamaño.
+     *
+     * @param tamano Nuevo tamaño (potencia de 2).
+     */
+    private void reindexar(int tamano) {
+        indice = new int[tamano];
+        for (int i = 0; i < count; i++) insertarEnIndice(i);
+    }
+
+    /**
+     * Redimensiona las columnas.
+     *
+     * @param capacidad Nueva capacidad.
+     */
+    private void resize(int capacidad) {
+        id = Arrays.copyOf(id, capacidad);
+        nombre = Arrays.copyOf(nombre, capacidad);
+        apellido = Arrays.copyOf(apellido, capacidad);
+        telefono = Arrays.copyOf(telefono, capacidad);
+        telefonoDigitos = Arrays.copyOf(telefonoDigitos, capacidad);
+        calle = Arrays.copyOf(calle, capacidad);
+        numero = Arrays.copyOf(numero, capacidad);
+        email = Arrays.copyOf(email, capacidad);
+    }
+
+    /**
+     * Diccionario de textos: asigna a cada texto distinto un código entero consecutivo.
+     */
+    private static class Diccionario {
+        private final HashTable<String, Integer> codigos = new HashTable<>();
+        private final List<String> valores = new List<>();
+
+        /**
+         * Devuelve el código de un texto, agregándolo si es nuevo.
+         *
+         * @param s Texto.
+         * @return Código.
+         */
+        int codigo(String s) {
+            Integer k = codigos.get(s);
+            if (k == null) {
+                k = valores.size();
+                valores.list(s);
+                codigos.put(s, k);
+            }
+            return k;
+        }
+
+        /**
+         * Busca el código de un texto sin agregarlo.
+         *
+         * @param s Texto.
+         * @return Código, o -1 si no está.
+         */
+        int buscar(String s) {
+            Integer k = codigos.get(s);
+            return k == null ? -1 : k;
+        }
+
+        /**
+         * Devuelve el texto de un código.
+         *
+         * @param k Código.
+         * @return Texto.
+         */
+        String valor(int k) {
+            return valores.get(k);
+        }
+
+        /**
+         * Devuelve el número de textos distintos.
+         *
+         * @return Tamaño.
+         */
+        int size() {
+            return valores.size();
+        }
+    }
+
+    /**
+     * Vista de un cliente del almacén. Es un Cliente, pero no guarda cadenas: cada
+     * getter las reconstruye desde las columnas y cada setter las vuelve a codificar.
+     * Dos vistas de la misma fila son iguales.
+     */
+    public class ClienteCompacto extends Cliente {
+
+        /** Fila del cliente en las columnas */
+        private final int fila;
+
+        /**
+         * Crea una vista de una fila.
+         *
+         * @param fila Fila del cliente.
+         */
+        private ClienteCompacto(int fila) {
+            super(false);
+            this.fila = fila;
+        }
+
+        /**
+         * Devuelve la posición del cliente en el almacén.
+         *
+         * @return Fila.
+         */
+        public int getFila() {
+            return fila;
+        }
+
+        @Override
+        public String getId() {
+            return leerId(fila);
+        }
+
+        /**
+         * Cambia el ID del cliente y actualiza el índice.
+         *
+         * @param nuevo Nuevo ID.
+         * @throws IllegalArgumentException si otro cliente ya tiene ese ID.
+         */
+        @Override
+        public void setId(String nuevo) {
+            long clave = codificarId(nuevo);
+            int otra = buscarFila(clave);
+            if (otra == fila) return;
+            if (otra >= 0) throw new IllegalArgumentException("ID repetido: " + nuevo);
+            quitarDeIndice(fila);
+            id[fila] = clave;
+            escribirIdOriginal(fila, nuevo);
+            insertarEnIndice(fila);
+        }
+
+        @Override
+        public String getNombre() {
+            return leerNombre(fila);
+        }
+
+        @Override
+        public void setNombre(String s) {
+            String correo = leerEmail(fila);
+            escribirNombre(fila, s);
+            escribirEmail(fila, correo);
+        }
+
+        @Override
+        public String getTelefono() {
+            return leerTelefono(fila);
+        }
+
+        @Override
+        public void setTelefono(String s) {
+            escribirTelefono(fila, s);
+        }
+
+        @Override
+        public String getEmail() {
+            return leerEmail(fila);
+        }
+
+        @Override
+        public void setEmail(String s) {
+            escribirEmail(fila, s);
+        }
+
+        @Override
+        public String getDireccion() {
+            return leerDireccion(fila);
+        }
+
+        @Override
+        public void setDireccion(String s) {
+            escribirDireccion(fila, s);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ClienteCompacto && ((ClienteCompacto) o).fila == fila
+                    && ((ClienteCompacto) o).almacen() == AlmacenClientes.this;
+        }
+
+        @Override
+        public int hashCode() {
+            return fila;
+        }
+
+        /**
+         * Devuelve el almacén de la vista.
+         *
+         * @return Almacén.
+         */
+        private AlmacenClientes almacen() {
+            return AlmacenClientes.this;
+        }
+
+        @Override
+        public String toString() {
+            return "Cliente{" + "id=" + getId() + ", nombre=" + getNombre() + ", telefono=" + getTelefono()
+                    + ", email=" + getEmail() + ", direccion=" + getDireccion() + '}';
+        }
+    }
+}
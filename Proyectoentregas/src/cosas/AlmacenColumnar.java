@@ -0,0 +1,591 @@
+package cosas;
+
+import java.util.Arrays;
+import tdas.HashTable;
+import tdas.List;
+
+/**
+ * Almacén columnar de cajas (estructura de arreglos). En lugar de un objeto Caja,
+ * un objeto GuiaEnvio y una cadena de ID por cada caja, guarda cada atributo en un
+ * arreglo primitivo paralelo: dimensiones, peso real, distancia, peso facturado de la
+ * guía, ordinal del destino, índice del cliente e ID de la guía. El peso volumétrico
+ * y el costo de envío no se guardan: se calculan con las mismas fórmulas que Caja y
+ * GuiaEnvio, así que dan exactamente los mismos valores.
+ *
+ * Los IDs de guía de la forma prefijo + número (por ejemplo {@code G17} o
+ * {@code S1234}) se guardan como el código del prefijo y el número; los demás se
+ * guardan completos aparte. Los clientes se guardan una sola vez en una tabla y cada
+ * caja solo guarda su índice.
+ *
+ * Para usar las cajas con Bodega o Camion se ofrece {@link VistaCaja}, una vista
+ * (flyweight) que es una Caja pero lee y escribe sus datos en las columnas; solo
+ * guarda su posición. Un cursor reutilizable permite recorrer millones de cajas sin
+ * crear un objeto por caja. Las filas de cajas que ya salieron se liberan con
+ * {@link #liberar(int)} y se reutilizan en las siguientes.
+ *
+ * @author piped
+ */
+public class AlmacenColumnar {
+
+    /** Marca de destino: la caja no tiene guía */
+    private static final byte SIN_GUIA = -1;
+
+    /** Marca de destino: la guía no tiene destino */
+    private static final byte SIN_DESTINO = -2;
+
+    /** Marca de prefijo: el ID se guarda completo en idsTexto */
+    private static final int ID_TEXTO = -1;
+
+    /** Marca de prefijo: la guía no tiene ID */
+    private static final int ID_NULO = -2;
+
+    /** Dimensiones en centímetros */
+    private double[] altura, longitud, ancho;
+
+    /** Peso real en kilogramos */
+    private double[] peso;
+
+    /** Distancia aproximada de entrega en kilómetros */
+    private double[] distancia;
+
+    /** Peso facturado registrado en la guía (el de su último calcularCostos) */
+    private double[] pesoGuia;
+
+    /** Ordinal de GuiaEnvio.Destino de cada caja, o SIN_GUIA o SIN_DESTINO */
+    private byte[] destino;
+
+    /** Índice del cliente de cada caja en la tabla de clientes, o -1 si no tiene */
+    private int[] cliente;
+
+    /** Código del prefijo del ID de la guía, o ID_TEXTO o ID_NULO */
+    private int[] prefijoId;
+
+    /** Número al final del ID de la guía */
+    private long[] numeroId;
+
+    /** Número de filas usadas, incluidas las liberadas */
+    private int count;
+
+    /** Filas liberadas, listas para reutilizarse */
+    private int[] libres;
+
+    /** Número de filas liberadas */
+    private int nLibres;
+
+    /** Tabla de clientes distintos referenciados por las cajas */
+    private List<Cliente> clientes;
+
+    /** Índice de cada cliente en la tabla (por identidad del objeto) */
+    private HashTable<Cliente, Integer> indiceClientes;
+
+    /** Prefijos distintos de los IDs de guía */
+    private List<String> prefijos;
+
+    /** Código de cada prefijo */
+    private HashTable<String, Integer> codigoPrefijos;
+
+    /** IDs de guía que no tienen la forma prefijo + número, por fila */
+    private HashTable<Integer, String> idsTexto;
+
+    /**
+     * Crea un almacén columnar vacío con capacidad inicial de 16 cajas.
+     */
+    public AlmacenColumnar() {
+        this(16);
+    }
+
+    /**
+     * Crea un almacén columnar vacío con la capacidad inicial indicada.
+     *
+     * @param capacidad Número de cajas para las que se reserva espacio.
+     */
+    public AlmacenColumnar(int capacidad) {
+        int cap = Math.max(capacidad, 1);
+        altura = new double[cap];
+        longitud = new double[cap];
+        ancho = new double[cap];
+        peso = new double[cap];
+        distancia = new double[cap];
+        pesoGuia = new double[cap];
+        destino = new byte[cap];
+        cliente = new int[cap];
+        prefijoId = new int[cap];
+        numeroId = new long[cap];
+        count = 0;
+        libres = new int[16];
+        nLibres = 0;
+        clientes = new List<>();
+        indiceClientes = new HashTable<>();
+        prefijos = new List<>();
+        codigoPrefijos = new HashTable<>();
+        idsTexto = new HashTable<>();
+    }
+
+    /**
+     * Copia una caja (y su guía, si tiene) a las columnas del almacén.
+     *
+     * @param c Caja a almacenar.
+     * @return Índice de la caja dentro del almacén.
+     */
+    public int agregar(Caja c) {
+        int i = agregar(c.getAltura(), c.getLongitud(), c.getAncho(), c.getPesoReal());
+        escribirGuia(i, c.getGuia());
+        return i;
+    }
+
+    /**
+     * Agrega una caja sin guía directamente a las columnas, sin crear objetos.
+     *
+     * @param alt Altura (cm).
+     * @param lon Longitud (cm).
+     * @param anc Ancho (cm).
+     * @param pesoReal Peso real (kg).
+     * @return Índice de la caja dentro del almacén.
+     */
+    public int agregar(double alt, double lon, double anc, double pesoReal) {
+        int i = nuevaFila();
+        altura[i] = alt;
+        longitud[i] = lon;
+        ancho[i] = anc;
+        peso[i] = pesoReal;
+        destino[i] = SIN_GUIA;
+        cliente[i] = -1;
+        escribirId(i, null);
+        return i;
+    }
+
+    /**
+     * Agrega una caja con guía directamente a las columnas, sin crear objetos Caja ni
+     * GuiaEnvio. Los costos de la guía se calculan con el peso facturado de la caja.
+     *
+     * @param alt Altura (cm).
+     * @param lon Longitud (cm).
+     * @param anc Ancho (cm).
+     * @param pesoReal Peso real (kg).
+     * @param idCaja ID de la guía.
+     * @param cli Cliente del envío, o null si no tiene.
+     * @param dest Destino de la caja.
+     * @param dist Distancia aproximada (km).
+     * @return Índice de la caja dentro del almacén.
+     */
+    public int agregar(double alt, double lon, double anc, double pesoReal,
+                       String idCaja, Cliente cli, GuiaEnvio.Destino dest, double dist) {
+        int i = agregar(alt, lon, anc, pesoReal);
+        destino[i] = dest == null ? SIN_DESTINO : (byte) dest.ordinal();
+        distancia[i] = dist;
+        cliente[i] = indiceCliente(cli);
+        pesoGuia[i] = pesoFacturado(i);
+        escribirId(i, idCaja);
+        return i;
+    }
+
+    /**
+     * Libera la fila de una caja que ya no se usa, para reutilizarla en la siguiente
+     * caja agregada. Cada fila se libera una sola vez, y sus vistas no deben usarse después.
+     *
+     * @param i Índice de la caja.
+     */
+    public void liberar(int i) {
+        revisar(i);
+        if (nLibres == libres.length) libres = Arrays.copyOf(libres, 2 * libres.length);
+        libres[nLibres++] = i;
+        destino[i] = SIN_GUIA;
+        cliente[i] = -1;
+        escribirId(i, null);
+    }
+
+    /**
+     * Toma una fila liberada o, si no hay, una nueva al final.
+     *
+     * @return Índice de la fila.
+     */
+    private int nuevaFila() {
+        if (nLibres > 0) return libres[--nLibres];
+        if (count == peso.length) resize(2 * peso.length);
+        return count++;
+    }
+
+    /**
+     * Escribe los datos de una guía en las columnas de una caja.
+     *
+     * @param i Índice de la caja.
+     * @param g Guía de envío, o null para dejar la caja sin guía.
+     */
+    private void escribirGuia(int i, GuiaEnvio g) {
+        if (g == null) {
+            destino[i] = SIN_GUIA;
+            cliente[i] = -1;
+            escribirId(i, null);
+            return;
+        }
+        destino[i] = g.getDestino() == null ? SIN_DESTINO : (byte) g.getDestino().ordinal();
+        distancia[i] = g.getDistanciaAprox();
+        cliente[i] = indiceCliente(g.getCliente());
+        pesoGuia[i] = g.getPesoFacturado();
+        escribirId(i, g.getIdCaja());
+    }
+
+    /**
+     * Escribe el ID de la guía de una caja: prefijo y número si tiene esa forma, o el
+     * texto completo aparte.
+     *
+     * @param i Índice de la caja.
+     * @param id ID de la guía, o null.
+     */
+    private void escribirId(int i, String id) {
+        idsTexto.put(i, null);
+        if (id == null) {
+            prefijoId[i] = ID_NULO;
+            return;
+        }
+        int k = id.length();
+        while (k > 0 && id.charAt(k - 1) >= '0' && id.charAt(k - 1) <= '9') k--;
+        int digitos = id.length() - k;
+        if (digitos == 0 || digitos > 18 || (digitos > 1 && id.charAt(k) == '0')) {
+            prefijoId[i] = ID_TEXTO;
+            idsTexto.put(i, id);
+            return;
+        }
+        String prefijo = id.substring(0, k);
+        Integer codigo = codigoPrefijos.get(prefijo);
+        if (codigo == null) {
+            codigo = prefijos.size();
+            prefijos.list(prefijo);
+            codigoPrefijos.put(prefijo, codigo);
+        }
+        prefijoId[i] = codigo;
+        numeroId[i] = Long.parseLong(id, k, id.length(), 10);
+    }
+
+    /**
+     * Reconstruye el ID de la guía de una caja.
+     *
+     * @param i Índice de la caja.
+     * @return ID de la guía, o null.
+     */
+    private String leerId(int i) {
+        int p = prefijoId[i];
+        if (p == ID_NULO) return null;
+        if (p == ID_TEXTO) return idsTexto.get(i);
+        return prefijos.get(p) + numeroId[i];
+    }
+
+    /**
+     * Busca o registra un cliente en la tabla de clientes.
+     *
+     * @param cli Cliente.
+     * @return Índice del cliente, o -1 si es null.
+     */
+    private int indiceCliente(Cliente cli) {
+        if (cli == null) return -1;
+        Integer k = indiceClientes.get(cli);
+        if (k == null) {
+            k = clientes.size();
+            clientes.list(cli);
+            indiceClientes.put(cli, k);
+        }
+        return k;
+    }
+
+    /**
+     * Redimensiona todas las columnas a una nueva capacidad.
+     *
+     * @param maxCap Nueva capacidad.
+     */
+    private void resize(int maxCap) {
+        altura = Arrays.copyOf(altura, maxCap);
+        longitud = Arrays.copyOf(longitud, maxCap);
+        ancho = Arrays.copyOf(ancho, maxCap);
+        peso = Arrays.copyOf(peso, maxCap);
+        distancia = Arrays.copyOf(distancia, maxCap);
+        pesoGuia = Arrays.copyOf(pesoGuia, maxCap);
+        destino = Arrays.copyOf(destino, maxCap);
+        cliente = Arrays.copyOf(cliente, maxCap);
+        prefijoId = Arrays.copyOf(prefijoId, maxCap);
+        numeroId = Arrays.copyOf(numeroId, maxCap);
+    }
+
+    /**
+     * Verifica que un índice corresponda a una fila del almacén.
+     *
+     * @param i Índice de la caja.
+     * @throws IndexOutOfBoundsException si la fila no existe.
+     */
+    private void revisar(int i) {
+        if (i < 0 || i >= count)
+            throw new IndexOutOfBoundsException("Indice: " + i + ", filas: " + count);
+    }
+
+    /**
+     * Devuelve el número de cajas almacenadas, sin contar las filas liberadas.
+     *
+     * @return Cantidad de cajas.
+     */
+    public int size() {
+        return count - nLibres;
+    }
+
+    /**
+     * Devuelve el peso volumétrico de una caja sin crear objetos, con la misma fórmula que Caja.
+     *
+     * @param i Índice de la caja.
+     * @return Peso volumétrico (kg).
+     */
+    public double pesoVolumetrico(int i) {
+        return (longitud[i] * altura[i] * ancho[i]) / 5000.0;
+    }
+
+    /**
+     * Devuelve el peso facturado de una caja sin crear objetos.
+     *
+     * @param i Índice de la caja.
+     * @return Peso facturado (kg).
+     */
+    public double pesoFacturado(int i) {
+        return Math.max(peso[i], pesoVolumetrico(i));
+    }
+
+    /**
+     * Devuelve la distancia de una caja sin crear objetos.
+     *
+     * @param i Índice de la caja.
+     * @return Distancia aproximada (km).
+     */
+    public double distancia(int i) {
+        return distancia[i];
+    }
+
+    /**
+     * Devuelve el destino de una caja sin crear objetos.
+     *
+     * @param i Índice de la caja.
+     * @return Destino, o null si la caja no tiene guía o la guía no tiene destino.
+     */
+    public GuiaEnvio.Destino destino(int i) {
+        return destino[i] < 0 ? null : GuiaEnvio.Destino.values()[destino[i]];
+    }
+
+    /**
+     * Suma el peso facturado de todas las cajas de un destino recorriendo solo las columnas.
+     *
+     * @param d Destino.
+     * @return Peso facturado total (kg).
+     */
+    public double pesoFacturadoTotal(GuiaEnvio.Destino d) {
+        byte o = (byte) d.ordinal();
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            if (destino[i] == o) total += pesoFacturado(i);
+        }
+        return total;
+    }
+
+    /**
+     * Crea una vista fija sobre la caja en la posición indicada.
+     * La vista se puede guardar en una Bodega o un Camion; para recorrer muchas
+     * cajas conviene usar {@link #cursor()}.
+     *
+     * @param i Índice de la caja.
+     * @return Vista de la caja.
+     */
+    public VistaCaja vista(int i) {
+        revisar(i);
+        VistaCaja v = new VistaCaja();
+        v.mover(i);
+        return v;
+    }
+
+    /**
+     * Crea un cursor reutilizable; se posiciona con {@link VistaCaja#mover(int)}.
+     * Sirve para recorrer las cajas sin crear un objeto por cada una.
+     *
+     * @return Cursor sobre el almacén.
+     */
+    public VistaCaja cursor() {
+        return new VistaCaja();
+    }
+
+    /**
+     * Crea una Caja y una GuiaEnvio independientes con los datos de la posición indicada,
+     * incluidos el ID y los costos de la guía.
+     *
+     * @param i Índice de la caja.
+     * @return Caja materializada.
+     */
+    public Caja materializar(int i) {
+        revisar(i);
+        Caja c = new Caja(altura[i], longitud[i], ancho[i], peso[i]);
+        if (destino[i] != SIN_GUIA) {
+            GuiaEnvio g = new GuiaEnvio(leerId(i), cliente[i] < 0 ? null : clientes.get(cliente[i]),
+                    destino(i), distancia[i]);
+            g.calcularCostos(pesoGuia[i]);
+            c.setGuia(g);
+        }
+        return c;
+    }
+
+    /**
+     * Vista de una caja del almacén columnar. Se comporta como una Caja, pero
+     * todos sus datos se leen (y la guía se escribe) directamente en las columnas.
+     * Solo guarda su posición; cada llamada a {@link #getGuia()} crea una vista de
+     * guía de corta vida, para que la caja guardada en una bodega o un camión no
+     * retenga más objetos.
+     */
+    public class VistaCaja extends Caja {
+
+        /** Posición de la caja en las columnas */
+        private int indice;
+
+        /**
+         * Crea una vista sin posición.
+         */
+        private VistaCaja() {
+            super(0, 0, 0, 0);
+        }
+
+        /**
+         * Mueve la vista a otra caja del almacén.
+         *
+         * @param i Índice de la caja.
+         * @return Esta misma vista.
+         */
+        public VistaCaja mover(int i) {
+            indice = i;
+            return this;
+        }
+
+        /**
+         * Devuelve la posición de la caja en el almacén.
+         *
+         * @return Índice de la caja.
+         */
+        public int getIndice() {
+            return indice;
+        }
+
+        @Override
+        public double getAltura() {
+            return altura[indice];
+        }
+
+        @Override
+        public double getLongitud() {
+            return longitud[indice];
+        }
+
+        @Override
+        public double getAncho() {
+            return ancho[indice];
+        }
+
+        @Override
+        public double getPesoReal() {
+            return peso[indice];
+        }
+
+        @Override
+        public double getPesoVolumetrico() {
+            return pesoVolumetrico(indice);
+        }
+
+        @Override
+        public double getPesoFacturado() {
+            return pesoFacturado(indice);
+        }
+
+        /**
+         * Copia todos los datos de la guía a las columnas: ID, cliente, destino,
+         * distancia y peso facturado (del que sale el costo).
+         *
+         * @param g Guía de envío, o null para quitar la guía.
+         */
+        @Override
+        public void setGuia(GuiaEnvio g) {
+            escribirGuia(indice, g);
+        }
+
+        /**
+         * Devuelve una guía respaldada por las columnas, o null si la caja no tiene guía.
+         *
+         * @return Guía de envío.
+         */
+        @Override
+        public GuiaEnvio getGuia() {
+            return destino[indice] == SIN_GUIA ? null : new VistaGuia(this);
+        }
+
+        @Override
+        public String toString() {
+            int k = cliente[indice];
+            return String.format("Caja[vol=%.2f kg, real=%.2f kg, dest=%s, dist=%.1fkm cliente=%s]",
+                    getPesoVolumetrico(), getPesoReal(), destino(indice), distancia[indice],
+                    k < 0 ? null : clientes.get(k).getNombre());
+        }
+    }
+
+    /**
+     * Guía de envío de una {@link VistaCaja}, respaldada por las columnas.
+     */
+    private class VistaGuia extends GuiaEnvio {
+
+        /** Vista de caja dueña de esta guía */
+        private final VistaCaja caja;
+
+        /**
+         * Crea la guía asociada a una vista de caja.
+         *
+         * @param caja Vista de caja.
+         */
+        VistaGuia(VistaCaja caja) {
+            super(null, null, null, 0);
+            this.caja = caja;
+        }
+
+        @Override
+        public String getIdCaja() {
+            return leerId(caja.indice);
+        }
+
+        @Override
+        public Cliente getCliente() {
+            int k = cliente[caja.indice];
+            return k < 0 ? null : clientes.get(k);
+        }
+
+        @Override
+        public double getDistanciaAprox() {
+            return distancia[caja.indice];
+        }
+
+        @Override
+        public GuiaEnvio.Destino getDestino() {
+            return destino(caja.indice);
+        }
+
+        /**
+         * Guarda el peso facturado en las columnas; el costo se deriva de él.
+         *
+         * @param pesoFacturado Peso con el que se facturará el envío.
+         */
+        @Override
+        public void calcularCostos(double pesoFacturado) {
+            pesoGuia[caja.indice] = pesoFacturado;
+        }
+
+        @Override
+        public double getPesoFacturado() {
+            return pesoGuia[caja.indice];
+        }
+
+        @Override
+        public double getCostoEnvio() {
+            return pesoGuia[caja.indice] * COSTO_POR_KG;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Guia[id=%s, dest=%s, dist=%.1fkm, kg=%.2f, costo=USD%.2f]",
+                    getIdCaja(), getDestino(), getDistanciaAprox(), getPesoFacturado(), getCostoEnvio());
+        }
+    }
+}
@@ -1,81 +1,270 @@
 package cosas;
 
+import bitacora.Bitacora;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import tdas.List;
 
 /**
  * La clase Bodega representa un almacén de cajas destinadas a un destino específico.
- * Permite recibir cajas, ordenarlas por distancia aproximada de entrega, y mostrarlas.
- * 
+ * Permite recibir cajas, retirarlas en orden de distancia aproximada de entrega, y mostrarlas.
+ *
+ * Las cajas se guardan en cubetas indexadas por kilómetro de distancia, por lo que
+ * siempre están ordenadas: recibir una caja cuesta O(1) y recorrer la bodega en
+ * orden es lineal, sin necesidad de reordenar.
+ *
  * @author piped
  */
 public class Bodega {
+    /**
+     * Distancia máxima (en km) con cubeta propia. Distancias mayores se guardan en la última cubeta.
+     */
+    public static final int DISTANCIA_MAXIMA = 100;
+
     /**
      * Destino asociado a esta bodega.
      */
     private GuiaEnvio.Destino destino;
 
     /**
-     * Lista de cajas almacenadas en la bodega.
+     * Cubetas de cajas indexadas por kilómetro de distancia; cada una mantiene sus cajas ordenadas.
+     */
+    private final List<Caja>[] cubetas;
+
+    /**
+     * Número total de cajas almacenadas.
+     */
+    private int total;
+
+    /**
+     * Índice de la cubeta no vacía más lejana, o -1 si la bodega está vacía.
      */
-    private List<Caja> almacen;
+    private int cubetaMasLejana;
 
     /**
      * Crea una nueva bodega asociada a un destino específico.
-     * 
+     *
      * @param d El destino al cual pertenece esta bodega.
      */
     public Bodega(GuiaEnvio.Destino d) {
         destino = d;
-        almacen = new List<>();
+        @SuppressWarnings("unchecked")
+        List<Caja>[] nuevas = (List<Caja>[]) new List<?>[DISTANCIA_MAXIMA + 1];
+        cubetas = nuevas;
+        for (int i = 0; i < cubetas.length; i++) {
+            cubetas[i] = new List<>();
+        }
+        total = 0;
+        cubetaMasLejana = -1;
     }
 
     /**
-     * Recibe una caja y la agrega al almacén.
-     * 
+     * Recibe una caja y la agrega a la cubeta de su distancia, conservando el orden.
+     *
      * @param c La caja que se va a agregar.
      */
     public void recibirCaja(Caja c) {
-        almacen.list(c);
-        System.out.println("Caja agregada a bodega " + destino + ": " + c);
+        double dist = c.getGuia().getDistanciaAprox();
+        int k = indiceCubeta(dist);
+        List<Caja> cubeta = cubetas[k];
+        int pos = cubeta.size();
+        while (pos > 0 && cubeta.get(pos - 1).getGuia().getDistanciaAprox() > dist) {
+            pos--;
+        }
+        cubeta.add(pos, c);
+        total++;
+        if (k > cubetaMasLejana) cubetaMasLejana = k;
+        Bitacora.get().depuracion(() -> "Caja agregada a bodega " + destino + ": " + c);
     }
 
     /**
-     * Ordena las cajas del almacén según su distancia aproximada usando el algoritmo Selection Sort.
+     * Calcula la cubeta que corresponde a una distancia.
+     *
+     * @param dist Distancia aproximada en km.
+     * @return Índice de la cubeta entre 0 y DISTANCIA_MAXIMA.
      */
-    public void ordenarPorDistancia() {
-        int n = almacen.size();
-        Caja[] arr = new Caja[n];
-        for (int i = 0; i < n; i++) arr[i] = almacen.get(i);
-        for (int i = 0; i < n - 1; i++) {
-            int min = i;
-            for (int j = i + 1; j < n; j++) {
-                if (arr[j].getGuia().getDistanciaAprox() < arr[min].getGuia().getDistanciaAprox()) {
-                    min = j;
-                }
+    private static int indiceCubeta(double dist) {
+        if (dist <= 0) return 0;
+        if (dist >= DISTANCIA_MAXIMA) return DISTANCIA_MAXIMA;
+        return (int) dist;
+    }
+
+    /**
+     * Retira la caja más lejana de la bodega.
+     *
+     * @return La caja con mayor distancia, o null si la bodega está vacía.
+     */
+    public Caja retirarMasLejana() {
+        while (cubetaMasLejana >= 0 && cubetas[cubetaMasLejana].isEmpty()) {
+            cubetaMasLejana--;
+        }
+        if (cubetaMasLejana < 0) return null;
+        total--;
+        return cubetas[cubetaMasLejana].removeLast();
+    }
+
+    /**
+     * Retira las n cajas más lejanas de la bodega. De cada cubeta se retira un tramo
+     * final completo con una sola copia.
+     *
+     * @param n Cantidad de cajas a retirar; si la bodega tiene menos, se retiran todas.
+     * @return Cajas retiradas, de la más cercana a la más lejana.
+     */
+    public Caja[] retirarMasLejanas(int n) {
+        Caja[] res = new Caja[Math.min(n, total)];
+        int pos = res.length;
+        while (pos > 0) {
+            while (cubetas[cubetaMasLejana].isEmpty()) cubetaMasLejana--;
+            List<Caja> cubeta = cubetas[cubetaMasLejana];
+            int k = Math.min(pos, cubeta.size());
+            pos -= k;
+            cubeta.removeLast(k, res, pos);
+        }
+        total -= res.length;
+        return res;
+    }
+
+    /**
+     * Devuelve la distancia de la caja más lejana sin retirarla.
+     *
+     * @return Distancia aproximada (km) de la caja más lejana, o 0 si la bodega está vacía.
+     */
+    public double distanciaMasLejana() {
+        while (cubetaMasLejana >= 0 && cubetas[cubetaMasLejana].isEmpty()) {
+            cubetaMasLejana--;
+        }
+        return cubetaMasLejana < 0 ? 0 : cubetas[cubetaMasLejana].getLast().getGuia().getDistanciaAprox();
+    }
+
+    /**
+     * Cuenta cuántas de las cajas más lejanas, tomadas en orden, caben en un peso dado.
+     *
+     * @param pesoDisponible Peso facturado disponible (kg).
+     * @return Número de cajas, desde la más lejana, cuyo peso acumulado no supera el disponible.
+     */
+    public int cuantasCaben(double pesoDisponible) {
+        double acumulado = 0;
+        int n = 0;
+        for (int k = cubetaMasLejana; k >= 0; k--) {
+            List<Caja> cubeta = cubetas[k];
+            for (int i = cubeta.size() - 1; i >= 0; i--) {
+                acumulado += cubeta.get(i).getPesoFacturado();
+                if (acumulado > pesoDisponible) return n;
+                n++;
             }
-            Caja tmp = arr[i]; arr[i] = arr[min]; arr[min] = tmp;
         }
+        return n;
+    }
+
+    /**
+     * Traslada las n cajas más lejanas a un camión como una transacción: se retiran en
+     * bloque y se cargan con {@link Camion#cargarCajas}, de modo que la más cercana quede
+     * en la cima para entregarse primero. Si el camión rechaza el bloque por sobrepeso,
+     * las cajas vuelven a sus cubetas y ni la bodega ni el camión cambian.
+     *
+     * @param camion Camión que recibe las cajas.
+     * @param n Cantidad de cajas a trasladar.
+     * @return true si se trasladaron, false si se deshizo el traslado.
+     */
+    public boolean cargarEn(Camion camion, int n) {
+        Caja[] cajas = retirarMasLejanas(n);
+        if (camion.cargarCajas(cajas, 0, cajas.length)) return true;
+        devolver(cajas);
+        return false;
+    }
 
-        almacen.clear();
-        for (Caja c : arr) almacen.list(c);
+    /**
+     * Devuelve a sus cubetas cajas retiradas con {@link #retirarMasLejanas}, que
+     * vuelven a ser el tramo final de cada una.
+     *
+     * @param cajas Cajas retiradas, de la más cercana a la más lejana.
+     */
+    private void devolver(Caja[] cajas) {
+        int i = 0;
+        while (i < cajas.length) {
+            int k = indiceCubeta(cajas[i].getGuia().getDistanciaAprox());
+            int j = i + 1;
+            while (j < cajas.length && indiceCubeta(cajas[j].getGuia().getDistanciaAprox()) == k) j++;
+            cubetas[k].addAll(cajas, i, j - i);
+            if (k > cubetaMasLejana) cubetaMasLejana = k;
+            i = j;
+        }
+        total += cajas.length;
     }
 
     /**
-     * Muestra todas las cajas almacenadas en la bodega.
+     * Las cajas ya se mantienen ordenadas por distancia desde que se reciben,
+     * por lo que este método no necesita hacer nada. Se conserva por compatibilidad.
+     */
+    public void ordenarPorDistancia() {
+    }
+
+    /**
+     * Muestra todas las cajas almacenadas en la bodega, de la más cercana a la más lejana.
      */
     public void mostrarCajas() {
         System.out.println("--- Bodega " + destino + " ---");
-        for (int i = 0; i < almacen.size(); i++) {
-            System.out.println(almacen.get(i));
+        vista().forEach(System.out::println);
+    }
+
+    /**
+     * Devuelve una vista de las cajas tal como están en este momento, de la más cercana
+     * a la más lejana. Crearla cuesta lo mismo que el número de cubetas, sin copiar cajas:
+     * toma una instantánea de cada cubeta. Puede pedirse y recorrerse desde cualquier hilo
+     * mientras la bodega sigue recibiendo cajas; como las cubetas se toman una tras otra,
+     * desde otro hilo la vista puede incluir parte de una operación en curso.
+     *
+     * @return Stream de las cajas de la instantánea.
+     */
+    public Stream<Caja> vista() {
+        @SuppressWarnings("unchecked")
+        Spliterator<Caja>[] partes = (Spliterator<Caja>[]) new Spliterator<?>[cubetas.length];
+        for (int k = 0; k < partes.length; k++) {
+            partes[k] = cubetas[k].spliterator();
         }
+        return Arrays.stream(partes).flatMap(p -> StreamSupport.stream(p, false));
+    }
+
+    /**
+     * Devuelve el número de cajas almacenadas en la bodega.
+     *
+     * @return Cantidad de cajas.
+     */
+    public int cantidadCajas() {
+        return total;
     }
 
     /**
-     * Devuelve la lista de cajas almacenadas en la bodega.
-     * 
+     * Indica si la bodega no tiene cajas.
+     *
+     * @return true si la bodega está vacía.
+     */
+    public boolean estaVacia() {
+        return total == 0;
+    }
+
+    /**
+     * Devuelve el destino asociado a esta bodega.
+     *
+     * @return Destino de la bodega.
+     */
+    public GuiaEnvio.Destino getDestino() {
+        return destino;
+    }
+
+    /**
+     * Devuelve una copia de las cajas almacenadas, ordenadas por distancia.
+     * Modificar la lista devuelta no afecta a la bodega.
+     *
      * @return Lista de cajas en el almacén.
      */
     public List<Caja> getAlmacen() {
+        List<Caja> almacen = new List<>(total);
+        for (List<Caja> cubeta : cubetas) {
+            almacen.addAll(cubeta);
+        }
         return almacen;
     }
 }
@@ -49,6 +49,42 @@ public class Caja {
         return pesoVolumetrico;
     }
 
+    /**
+     * Devuelve la altura de la caja.
+     * 
+     * @return Altura en centímetros.
+     */
+    public double getAltura() {
+        return altura;
+    }
+
+    /**
+     * Devuelve la longitud de la caja.
+     * 
+     * @return Longitud en centímetros.
+     */
+    public double getLongitud() {
+        return longitud;
+    }
+
+    /**
+     * Devuelve el ancho de la caja.
+     * 
+     * @return Ancho en centímetros.
+     */
+    public double getAncho() {
+        return ancho;
+    }
+
+    /**
+     * Devuelve el peso real de la caja.
+     * 
+     * @return Peso real en kilogramos.
+     */
+    public double getPesoReal() {
+        return peso;
+    }
+
     /**
      * Devuelve el peso que se facturará por la caja,
      * que corresponde al mayor entre el peso real y el volumétrico.
@@ -1,12 +1,17 @@
 package cosas;
 
+import bitacora.Bitacora;
+import tdas.List;
 import tdas.Stack;
 
 /**
  * Clase que representa un camión destinado a un destino específico.
  * Almacena cajas en una pila (Stack) y permite cargar, verificar si se puede despachar,
  * mostrar la carga y despachar el camión si cumple con las condiciones de peso.
- * También permite calcular pesos volumétricos y facturados de su carga.
+ * También permite calcular pesos volumétricos y facturados de su carga; los totales
+ * se llevan al cargar cada caja, así que consultarlos no recorre la pila.
+ * Los {@link OyenteCamion} registrados reciben un aviso cuando la carga alcanza el
+ * peso mínimo de despacho o cuando una caja la dejaría por encima del máximo.
  * 
  * @author piped
  */
@@ -26,6 +31,21 @@ public class Camion {
      */
     private double pesoTotal;
 
+    /**
+     * Peso volumétrico total de la carga.
+     */
+    private double pesoVolumetricoTotal;
+
+    /**
+     * Instante (System.nanoTime) en que se cargó la primera caja de la carga actual.
+     */
+    private long cargadoDesde;
+
+    /**
+     * Oyentes avisados al cruzar los límites de peso.
+     */
+    private List<OyenteCamion> oyentes;
+
     /**
      * Crea un nuevo camión para el destino especificado.
      * 
@@ -35,17 +55,97 @@ public class Camion {
         destino = d;
         carga = new Stack<>();
         pesoTotal = 0;
+        pesoVolumetricoTotal = 0;
+        oyentes = new List<>();
+    }
+
+    /**
+     * Registra un oyente de los límites de peso del camión.
+     * 
+     * @param oyente Oyente a registrar.
+     */
+    public void agregarOyente(OyenteCamion oyente) {
+        oyentes.list(oyente);
+    }
+
+    /**
+     * Quita un oyente registrado.
+     * 
+     * @param oyente Oyente a quitar.
+     * @return true si estaba registrado.
+     */
+    public boolean quitarOyente(OyenteCamion oyente) {
+        for (int i = 0; i < oyentes.size(); i++) {
+            if (oyentes.get(i) == oyente) {
+                oyentes.remove(i);
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Carga una caja al camión, aumentando el peso total facturado.
+     * Carga una caja al camión, aumentando los pesos totales.
+     * Avisa a los oyentes si la caja deja la carga por encima del máximo
+     * o si con ella se alcanza el mínimo de despacho.
      * 
      * @param c Caja a cargar.
      */
     public void cargarCaja(Caja c) {
+        double antes = pesoTotal;
+        double despues = antes + c.getPesoFacturado();
+        if (despues > GuiaEnvio.PESO_MAXIMO_VOLUMETRICO) {
+            for (OyenteCamion o : oyentes) o.excederiaMaximo(this, c);
+        }
+        if (carga.isEmpty()) cargadoDesde = System.nanoTime();
         carga.push(c);
-        pesoTotal += c.getPesoFacturado();
-        System.out.println("Cargando caja en camion " + destino + ": " + c);
+        pesoTotal = despues;
+        pesoVolumetricoTotal += c.getPesoVolumetrico();
+        if (antes < GuiaEnvio.PESO_MINIMO_VOLUMETRICO && despues >= GuiaEnvio.PESO_MINIMO_VOLUMETRICO) {
+            for (OyenteCamion o : oyentes) o.alcanzoMinimo(this);
+        }
+        Bitacora.get().depuracion(() -> "Cargando caja en camion " + destino + ": " + c);
+    }
+
+    /**
+     * Carga un bloque de cajas como una sola operación. Las cajas se dan en orden de
+     * entrega, así que la primera del bloque queda en la cima de la pila. Los pesos del
+     * bloque se suman en una pasada antes de tocar la carga: si con el bloque el peso
+     * facturado superaría el máximo, no se carga ninguna caja y el camión queda igual.
+     * 
+     * @param cajas Arreglo con las cajas en orden de entrega.
+     * @param desde Posición de la primera caja del bloque.
+     * @param n Cantidad de cajas del bloque.
+     * @return true si se cargó el bloque, false si se rechazó por sobrepeso.
+     */
+    public boolean cargarCajas(Caja[] cajas, int desde, int n) {
+        double antes = pesoTotal;
+        double despues = antes, volumetrico = 0;
+        Caja exceso = null;
+        for (int i = desde; i < desde + n; i++) {
+            despues += cajas[i].getPesoFacturado();
+            volumetrico += cajas[i].getPesoVolumetrico();
+            if (exceso == null && despues > GuiaEnvio.PESO_MAXIMO_VOLUMETRICO) exceso = cajas[i];
+        }
+        if (exceso != null) {
+            for (OyenteCamion o : oyentes) o.excederiaMaximo(this, exceso);
+            double peso = despues;
+            Bitacora.get().aviso(() -> "Carga rechazada en camion " + destino + ": quedaria con " + peso + " kg.");
+            return false;
+        }
+        if (n == 0) return true;
+        if (carga.isEmpty()) cargadoDesde = System.nanoTime();
+        // el bloque invertido se apila con una sola copia: la primera caja queda en la cima
+        Caja[] inverso = new Caja[n];
+        for (int i = 0; i < n; i++) inverso[i] = cajas[desde + n - 1 - i];
+        carga.pushAll(inverso, 0, n);
+        pesoTotal = despues;
+        pesoVolumetricoTotal += volumetrico;
+        if (antes < GuiaEnvio.PESO_MINIMO_VOLUMETRICO && despues >= GuiaEnvio.PESO_MINIMO_VOLUMETRICO) {
+            for (OyenteCamion o : oyentes) o.alcanzoMinimo(this);
+        }
+        Bitacora.get().info(() -> "Cargadas " + n + " cajas en camion " + destino + ".");
+        return true;
     }
 
     /**
@@ -59,11 +159,16 @@ public class Camion {
     }
 
     /**
-     * Muestra por consola todas las cajas cargadas actualmente en el camión.
+     * Muestra por consola todas las cajas cargadas actualmente en el camión. Trabaja
+     * sobre una instantánea de la carga, así que puede llamarse desde otro hilo mientras
+     * el camión se carga; el peso mostrado es el de las cajas de la instantánea.
      */
     public void mostrarCarga() {
-        System.out.println("=== Camion " + destino + " (kg=" + pesoTotal + ") ===");
-        for (Caja c : carga) System.out.println(c);
+        List<Caja> cajas = getCarga();
+        double kg = 0;
+        for (Caja c : cajas) kg += c.getPesoFacturado();
+        System.out.println("=== Camion " + destino + " (kg=" + kg + ") ===");
+        for (Caja c : cajas) System.out.println(c);
     }
 
     /**
@@ -73,47 +178,99 @@ public class Camion {
      * @return true si el camión fue despachado, false si no cumple con las condiciones.
      */
     public boolean despachar() {
-        if (pesoTotal < GuiaEnvio.PESO_MINIMO_VOLUMETRICO) {
-            System.out.println("No cumple con el peso minimo requerido. Peso actual: " + pesoTotal + " kg.");
+        return despachar(false);
+    }
+
+    /**
+     * Intenta despachar el camión. Nunca se despacha con sobrepeso; por debajo del
+     * peso mínimo solo se despacha si se permite explícitamente.
+     * Si se despacha, registra cada caja entregada y limpia la carga.
+     * 
+     * @param permitirBajoPeso true para despachar aunque no se alcance el peso mínimo.
+     * @return true si el camión fue despachado, false si no cumple con las condiciones.
+     */
+    public boolean despachar(boolean permitirBajoPeso) {
+        double peso = pesoTotal;
+        if (carga.isEmpty()) return false;
+        if (peso < GuiaEnvio.PESO_MINIMO_VOLUMETRICO && !permitirBajoPeso) {
+            Bitacora.get().aviso(() -> "No cumple con el peso minimo requerido. Peso actual: " + peso + " kg.");
             return false;
         }
-        if (pesoTotal > GuiaEnvio.PESO_MAXIMO_VOLUMETRICO) {
-            System.out.println("El camion sobrepasa el limite de peso permitido. Peso actual: " + pesoTotal + " kg.");
+        if (peso > GuiaEnvio.PESO_MAXIMO_VOLUMETRICO) {
+            Bitacora.get().aviso(() -> "El camion sobrepasa el limite de peso permitido. Peso actual: " + peso + " kg.");
             return false;
         }
 
-        System.out.println("Despachando camion " + destino + ":");
+        Bitacora bitacora = Bitacora.get();
+        int n = carga.size();
+        bitacora.info(() -> "Despachando camion " + destino + " con " + n + " cajas.");
+        // el detalle por caja solo se registra en depuración, para no formatear cajas al despachar
+        boolean detalle = bitacora.activo(Bitacora.Nivel.DEPURACION);
         while (!carga.isEmpty()) {
-            System.out.println("Entregada: " + carga.pop());
+            Caja c = carga.pop();
+            if (detalle) bitacora.depuracion(() -> "Entregada: " + c);
         }
         pesoTotal = 0;
+        pesoVolumetricoTotal = 0;
         return true;        
     }
 
     /**
-     * Calcula el peso volumétrico total de todas las cajas en la carga.
+     * Devuelve el peso volumétrico total de todas las cajas en la carga.
      * 
      * @return Peso volumétrico total (kg).
      */
     public double calcularPesoVolumetrico() {
-        double total = 0;
-        for (Caja c : carga) {
-            total += c.getPesoVolumetrico();
-        }
-        return total;
+        return pesoVolumetricoTotal;
     }
 
     /**
-     * Calcula el peso facturado total de todas las cajas en la carga.
+     * Devuelve el peso facturado total de todas las cajas en la carga.
      * 
      * @return Peso facturado total (kg).
      */
     public double calcularPesoFacturado() {
-        double total = 0;
-        for (Caja c : carga) {
-            total += c.getPesoFacturado();
-        }
-        return total;
+        return pesoTotal;
+    }
+
+    /**
+     * Devuelve el peso total facturado de la carga actual.
+     * 
+     * @return Peso facturado acumulado (kg).
+     */
+    public double getPesoTotal() {
+        return pesoTotal;
+    }
+
+    /**
+     * Devuelve cuánto tiempo lleva cargado el camión desde su primera caja.
+     * 
+     * @return Tiempo de espera (ns), o 0 si está vacío.
+     */
+    public long getEspera() {
+        return carga.isEmpty() ? 0 : System.nanoTime() - cargadoDesde;
+    }
+
+    /**
+     * Devuelve el destino al que está asignado el camión.
+     * 
+     * @return Destino del camión.
+     */
+    public GuiaEnvio.Destino getDestino() {
+        return destino;
+    }
+
+    /**
+     * Devuelve una copia de las cajas cargadas, desde la cima de la pila (la próxima en
+     * entregarse) hasta el fondo. Se toma de una instantánea de la pila, así que puede
+     * pedirse desde cualquier hilo; modificar la lista devuelta no afecta al camión.
+     * 
+     * @return Lista de cajas cargadas, desde la cima.
+     */
+    public List<Caja> getCarga() {
+        List<Caja> copia = new List<>(carga.size());
+        for (Caja c : carga) copia.list(c);
+        return copia;
     }
 
     /**
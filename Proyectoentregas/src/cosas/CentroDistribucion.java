@@ -0,0 +1,95 @@
+package cosas;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Conjunto de actores {@link ShardDestino}, uno por destino. Reparte cada caja al
+ * actor de su destino y permite enviar comandos a todos los destinos a la vez.
+ *
+ * @author piped
+ */
+public class CentroDistribucion implements AutoCloseable {
+
+    /** Actores indexados por el ordinal del destino */
+    private final ShardDestino[] destinos;
+
+    /**
+     * Crea un actor por destino, cada uno con su bodega y su flota.
+     */
+    public CentroDistribucion() {
+        GuiaEnvio.Destino[] ds = GuiaEnvio.Destino.values();
+        destinos = new ShardDestino[ds.length];
+        for (int i = 0; i < ds.length; i++) {
+            destinos[i] = new ShardDestino(ds[i]);
+        }
+    }
+
+    /**
+     * Crea un actor por destino sobre bodegas existentes y una flota compartida.
+     * Desde ese momento las bodegas solo deben usarse a través de los actores.
+     *
+     * @param bodegas Bodegas indexadas por el ordinal del destino.
+     * @param flota Flota donde se cargan y despachan los camiones de todos los destinos.
+     */
+    public CentroDistribucion(Bodega[] bodegas, Flota flota) {
+        GuiaEnvio.Destino[] ds = GuiaEnvio.Destino.values();
+        destinos = new ShardDestino[ds.length];
+        for (int i = 0; i < ds.length; i++) {
+            destinos[i] = new ShardDestino(ds[i], bodegas[i], flota, ShardDestino.CAPACIDAD_BUZON);
+        }
+    }
+
+    /**
+     * Envía una caja al actor de su destino.
+     *
+     * @param c Caja con guía.
+     */
+    public void recibir(Caja c) {
+        destinos[c.getGuia().getDestino().ordinal()].recibir(c);
+    }
+
+    /**
+     * Devuelve el actor de un destino.
+     *
+     * @param d Destino.
+     * @return Actor del destino.
+     */
+    public ShardDestino getDestino(GuiaEnvio.Destino d) {
+        return destinos[d.ordinal()];
+    }
+
+    /**
+     * Pide a todos los destinos cargar y luego despachar sus camiones, en paralelo.
+     *
+     * @param metrica Métricas donde se registran los despachos.
+     * @return Futuro con el número total de camiones despachados.
+     */
+    public CompletableFuture<Integer> cargarYDespacharTodo(MetricaDespacho metrica) {
+        CompletableFuture<Integer> total = CompletableFuture.completedFuture(0);
+        for (ShardDestino s : destinos) {
+            s.cargar();
+            total = total.thenCombine(s.despachar(metrica), Integer::sum);
+        }
+        return total;
+    }
+
+    /**
+     * Espera a que todos los destinos ejecuten los comandos enviados hasta ahora.
+     * Al volver, lo que hicieron los actores es visible para el hilo que llama.
+     */
+    public void esperar() {
+        CompletableFuture<?>[] marcas = new CompletableFuture<?>[destinos.length];
+        for (int i = 0; i < destinos.length; i++) marcas[i] = destinos[i].esperar();
+        CompletableFuture.allOf(marcas).join();
+    }
+
+    /**
+     * Cierra todos los actores a la vez: desde ese momento rechazan comandos nuevos.
+     * Luego espera a que cada uno ejecute sus comandos pendientes.
+     */
+    @Override
+    public void close() {
+        for (ShardDestino s : destinos) s.detener();
+        for (ShardDestino s : destinos) s.close();
+    }
+}
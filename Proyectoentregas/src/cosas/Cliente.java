@@ -1,17 +1,63 @@
 package cosas;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Clase que representa un cliente con datos personales como identificación, 
  * nombre, teléfono, correo electrónico y dirección.
  * Puede crearse con datos específicos o de forma aleatoria.
  * 
- * La generación aleatoria utiliza listas predefinidas de nombres, apellidos y calles.
+ * La generación aleatoria utiliza listas predefinidas de nombres, apellidos y calles;
+ * los nombres completos y correos posibles se calculan una sola vez.
  * 
  * @author piped
  */
 public class Cliente {
+
+    /** Nombres usados en la generación aleatoria */
+    static final String[] NOMBRES = {
+        "Camila", "Santiago", "Valentina", "Mateo", "Laura",
+        "Juan", "Sara", "Andres", "Isabella", "Felipe",
+        "Daniela", "Carlos", "Lucia", "Sebastian", "Mariana"
+    };
+
+    /** Apellidos usados en la generación aleatoria */
+    static final String[] APELLIDOS = {
+        "Gomez", "Rodriguez", "Martinez", "Perez", "Garcia",
+        "Lopez", "Hernandez", "Torres", "Ramirez", "Moreno",
+        "Vargas", "Castaño", "Rincon", "Navarro", "Ortiz"
+    };
+
+    /** Calles usadas en la generación aleatoria */
+    static final String[] CALLES = {
+        "Calle 26", "Carrera 7", "Avenida Caracas", "Calle 80",
+        "Carrera 30", "Avenida Boyaca", "Transversal 93",
+        "Diagonal 40", "Calle 100", "Carrera 13",
+        "Calle 72", "Carrera 15", "Avenida Suba", "Calle 116", "Carrera 68"
+    };
+
+    /**
+     * Cantidad de números de ID posibles en la generación aleatoria (10^18). Con 18
+     * cifras el ID sigue siendo numérico para {@link AlmacenClientes}.
+     */
+    static final long ESPACIO_IDS = 1_000_000_000_000_000_000L;
+
+    /** Nombres completos precalculados, en la posición nombre * APELLIDOS.length + apellido */
+    static final String[] NOMBRES_COMPLETOS = new String[NOMBRES.length * APELLIDOS.length];
+
+    /** Correos precalculados, en la misma posición que el nombre completo */
+    static final String[] EMAILS = new String[NOMBRES_COMPLETOS.length];
+
+    static {
+        for (int n = 0; n < NOMBRES.length; n++) {
+            for (int a = 0; a < APELLIDOS.length; a++) {
+                String completo = NOMBRES[n] + " " + APELLIDOS[a];
+                NOMBRES_COMPLETOS[n * APELLIDOS.length + a] = completo.intern();
+                EMAILS[n * APELLIDOS.length + a] = (completo.toLowerCase().replace(" ", ".") + "@correo.com").intern();
+            }
+        }
+    }
+
     private String id, nombre, telefono, email, direccion;
 
     /**
@@ -33,35 +79,20 @@ public class Cliente {
 
     /**
      * Constructor que genera un cliente con datos aleatorios si el parámetro es verdadero.
+     * El ID es C seguido de un número de hasta 18 cifras, así que dos clientes generados
+     * prácticamente nunca chocan, aunque se generen millones.
      * 
      * @param aleatorio Indica si se deben generar datos aleatorios.
      */
     public Cliente(boolean aleatorio) {
         if (aleatorio) {
-            String[] nombres = {
-                "Camila", "Santiago", "Valentina", "Mateo", "Laura",
-                "Juan", "Sara", "Andres", "Isabella", "Felipe",
-                "Daniela", "Carlos", "Lucia", "Sebastian", "Mariana"
-            };
-            String[] apellidos = {
-                "Gomez", "Rodriguez", "Martinez", "Perez", "Garcia",
-                "Lopez", "Hernandez", "Torres", "Ramirez", "Moreno",
-                "Vargas", "Castaño", "Rincon", "Navarro", "Ortiz"
-            };
-            String[] calles = {
-                "Calle 26", "Carrera 7", "Avenida Caracas", "Calle 80",
-                "Carrera 30", "Avenida Boyaca", "Transversal 93", 
-                "Diagonal 40", "Calle 100", "Carrera 13",
-                "Calle 72", "Carrera 15", "Avenida Suba", "Calle 116", "Carrera 68"
-            };
-
-            this.nombre = nombres[(int)(Math.random() * nombres.length)] + " " +
-                          apellidos[(int)(Math.random() * apellidos.length)];
-            this.id = "C" + (int)(Math.random() * 10000);
-            this.telefono = "3" + (int)(Math.random() * 1000000000);
-            this.email = this.nombre.toLowerCase().replace(" ", ".") + "@correo.com";
-            this.direccion = calles[(int)(Math.random() * calles.length)] + 
-                             " #" + ((int)(Math.random() * 100) + 1);
+            ThreadLocalRandom r = ThreadLocalRandom.current();
+            int n = r.nextInt(NOMBRES.length), a = r.nextInt(APELLIDOS.length);
+            this.nombre = NOMBRES_COMPLETOS[n * APELLIDOS.length + a];
+            this.id = "C" + r.nextLong(ESPACIO_IDS);
+            this.telefono = "3" + r.nextInt(1000000000);
+            this.email = EMAILS[n * APELLIDOS.length + a];
+            this.direccion = CALLES[r.nextInt(CALLES.length)] + " #" + (r.nextInt(100) + 1);
         }
     }
 
@@ -0,0 +1,97 @@
+package cosas;
+
+import bitacora.Bitacora;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Servicio que despacha automáticamente los camiones cargados de una {@link Flota}.
+ * Cada cierto período revisa todos los destinos y despacha los camiones que
+ * cumplen la ventana de peso ({@link Camion#puedeDespachar()}) y también los que
+ * llevan más de la espera máxima cargados, aunque no alcancen el peso mínimo.
+ * Nunca se despacha un camión con sobrepeso. Cada despacho se registra en
+ * {@link MetricaDespacho}.
+ *
+ * La revisión de un destino se hace con el candado de la flota tomado, así que puede
+ * correr a la vez que otros hilos cargan o consultan la flota a través de sus métodos.
+ *
+ * @author piped
+ */
+public class DespachadorAutomatico implements AutoCloseable {
+
+    /** Período por defecto entre revisiones (ms) */
+    public static final long PERIODO_POR_DEFECTO = 1_000;
+
+    /** Espera máxima por defecto de un camión cargado (ms) */
+    public static final long ESPERA_MAXIMA_POR_DEFECTO = 30 * 60 * 1_000;
+
+    private final Flota flota;
+    private final MetricaDespacho metrica;
+
+    /** Espera máxima de un camión cargado (ns) */
+    private final long esperaMaxima;
+
+    /** Acción ejecutada, con el candado de la flota tomado, tras despachar camiones de un destino */
+    private final Consumer<GuiaEnvio.Destino> alDespachar;
+
+    /** Hilo que hace las revisiones periódicas */
+    private final ScheduledExecutorService planificador;
+
+    /**
+     * Crea e inicia el despachador.
+     *
+     * @param flota Flota a vigilar.
+     * @param metrica Métricas donde se registran los despachos.
+     * @param periodo Tiempo entre revisiones (ms).
+     * @param esperaMaxima Tiempo máximo que un camión puede esperar cargado (ms).
+     * @param alDespachar Acción a ejecutar tras cada despacho de un destino, o null.
+     */
+    public DespachadorAutomatico(Flota flota, MetricaDespacho metrica, long periodo,
+            long esperaMaxima, Consumer<GuiaEnvio.Destino> alDespachar) {
+        this.flota = flota;
+        this.metrica = metrica;
+        this.esperaMaxima = TimeUnit.MILLISECONDS.toNanos(esperaMaxima);
+        this.alDespachar = alDespachar;
+        planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "despachador");
+            t.setDaemon(true);
+            return t;
+        });
+        planificador.scheduleWithFixedDelay(this::revisar, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Revisa todos los destinos y despacha los camiones que correspondan.
+     * Los errores se registran en la bitácora para no detener las revisiones siguientes.
+     */
+    private void revisar() {
+        for (GuiaEnvio.Destino d : GuiaEnvio.Destino.values()) {
+            try {
+                synchronized (flota) {
+                    int n = flota.despachar(d, metrica, esperaMaxima);
+                    if (n > 0) {
+                        if (alDespachar != null) alDespachar.accept(d);
+                        Bitacora.get().info(() -> "Despacho automatico " + d + ": " + n + " camiones");
+                    }
+                }
+            } catch (RuntimeException e) {
+                Bitacora.get().error(() -> "Fallo el despacho automatico de " + d + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Detiene las revisiones, esperando a que termine la que esté en curso.
+     */
+    @Override
+    public void close() {
+        planificador.shutdown();
+        try {
+            planificador.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package cosas;
+
+import java.util.SplittableRandom;
+
+/**
+ * Proveedor de distancias aleatorias entre 1 y 100 km.
+ * Cada hilo usa su propio generador {@link SplittableRandom}, obtenido al dividir
+ * un generador raíz con semilla fija, así que no hay contención entre hilos y,
+ * con la misma semilla, los resultados de cada hilo son reproducibles.
+ *
+ * @author piped
+ */
+public class DistanciaAleatoria implements ProveedorDistancia {
+
+    /** Distancia máxima generada (km) */
+    private static final int DISTANCIA_MAXIMA = 100;
+
+    /** Generador raíz del que se divide uno por hilo */
+    private final SplittableRandom raiz;
+
+    /** Generador propio de cada hilo */
+    private final ThreadLocal<SplittableRandom> porHilo;
+
+    /**
+     * Crea un proveedor con la semilla indicada.
+     *
+     * @param semilla Semilla del generador raíz.
+     */
+    public DistanciaAleatoria(long semilla) {
+        raiz = new SplittableRandom(semilla);
+        porHilo = ThreadLocal.withInitial(this::dividir);
+    }
+
+    /**
+     * Obtiene un generador nuevo para un hilo.
+     *
+     * @return Generador independiente.
+     */
+    private SplittableRandom dividir() {
+        synchronized (raiz) {
+            return raiz.split();
+        }
+    }
+
+    /**
+     * Genera una distancia entera aleatoria entre 1 y 100 km.
+     *
+     * @param destino Destino del envío.
+     * @param cliente Cliente del envío.
+     * @return Distancia aleatoria.
+     */
+    @Override
+    public double distancia(GuiaEnvio.Destino destino, Cliente cliente) {
+        return 1 + porHilo.get().nextInt(DISTANCIA_MAXIMA);
+    }
+}
@@ -0,0 +1,107 @@
+package cosas;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import tdas.ColaAcotada;
+import tdas.List;
+
+/**
+ * Etapa de enrutamiento por lotes. Vacía la cola de ingreso en bloques,
+ * reparte cada bloque por destino y entrega cada partición al actor de su destino
+ * en un {@link CentroDistribucion}.
+ *
+ * Cada partición viaja como un solo comando, y como cada actor es el único que escribe
+ * en su bodega, las bodegas se llenan en paralelo sin necesidad de candados. Mientras
+ * los actores procesan un bloque, el hilo que llama ya va repartiendo el siguiente.
+ *
+ * @author piped
+ */
+public class EnrutadorLotes {
+
+    /**
+     * Tamaño de bloque por defecto.
+     */
+    public static final int TAMANO_LOTE = 4096;
+
+    /**
+     * Actores que reciben las particiones.
+     */
+    private final CentroDistribucion centro;
+
+    /**
+     * Número máximo de cajas retiradas de la cola por bloque.
+     */
+    private final int tamanoLote;
+
+    /**
+     * Crea un enrutador con el tamaño de bloque por defecto.
+     *
+     * @param centro Actores de los destinos.
+     */
+    public EnrutadorLotes(CentroDistribucion centro) {
+        this(centro, TAMANO_LOTE);
+    }
+
+    /**
+     * Crea un enrutador hacia los actores dados.
+     *
+     * @param centro Actores de los destinos.
+     * @param tamanoLote Número máximo de cajas por bloque.
+     */
+    public EnrutadorLotes(CentroDistribucion centro, int tamanoLote) {
+        if (tamanoLote < 1)
+            throw new IllegalArgumentException("Tamano de lote invalido: " + tamanoLote);
+        this.centro = centro;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Vacía la cola de ingreso completa y envía cada caja a la bodega de su destino.
+     * Retorna cuando todas las cajas retiradas ya están en su bodega.
+     *
+     * @param cola Cola de ingreso a vaciar.
+     * @return Número de cajas enrutadas.
+     */
+    public int procesarTodo(ColaAcotada<Caja> cola) {
+        GuiaEnvio.Destino[] destinos = GuiaEnvio.Destino.values();
+        int enrutadas = 0;
+        CompletableFuture<?>[] pendientes = new CompletableFuture<?>[destinos.length];
+        while (true) {
+            @SuppressWarnings("unchecked")
+            List<Caja>[] particiones = (List<Caja>[]) new List<?>[destinos.length];
+            int n = 0;
+            Caja c;
+            while (n < tamanoLote && (c = cola.poll()) != null) {
+                int d = c.getGuia().getDestino().ordinal();
+                if (particiones[d] == null) particiones[d] = new List<>(tamanoLote / destinos.length + 1);
+                particiones[d].list(c);
+                n++;
+            }
+            esperar(pendientes);
+            if (n == 0) break;
+            for (int d = 0; d < destinos.length; d++) {
+                if (particiones[d] == null) continue;
+                pendientes[d] = centro.getDestino(destinos[d]).recibirTodas(particiones[d]);
+            }
+            enrutadas += n;
+        }
+        return enrutadas;
+    }
+
+    /**
+     * Espera a que terminen las particiones enviadas en el bloque anterior.
+     *
+     * @param pendientes Particiones en curso por destino; se limpian al terminar.
+     */
+    private static void esperar(CompletableFuture<?>[] pendientes) {
+        for (int d = 0; d < pendientes.length; d++) {
+            if (pendientes[d] == null) continue;
+            try {
+                pendientes[d].join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Fallo al enrutar cajas", e.getCause());
+            }
+            pendientes[d] = null;
+        }
+    }
+}
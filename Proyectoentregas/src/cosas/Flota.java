@@ -0,0 +1,377 @@
+package cosas;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import tdas.List;
+
+/**
+ * Flota de camiones por destino. Mantiene, para cada destino, un grupo de camiones
+ * disponibles (vacíos) y los camiones ya cargados que esperan despacho.
+ *
+ * Para cargar una bodega reparte sus cajas entre varios camiones con el algoritmo
+ * First-Fit Decreasing: las cajas se toman de la más pesada a la más liviana y cada una
+ * va al primer camión donde cabe sin pasar de {@link GuiaEnvio#PESO_MAXIMO_VOLUMETRICO}.
+ * Con First-Fit a lo sumo un camión queda con la mitad o menos de su capacidad, que es
+ * justamente {@link GuiaEnvio#PESO_MINIMO_VOLUMETRICO}; si eso ocurre, sus cajas vuelven
+ * a la bodega para el siguiente ciclo. Así todo camión cargado queda dentro de la ventana
+ * de despacho.
+ *
+ * Los métodos públicos están sincronizados sobre la flota, así que un
+ * {@link DespachadorAutomatico} puede despachar mientras otro hilo carga. Al cargar,
+ * el reparto y el cálculo de las rutas se hacen sin el candado; solo se toma para
+ * asignar los camiones.
+ *
+ * Las cajas de cada camión se cargan en orden inverso a la ruta que calcula el
+ * {@link PlanificadorRutas}, para que al descargar la pila salgan en orden de entrega.
+ *
+ * @author piped
+ */
+public class Flota {
+
+    /**
+     * Camiones vacíos disponibles por destino.
+     */
+    private List<Camion>[] disponibles;
+
+    /**
+     * Camiones cargados y listos para despacho por destino.
+     */
+    private List<Camion>[] cargados;
+
+    /**
+     * Número de camiones despachados desde la creación de la flota.
+     */
+    private int camionesDespachados;
+
+    /**
+     * Planificador del orden de entrega de cada camión.
+     */
+    private PlanificadorRutas planificador;
+
+    /**
+     * Crea una flota sin camiones; los camiones se crean a medida que se necesitan.
+     */
+    public Flota() {
+        this(new PlanificadorRutas());
+    }
+
+    /**
+     * Crea una flota sin camiones que ordena las entregas con el planificador dado.
+     *
+     * @param planificador Planificador de rutas de los camiones.
+     */
+    public Flota(PlanificadorRutas planificador) {
+        this.planificador = planificador;
+        int n = GuiaEnvio.Destino.values().length;
+        disponibles = listas(n);
+        cargados = listas(n);
+        for (int i = 0; i < n; i++) {
+            disponibles[i] = new List<>();
+            cargados[i] = new List<>();
+        }
+        camionesDespachados = 0;
+    }
+
+    /**
+     * Crea un arreglo de listas de camiones, una por destino.
+     *
+     * @param n Número de destinos.
+     * @return Arreglo de n posiciones, todavía sin listas.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Camion>[] listas(int n) {
+        return (List<Camion>[]) new List<?>[n];
+    }
+
+    /**
+     * Reparte todas las cajas de la bodega entre camiones del destino de la bodega.
+     * Cada camión recibe sus cajas en orden inverso a su ruta de entrega, para que al
+     * descargar la pila salgan en el orden de la ruta.
+     *
+     * @param bodega Bodega a vaciar.
+     * @return Número de camiones cargados; las cajas que no completaron un camión quedan en la bodega.
+     */
+    public int cargar(Bodega bodega) {
+        return cargar(bodega, planificador, null);
+    }
+
+    /**
+     * Reparte todas las cajas de la bodega entre camiones del destino de la bodega y
+     * ejecuta una acción con el candado de la flota tomado, justo después de asignar
+     * los camiones.
+     *
+     * @param bodega Bodega a vaciar.
+     * @param alCargar Acción que recibe el destino cargado, o null.
+     * @return Número de camiones cargados.
+     */
+    public int cargar(Bodega bodega, Consumer<GuiaEnvio.Destino> alCargar) {
+        return cargar(bodega, planificador, alCargar);
+    }
+
+    /**
+     * Reparte todas las cajas de la bodega entre camiones de su destino, ordenando cada
+     * camión con el planificador dado. El reparto y las rutas se calculan sin el candado
+     * de la flota, por lo que la bodega solo debe modificarla el hilo que llama; el
+     * candado se toma para asignar los camiones y ejecutar la acción.
+     *
+     * @param bodega Bodega a vaciar.
+     * @param rutas Planificador del orden de entrega de cada camión.
+     * @param alCargar Acción que recibe el destino cargado, o null.
+     * @return Número de camiones cargados; las cajas que no completaron un camión quedan en la bodega.
+     */
+    public int cargar(Bodega bodega, PlanificadorRutas rutas, Consumer<GuiaEnvio.Destino> alCargar) {
+        GuiaEnvio.Destino destino = bodega.getDestino();
+        Caja[][] planes = repartir(bodega, rutas);
+        boolean[] rechazado = new boolean[planes.length];
+        int listos = 0;
+        synchronized (this) {
+            for (int b = 0; b < planes.length; b++) {
+                Caja[] ruta = planes[b];
+                Camion camion = obtenerCamion(destino);
+                if (!camion.cargarCajas(ruta, 0, ruta.length)) {
+                    rechazado[b] = true;
+                    disponibles[destino.ordinal()].list(camion);
+                    continue;
+                }
+                cargados[destino.ordinal()].list(camion);
+                listos++;
+            }
+            if (alCargar != null) alCargar.accept(destino);
+        }
+        for (int b = 0; b < planes.length; b++) {
+            if (rechazado[b]) for (Caja c : planes[b]) bodega.recibirCaja(c);
+        }
+        return listos;
+    }
+
+    /**
+     * Vacía la bodega y reparte sus cajas con First-Fit Decreasing. Las cajas que no
+     * caben en ningún camión y las de camiones que no llegan al peso mínimo vuelven a
+     * la bodega. No usa el estado de la flota.
+     *
+     * @param bodega Bodega a vaciar.
+     * @param rutas Planificador del orden de entrega de cada camión.
+     * @return Cajas de cada camión a cargar, en orden de entrega.
+     */
+    private static Caja[][] repartir(Bodega bodega, PlanificadorRutas rutas) {
+        int n = bodega.cantidadCajas();
+        if (n == 0) return new Caja[0][];
+        Caja[] cajas = bodega.retirarMasLejanas(n);
+
+        // orden decreciente de peso: llave = bits del peso (positivo) en la parte alta, índice en la baja
+        long[] orden = new long[n];
+        for (int i = 0; i < n; i++) {
+            int bits = Float.floatToIntBits((float) cajas[i].getPesoFacturado());
+            orden[i] = ((long) bits << 32) | i;
+        }
+        Arrays.sort(orden);
+
+        int[] camionDe = new int[n];
+        ArbolCapacidad arbol = new ArbolCapacidad(n, GuiaEnvio.PESO_MAXIMO_VOLUMETRICO);
+        int usados = 0;
+        for (int k = n - 1; k >= 0; k--) {
+            int i = (int) orden[k];
+            double peso = cajas[i].getPesoFacturado();
+            if (peso > GuiaEnvio.PESO_MAXIMO_VOLUMETRICO) {
+                camionDe[i] = -1;
+                continue;
+            }
+            int b = arbol.primeroConEspacio(peso);
+            arbol.descontar(b, peso);
+            camionDe[i] = b;
+            if (b + 1 > usados) usados = b + 1;
+        }
+
+        // agrupa las cajas por camión (conteo y prefijos) conservando el orden de retiro
+        int[] inicio = new int[usados + 1];
+        for (int i = 0; i < n; i++) {
+            if (camionDe[i] >= 0) inicio[camionDe[i] + 1]++;
+        }
+        for (int b = 0; b < usados; b++) inicio[b + 1] += inicio[b];
+        Caja[] agrupadas = new Caja[inicio[usados]];
+        int[] siguiente = Arrays.copyOf(inicio, usados);
+        for (int i = 0; i < n; i++) {
+            if (camionDe[i] >= 0) {
+                agrupadas[siguiente[camionDe[i]]++] = cajas[i];
+            } else {
+                bodega.recibirCaja(cajas[i]);
+            }
+        }
+
+        Caja[][] planes = new Caja[usados][];
+        int m = 0;
+        for (int b = 0; b < usados; b++) {
+            Caja[] grupo = Arrays.copyOfRange(agrupadas, inicio[b], inicio[b + 1]);
+            if (GuiaEnvio.PESO_MAXIMO_VOLUMETRICO - arbol.restante(b) < GuiaEnvio.PESO_MINIMO_VOLUMETRICO) {
+                for (Caja c : grupo) bodega.recibirCaja(c);
+                continue;
+            }
+            planes[m++] = rutas.planificar(grupo);
+        }
+        return Arrays.copyOf(planes, m);
+    }
+
+    /**
+     * Toma un camión vacío del grupo del destino, o crea uno nuevo si no hay.
+     *
+     * @param destino Destino del camión.
+     * @return Camión vacío.
+     */
+    private Camion obtenerCamion(GuiaEnvio.Destino destino) {
+        List<Camion> libres = disponibles[destino.ordinal()];
+        return libres.isEmpty() ? new Camion(destino) : libres.removeLast();
+    }
+
+    /**
+     * Despacha todos los camiones cargados del destino, registra cada despacho
+     * en las métricas y devuelve los camiones vacíos al grupo de disponibles.
+     *
+     * @param destino Destino a despachar.
+     * @param metrica Métricas donde se registran los despachos.
+     * @return Número de camiones despachados.
+     */
+    public synchronized int despachar(GuiaEnvio.Destino destino, MetricaDespacho metrica) {
+        return despachar(destino, metrica, Long.MAX_VALUE);
+    }
+
+    /**
+     * Despacha los camiones cargados del destino que cumplen la ventana de peso y,
+     * sin importar el peso mínimo, los que llevan cargados al menos la espera máxima.
+     * Registra cada despacho en las métricas.
+     *
+     * @param destino Destino a despachar.
+     * @param metrica Métricas donde se registran los despachos.
+     * @param esperaMaxima Espera (ns) a partir de la cual se despacha aunque falte peso.
+     * @return Número de camiones despachados.
+     */
+    public synchronized int despachar(GuiaEnvio.Destino destino, MetricaDespacho metrica, long esperaMaxima) {
+        List<Camion> listos = cargados[destino.ordinal()];
+        List<Camion> pendientes = new List<>();
+        int despachados = 0;
+        for (Camion camion : listos) {
+            double pesoVolumetrico = camion.calcularPesoVolumetrico();
+            float pesoFacturado = (float) camion.calcularPesoFacturado();
+            int numeroCajas = camion.obtenerNumeroCajas();
+            if (camion.despachar(camion.getEspera() >= esperaMaxima)) {
+                metrica.agregarPesoVolumetrico(pesoVolumetrico);
+                metrica.agregarPesoFacturado(pesoFacturado * 3);
+                metrica.agregarNumeroCajas(numeroCajas);
+                disponibles[destino.ordinal()].list(camion);
+                despachados++;
+            } else {
+                pendientes.list(camion);
+            }
+        }
+        cargados[destino.ordinal()] = pendientes;
+        camionesDespachados += despachados;
+        return despachados;
+    }
+
+    /**
+     * Agrega un camión ya cargado a la lista de espera de despacho de su destino.
+     *
+     * @param camion Camión cargado.
+     */
+    public synchronized void agregarCargado(Camion camion) {
+        cargados[camion.getDestino().ordinal()].list(camion);
+    }
+
+    /**
+     * Devuelve una copia de los camiones cargados que esperan despacho para un destino.
+     * Modificar la lista devuelta no afecta a la flota, y la flota puede seguir cargando
+     * y despachando mientras se recorre.
+     *
+     * @param destino Destino consultado.
+     * @return Lista de camiones cargados en este momento.
+     */
+    public synchronized List<Camion> getCargados(GuiaEnvio.Destino destino) {
+        List<Camion> lista = cargados[destino.ordinal()];
+        List<Camion> copia = new List<>(lista.size());
+        copia.addAll(lista);
+        return copia;
+    }
+
+    /**
+     * Devuelve cuántos camiones cargados esperan despacho para un destino.
+     *
+     * @param destino Destino consultado.
+     * @return Número de camiones cargados.
+     */
+    public synchronized int cantidadCargados(GuiaEnvio.Destino destino) {
+        return cargados[destino.ordinal()].size();
+    }
+
+    /**
+     * Devuelve cuántos camiones se han despachado en total.
+     *
+     * @return Número de camiones despachados.
+     */
+    public synchronized int getCamionesDespachados() {
+        return camionesDespachados;
+    }
+
+    /**
+     * Árbol de segmentos con la capacidad restante de cada camión, que permite
+     * encontrar en O(log n) el primer camión donde cabe una caja.
+     * Los camiones aún no abiertos tienen la capacidad completa.
+     */
+    private static class ArbolCapacidad {
+        /** Máximo de capacidad restante de cada subárbol; las hojas empiezan en la posición hojas */
+        private final double[] max;
+
+        /** Número de hojas (potencia de 2) */
+        private final int hojas;
+
+        /**
+         * Crea el árbol con n camiones de la capacidad dada.
+         *
+         * @param n Número máximo de camiones.
+         * @param capacidad Capacidad inicial de cada camión.
+         */
+        ArbolCapacidad(int n, double capacidad) {
+            int h = 1;
+            while (h < n) h <<= 1;
+            hojas = h;
+            max = new double[2 * h];
+            Arrays.fill(max, capacidad);
+        }
+
+        /**
+         * Busca el camión de menor índice con capacidad restante suficiente.
+         *
+         * @param peso Peso que se quiere cargar.
+         * @return Índice del camión.
+         */
+        int primeroConEspacio(double peso) {
+            int nodo = 1;
+            while (nodo < hojas) {
+                nodo = max[2 * nodo] >= peso ? 2 * nodo : 2 * nodo + 1;
+            }
+            return nodo - hojas;
+        }
+
+        /**
+         * Descuenta peso de la capacidad restante de un camión.
+         *
+         * @param b Índice del camión.
+         * @param peso Peso cargado.
+         */
+        void descontar(int b, double peso) {
+            int nodo = b + hojas;
+            max[nodo] -= peso;
+            for (nodo >>= 1; nodo >= 1; nodo >>= 1) {
+                max[nodo] = Math.max(max[2 * nodo], max[2 * nodo + 1]);
+            }
+        }
+
+        /**
+         * Devuelve la capacidad restante de un camión.
+         *
+         * @param b Índice del camión.
+         * @return Capacidad restante.
+         */
+        double restante(int b) {
+            return max[b + hojas];
+        }
+    }
+}
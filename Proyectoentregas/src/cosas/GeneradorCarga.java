@@ -0,0 +1,232 @@
+package cosas;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Generador de clientes y cajas sintéticos para pruebas de carga.
+ *
+ * Los textos repetidos (nombres completos, correos y direcciones) salen de tablas
+ * precalculadas, así que un cliente solo crea dos cadenas nuevas: su ID, que es único
+ * dentro del generador, y su teléfono. Las cajas tienen lados con distribución
+ * log-normal (mediana de 30 cm) y un peso real que depende del volumen y de una
+ * densidad también log-normal, de modo que hay muchas cajas medianas y pocas muy
+ * grandes o muy pesadas; ninguna supera el peso facturado máximo.
+ *
+ * La generación masiva se reparte en bloques que se procesan en paralelo. Cada bloque
+ * usa su propio generador aleatorio derivado de la semilla y del número de bloque, así
+ * que el resultado es el mismo sin importar cuántos hilos participen.
+ *
+ * @author piped
+ */
+public class GeneradorCarga {
+
+    /** Elementos por bloque en la generación en paralelo */
+    private static final int BLOQUE = 4096;
+
+    /** Números de casa por calle */
+    private static final int NUMEROS_POR_CALLE = 100;
+
+    /** Direcciones precalculadas: calle * NUMEROS_POR_CALLE + número - 1 */
+    private static final String[] DIRECCIONES = new String[Cliente.CALLES.length * NUMEROS_POR_CALLE];
+
+    static {
+        for (int c = 0; c < Cliente.CALLES.length; c++) {
+            for (int n = 1; n <= NUMEROS_POR_CALLE; n++) {
+                DIRECCIONES[c * NUMEROS_POR_CALLE + n - 1] = Cliente.CALLES[c] + " #" + n;
+            }
+        }
+    }
+
+    /** Lado mediano de una caja (cm) */
+    private static final double LADO_MEDIANO = 30;
+
+    /** Densidad mediana de una caja (kg/m3) */
+    private static final double DENSIDAD_MEDIANA = 150;
+
+    /** Semilla de la que se derivan los generadores de cada bloque */
+    private final long semilla;
+
+    /** Siguiente ID de cliente sin asignar */
+    private final AtomicLong siguienteCliente = new AtomicLong();
+
+    /** Siguiente ID de caja sin asignar */
+    private final AtomicLong siguienteCaja = new AtomicLong();
+
+    /** Siguiente número de bloque de la generación en paralelo */
+    private final AtomicLong siguienteBloque = new AtomicLong();
+
+    /** Hilos que ya tienen generador para las llamadas individuales */
+    private final AtomicLong hilos = new AtomicLong();
+
+    /** Generador de cada hilo para las llamadas individuales; sus números de bloque son negativos */
+    private final ThreadLocal<SplittableRandom> porHilo =
+            ThreadLocal.withInitial(() -> aleatorio(Long.MIN_VALUE + hilos.getAndIncrement()));
+
+    /**
+     * Crea un generador con la semilla dada.
+     *
+     * @param semilla Semilla de los valores aleatorios.
+     */
+    public GeneradorCarga(long semilla) {
+        this.semilla = semilla;
+    }
+
+    /**
+     * Genera un cliente con ID único.
+     *
+     * @return Cliente nuevo.
+     */
+    public Cliente cliente() {
+        return cliente(siguienteCliente.getAndIncrement(), porHilo.get());
+    }
+
+    /**
+     * Genera una caja con guía para un cliente, con un destino y una distancia al azar.
+     *
+     * @param c Cliente de la guía.
+     * @return Caja nueva.
+     */
+    public Caja caja(Cliente c) {
+        return caja(siguienteCaja.getAndIncrement(), c, porHilo.get());
+    }
+
+    /**
+     * Genera n clientes en paralelo.
+     *
+     * @param n Número de clientes.
+     * @return Clientes con IDs únicos consecutivos.
+     */
+    public Cliente[] clientes(int n) {
+        Cliente[] res = new Cliente[n];
+        long base = siguienteCliente.getAndAdd(n);
+        long bloqueBase = siguienteBloque.getAndAdd((n + BLOQUE - 1) / BLOQUE);
+        IntStream.range(0, (n + BLOQUE - 1) / BLOQUE).parallel().forEach(b -> {
+            SplittableRandom r = aleatorio(bloqueBase + b);
+            for (int i = b * BLOQUE, fin = Math.min(n, i + BLOQUE); i < fin; i++) {
+                res[i] = cliente(base + i, r);
+            }
+        });
+        return res;
+    }
+
+    /**
+     * Genera n cajas en paralelo, cada una para un cliente elegido al azar.
+     *
+     * @param n Número de cajas.
+     * @param clientes Clientes entre los que se reparten las cajas.
+     * @return Cajas con guía.
+     */
+    public Caja[] cajas(int n, Cliente[] clientes) {
+        Caja[] res = new Caja[n];
+        long base = siguienteCaja.getAndAdd(n);
+        long bloqueBase = siguienteBloque.getAndAdd((n + BLOQUE - 1) / BLOQUE);
+        IntStream.range(0, (n + BLOQUE - 1) / BLOQUE).parallel().forEach(b -> {
+            SplittableRandom r = aleatorio(bloqueBase + b);
+            for (int i = b * BLOQUE, fin = Math.min(n, i + BLOQUE); i < fin; i++) {
+                res[i] = caja(base + i, clientes[r.nextInt(clientes.length)], r);
+            }
+        });
+        return res;
+    }
+
+    /**
+     * Crea el generador aleatorio de un bloque. La semilla del bloque pasa por
+     * {@link #mezclar}: si se combinara con el bloque por un múltiplo del incremento
+     * de SplittableRandom, cada bloque repetiría la secuencia del anterior corrida
+     * una posición. Lo usan también las pruebas del paquete.
+     *
+     * @param bloque Número de bloque.
+     * @return Generador derivado de la semilla y del bloque.
+     */
+    SplittableRandom aleatorio(long bloque) {
+        return new SplittableRandom(mezclar(semilla + bloque * 0xBF58476D1CE4E5B9L));
+    }
+
+    /**
+     * Mezcla los bits de un número (finalizador de MurmurHash3, variante 13 de Stafford),
+     * de modo que números cercanos den semillas sin relación entre sí.
+     *
+     * @param z Número a mezclar.
+     * @return Número mezclado.
+     */
+    private static long mezclar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Genera un cliente.
+     *
+     * @param numero Número único del cliente.
+     * @param r Generador aleatorio.
+     * @return Cliente.
+     */
+    private static Cliente cliente(long numero, SplittableRandom r) {
+        int k = r.nextInt(Cliente.NOMBRES_COMPLETOS.length);
+        return new Cliente("C" + numero, Cliente.NOMBRES_COMPLETOS[k], telefono(r),
+                Cliente.EMAILS[k], DIRECCIONES[r.nextInt(DIRECCIONES.length)]);
+    }
+
+    /**
+     * Genera un teléfono celular de 10 dígitos que empieza por 3.
+     *
+     * @param r Generador aleatorio.
+     * @return Teléfono.
+     */
+    private static String telefono(SplittableRandom r) {
+        char[] d = new char[10];
+        d[0] = '3';
+        int resto = r.nextInt(1_000_000_000);
+        for (int i = 9; i > 0; i--) {
+            d[i] = (char) ('0' + resto % 10);
+            resto /= 10;
+        }
+        return new String(d);
+    }
+
+    /**
+     * Genera una caja con guía.
+     *
+     * @param numero Número único de la caja.
+     * @param c Cliente de la guía.
+     * @param r Generador aleatorio.
+     * @return Caja.
+     */
+    private static Caja caja(long numero, Cliente c, SplittableRandom r) {
+        double alt = lado(r), lon = lado(r), anc = lado(r);
+        double metrosCubicos = alt * lon * anc / 1e6;
+        double densidad = DENSIDAD_MEDIANA * Math.exp(0.6 * normal(r));
+        double peso = Math.min(1000, Math.max(0.1, metrosCubicos * densidad));
+        Caja caja = new Caja(alt, lon, anc, Math.round(peso * 10) / 10.0);
+        GuiaEnvio.Destino d = GuiaEnvio.Destino.values()[r.nextInt(GuiaEnvio.Destino.values().length)];
+        GuiaEnvio g = new GuiaEnvio("G" + numero, c, d, 1 + r.nextInt(Bodega.DISTANCIA_MAXIMA));
+        g.calcularCostos(caja.getPesoFacturado());
+        caja.setGuia(g);
+        return caja;
+    }
+
+    /**
+     * Genera un lado de caja con distribución log-normal, entre 5 y 150 cm.
+     *
+     * @param r Generador aleatorio.
+     * @return Lado (cm), redondeado a un decimal.
+     */
+    private static double lado(SplittableRandom r) {
+        double l = LADO_MEDIANO * Math.exp(0.5 * normal(r));
+        return Math.round(Math.min(150, Math.max(5, l)) * 10) / 10.0;
+    }
+
+    /**
+     * Genera un valor con distribución normal estándar (método de Box-Muller).
+     *
+     * @param r Generador aleatorio.
+     * @return Valor normal.
+     */
+    private static double normal(SplittableRandom r) {
+        double u = 1 - r.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * r.nextDouble());
+    }
+}
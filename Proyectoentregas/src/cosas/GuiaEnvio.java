@@ -6,7 +6,9 @@ package cosas;
  * la distancia aproximada del envío y el costo del mismo.
  * También define las constantes de peso mínimo y máximo para el despacho.
  * 
- * La distancia se calcula aleatoriamente entre 1 y 100 km.
+ * La distancia la calcula un {@link ProveedorDistancia}; por defecto es aleatoria
+ * entre 1 y 100 km. La semilla del generador por defecto se puede fijar con la
+ * propiedad del sistema {@code distancia.semilla} para obtener corridas reproducibles.
  * El costo de envío se calcula como {@code pesoFacturado * COSTO_POR_KG}.
  * 
  * @author piped
@@ -28,7 +30,7 @@ public class GuiaEnvio {
     /**
      * Costo por kilogramo utilizado para calcular el costo total del envío.
      */
-    private static final double COSTO_POR_KG = 3.0;
+    static final double COSTO_POR_KG = 3.0;
 
     /**
      * Peso volumétrico mínimo requerido para despachar un camión.
@@ -40,6 +42,12 @@ public class GuiaEnvio {
      */
     public static final double PESO_MAXIMO_VOLUMETRICO = 4000.0;
 
+    /**
+     * Proveedor usado para calcular la distancia de cada guía nueva.
+     */
+    private static volatile ProveedorDistancia proveedorDistancia =
+            new DistanciaAleatoria(Long.getLong("distancia.semilla", System.nanoTime()));
+
     /**
      * Constructor de la guía de envío.
      * 
@@ -51,7 +59,22 @@ public class GuiaEnvio {
         this.idCaja = idCaja;
         this.cliente = cliente;
         this.destino = dest;
-        this.distanciaAprox = calcularDistancia(dest);
+        this.distanciaAprox = proveedorDistancia.distancia(dest, cliente);
+    }
+
+    /**
+     * Constructor de la guía de envío con una distancia ya conocida.
+     * 
+     * @param idCaja ID de la caja a la que corresponde la guía.
+     * @param cliente Cliente asociado al envío.
+     * @param dest Destino al que se dirige el envío.
+     * @param distancia Distancia aproximada en kilómetros.
+     */
+    public GuiaEnvio(String idCaja, Cliente cliente, Destino dest, double distancia) {
+        this.idCaja = idCaja;
+        this.cliente = cliente;
+        this.destino = dest;
+        this.distanciaAprox = distancia;
     }
 
     /**
@@ -65,13 +88,48 @@ public class GuiaEnvio {
     }
 
     /**
-     * Genera una distancia aleatoria para el destino proporcionado.
+     * Cambia el proveedor con el que se calcula la distancia de las guías nuevas.
+     * 
+     * @param proveedor Nuevo proveedor de distancias.
+     */
+    public static void setProveedorDistancia(ProveedorDistancia proveedor) {
+        proveedorDistancia = proveedor;
+    }
+
+    /**
+     * Devuelve el proveedor de distancias actual.
+     * 
+     * @return Proveedor de distancias.
+     */
+    public static ProveedorDistancia getProveedorDistancia() {
+        return proveedorDistancia;
+    }
+
+    /**
+     * Devuelve el ID de la caja a la que corresponde la guía.
+     * 
+     * @return ID de la caja.
+     */
+    public String getIdCaja() {
+        return idCaja;
+    }
+
+    /**
+     * Devuelve el peso con el que se facturó el envío.
+     * 
+     * @return Peso facturado en kilogramos.
+     */
+    public double getPesoFacturado() {
+        return pesoFacturado;
+    }
+
+    /**
+     * Devuelve el costo del envío.
      * 
-     * @param d Destino del envío.
-     * @return Distancia aleatoria entre 1 y 100 km.
+     * @return Costo en dólares.
      */
-    private double calcularDistancia(Destino d) {
-        return 1 + new java.util.Random().nextInt(100);
+    public double getCostoEnvio() {
+        return costoEnvio;
     }
 
     /**
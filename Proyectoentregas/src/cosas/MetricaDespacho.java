@@ -4,30 +4,44 @@
  */
 package cosas;
 
-import tdas.Bag;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Clase que permite llevar un registro de métricas asociadas al despacho de cajas.
  * Las métricas que se almacenan incluyen: peso volumétrico total, peso facturado total
- * y el número total de cajas despachadas. Utiliza una bolsa (Bag) genérica para almacenar los valores.
+ * y el número total de cajas despachadas.
  * 
- * Los datos se agregan y luego se clasifican por tipo para su cálculo total.
+ * Los totales se acumulan a medida que se registran los datos, usando sumadores
+ * repartidos (DoubleAdder/LongAdder) para que varios hilos puedan registrar despachos
+ * a la vez. Registrar un valor no crea objetos y consultar un total no recorre ningún historial.
  * 
  * @author piped
  */
 public class MetricaDespacho {
 
     /**
-     * Bolsa genérica que almacena objetos de tipo Double, Float e Integer para representar
-     * peso volumétrico, peso facturado y número de cajas respectivamente.
+     * Acumulado del peso volumétrico despachado.
      */
-    private Bag<Object> metricaBag;
+    private final DoubleAdder pesoVolumetricoTotal;
 
     /**
-     * Constructor por defecto que inicializa la bolsa de métricas.
+     * Acumulado del peso facturado despachado.
+     */
+    private final DoubleAdder pesoFacturadoTotal;
+
+    /**
+     * Acumulado del número de cajas despachadas.
+     */
+    private final LongAdder numeroCajasTotal;
+
+    /**
+     * Constructor por defecto que inicializa los acumuladores en cero.
      */
     public MetricaDespacho() {
-        metricaBag = new Bag<>();
+        pesoVolumetricoTotal = new DoubleAdder();
+        pesoFacturadoTotal = new DoubleAdder();
+        numeroCajasTotal = new LongAdder();
     }
 
     /**
@@ -36,7 +50,7 @@ public class MetricaDespacho {
      * @param pesoVol Peso volumétrico a agregar (tipo double).
      */
     public void agregarPesoVolumetrico(double pesoVol) {
-        metricaBag.add(pesoVol);
+        pesoVolumetricoTotal.add(pesoVol);
     }
 
     /**
@@ -45,7 +59,16 @@ public class MetricaDespacho {
      * @param pesoFacturado Peso facturado a agregar (tipo float).
      */
     public void agregarPesoFacturado(float pesoFacturado) {
-        metricaBag.add(pesoFacturado);
+        pesoFacturadoTotal.add(pesoFacturado);
+    }
+
+    /**
+     * Agrega un peso facturado al registro con precisión doble.
+     *
+     * @param pesoFacturado Peso facturado a agregar (tipo double).
+     */
+    public void agregarPesoFacturado(double pesoFacturado) {
+        pesoFacturadoTotal.add(pesoFacturado);
     }
 
     /**
@@ -54,52 +77,34 @@ public class MetricaDespacho {
      * @param numCajas Número de cajas (tipo int).
      */
     public void agregarNumeroCajas(int numCajas) {
-        metricaBag.add(numCajas);
+        numeroCajasTotal.add(numCajas);
     }
 
     /**
-     * Calcula el peso volumétrico total sumando todos los valores de tipo Double en la bolsa.
+     * Devuelve el peso volumétrico total registrado.
      *
      * @return Suma total del peso volumétrico.
      */
     public double obtenerPesoVolumetricoTotal() {
-        double total = 0;
-        for (Object obj : metricaBag) {
-            if (obj instanceof Double) {
-                total += (Double) obj;
-            }
-        }
-        return total;
+        return pesoVolumetricoTotal.sum();
     }
 
     /**
-     * Calcula el peso facturado total sumando todos los valores de tipo Float en la bolsa.
+     * Devuelve el peso facturado total registrado.
      *
      * @return Suma total del peso facturado.
      */
     public double obtenerPesoFacturadoTotal() {
-        double total = 0;
-        for (Object obj : metricaBag) {
-            if (obj instanceof Float) {
-                total += (Float) obj;
-            }
-        }
-        return total;
+        return pesoFacturadoTotal.sum();
     }
 
     /**
-     * Calcula el número total de cajas despachadas sumando todos los valores de tipo Integer en la bolsa.
+     * Devuelve el número total de cajas despachadas.
      *
      * @return Suma total del número de cajas.
      */
     public int obtenerNumeroCajasTotal() {
-        int total = 0;
-        for (Object obj : metricaBag) {
-            if (obj instanceof Integer) {
-                total += (Integer) obj;
-            }
-        }
-        return total;
+        return numeroCajasTotal.intValue();
     }
 
     /**
@@ -0,0 +1,32 @@
+package cosas;
+
+/**
+ * Recibe avisos de un {@link Camion} cuando su carga cruza los límites de despacho.
+ * Los métodos tienen implementación vacía, así que basta con redefinir los que interesen.
+ * Se llaman en el hilo que carga el camión, por lo que deben ser rápidos.
+ *
+ * @author piped
+ */
+public interface OyenteCamion {
+
+    /**
+     * Se llama cuando el peso facturado de la carga alcanza
+     * {@link GuiaEnvio#PESO_MINIMO_VOLUMETRICO}, es decir, cuando el camión pasa a poder despacharse.
+     *
+     * @param camion Camión que alcanzó el mínimo.
+     */
+    default void alcanzoMinimo(Camion camion) {
+    }
+
+    /**
+     * Se llama antes de cargar una caja que dejaría el peso facturado por encima de
+     * {@link GuiaEnvio#PESO_MAXIMO_VOLUMETRICO}. Con {@link Camion#cargarCaja} la caja se
+     * carga de todas formas; con {@link Camion#cargarCajas} se rechaza el bloque completo
+     * y la caja es la primera del bloque que cruza el máximo.
+     *
+     * @param camion Camión que excedería el máximo.
+     * @param caja Caja que se está cargando.
+     */
+    default void excederiaMaximo(Camion camion, Caja caja) {
+    }
+}
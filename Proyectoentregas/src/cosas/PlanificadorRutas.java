@@ -0,0 +1,579 @@
+package cosas;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Planificador de rutas de entrega. Dado un grupo de cajas, calcula el orden en que
+ * conviene entregarlas saliendo de la bodega, para no recorrer el destino en zigzag.
+ *
+ * Cada caja se ubica en el plano a {@link GuiaEnvio#getDistanciaAprox()} km de la bodega,
+ * en un ángulo fijo derivado de la dirección del cliente (las cajas de una misma
+ * dirección caen en el mismo punto). La ruta es un camino abierto que empieza en la bodega.
+ *
+ * La ruta inicial se arma con el vecino más cercano y luego se mejora con búsqueda local
+ * 2-opt y Or-opt (mover tramos de 1 a 3 entregas) usando listas de vecinos cercanos.
+ * Primero se optimizan en paralelo tramos disjuntos de la ruta, alternando los cortes
+ * entre rondas, y al final se pule la ruta completa. La búsqueda se detiene en un
+ * óptimo local, al agotar el presupuesto de tiempo o al completar el número máximo de
+ * pasadas de mejora.
+ *
+ * Sin presupuesto de tiempo la ruta depende solo de las cajas: las mismas cajas dan
+ * siempre la misma ruta, lo que permite repetir una carga al recuperar el estado.
+ *
+ * @author piped
+ */
+public class PlanificadorRutas {
+
+    /** Presupuesto de tiempo por defecto para cada ruta (ns) */
+    public static final long PRESUPUESTO_POR_DEFECTO = 100_000_000L;
+
+    /** Vecinos cercanos considerados por cada punto */
+    private static final int VECINOS = 8;
+
+    /** Largo mínimo de un tramo optimizado en paralelo */
+    private static final int TRAMO_MINIMO = 256;
+
+    /** Mejora mínima para aceptar un movimiento (km) */
+    private static final double EPSILON = 1e-9;
+
+    /** Presupuesto de tiempo para cada ruta (ns), o 0 si no hay límite de tiempo */
+    private final long presupuesto;
+
+    /** Número máximo de rondas en paralelo y de pasadas sobre cada tramo */
+    private final int maxPasadas;
+
+    /**
+     * Crea un planificador con el presupuesto de tiempo por defecto.
+     */
+    public PlanificadorRutas() {
+        this(PRESUPUESTO_POR_DEFECTO);
+    }
+
+    /**
+     * Crea un planificador con el presupuesto de tiempo dado.
+     *
+     * @param presupuestoNanos Tiempo máximo de optimización por ruta (ns).
+     */
+    public PlanificadorRutas(long presupuestoNanos) {
+        this(presupuestoNanos, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Crea un planificador con presupuesto de tiempo y número máximo de pasadas.
+     *
+     * @param presupuestoNanos Tiempo máximo de optimización por ruta (ns), o 0 para no
+     *        limitar el tiempo y obtener siempre la misma ruta para las mismas cajas.
+     * @param maxPasadas Número máximo de rondas en paralelo y de pasadas sobre cada tramo.
+     */
+    public PlanificadorRutas(long presupuestoNanos, int maxPasadas) {
+        if (presupuestoNanos < 0 || maxPasadas < 1)
+            throw new IllegalArgumentException("Limites invalidos: " + presupuestoNanos + ", " + maxPasadas);
+        this.presupuesto = presupuestoNanos;
+        this.maxPasadas = maxPasadas;
+    }
+
+    /**
+     * Calcula el orden de entrega de las cajas.
+     *
+     * @param cajas Cajas a entregar; el arreglo no se modifica.
+     * @return Las mismas cajas en orden de entrega (la primera es la primera entrega).
+     */
+    public Caja[] planificar(Caja[] cajas) {
+        int n = cajas.length;
+        if (n <= 2) return ordenRadial(cajas);
+        Ruta r = new Ruta(cajas, presupuesto > 0, System.nanoTime() + presupuesto, maxPasadas);
+        r.vecinoMasCercano();
+        r.calcularVecinos();
+        r.mejorar();
+        Caja[] orden = new Caja[n];
+        for (int p = 1; p <= n; p++) {
+            orden[p - 1] = cajas[r.tour[p] - 1];
+        }
+        return orden;
+    }
+
+    /**
+     * Calcula la longitud de una ruta que sale de la bodega y visita las cajas en orden.
+     *
+     * @param ruta Cajas en orden de entrega.
+     * @return Longitud de la ruta (km).
+     */
+    public static double longitud(Caja[] ruta) {
+        double total = 0, x = 0, y = 0;
+        double[] p = new double[2];
+        for (Caja c : ruta) {
+            ubicar(c, p);
+            total += Math.hypot(p[0] - x, p[1] - y);
+            x = p[0];
+            y = p[1];
+        }
+        return total;
+    }
+
+    /**
+     * Calcula la posición de entrega de una caja en el plano, con la bodega en el origen.
+     *
+     * @param c Caja con guía.
+     * @param xy Arreglo donde se dejan las coordenadas x, y (km).
+     */
+    static void ubicar(Caja c, double[] xy) {
+        GuiaEnvio g = c.getGuia();
+        Cliente cli = g.getCliente();
+        String lugar = cli != null && cli.getDireccion() != null ? cli.getDireccion() : g.getIdCaja();
+        int h = (lugar == null ? 0 : lugar.hashCode()) * 0x9E3779B1;
+        double angulo = (h >>> 8) * (2 * Math.PI / (1 << 24));
+        double r = g.getDistanciaAprox();
+        xy[0] = r * Math.cos(angulo);
+        xy[1] = r * Math.sin(angulo);
+    }
+
+    /**
+     * Ordena pocas cajas de la más cercana a la más lejana.
+     *
+     * @param cajas Cajas a ordenar.
+     * @return Cajas ordenadas.
+     */
+    private static Caja[] ordenRadial(Caja[] cajas) {
+        Caja[] orden = cajas.clone();
+        if (orden.length == 2 && orden[0].getGuia().getDistanciaAprox() > orden[1].getGuia().getDistanciaAprox()) {
+            Caja t = orden[0];
+            orden[0] = orden[1];
+            orden[1] = t;
+        }
+        return orden;
+    }
+
+    /**
+     * Estado de la optimización de una ruta. Los nodos son 0 (bodega), 1..n (cajas)
+     * y n+1 (fin), un nodo ficticio a distancia cero de todos que cierra el camino abierto.
+     * La bodega y el fin quedan fijos en las posiciones 0 y n+1.
+     */
+    private static class Ruta {
+        private final double[] x, y;
+        private final int n, fin;
+        /** Nodo en cada posición de la ruta */
+        private final int[] tour;
+        /** Posición de cada nodo en la ruta */
+        private final int[] pos;
+        /** Vecinos más cercanos de cada nodo, del más cercano al más lejano */
+        private int[][] vecinos;
+        /** Indica si la optimización tiene límite de tiempo */
+        private final boolean limitada;
+        /** Instante límite de la optimización (ns) */
+        private final long limite;
+        /** Número máximo de rondas y de pasadas por tramo */
+        private final int maxPasadas;
+        /** Índice espacial de los puntos */
+        private final Rejilla rejilla;
+
+        /**
+         * Ubica las cajas en el plano.
+         *
+         * @param cajas Cajas de la ruta.
+         * @param limitada true si la optimización tiene límite de tiempo.
+         * @param limite Instante límite de la optimización (ns).
+         * @param maxPasadas Número máximo de rondas y de pasadas por tramo.
+         */
+        Ruta(Caja[] cajas, boolean limitada, long limite, int maxPasadas) {
+            n = cajas.length;
+            fin = n + 1;
+            x = new double[n + 2];
+            y = new double[n + 2];
+            double[] p = new double[2];
+            for (int i = 0; i < n; i++) {
+                ubicar(cajas[i], p);
+                x[i + 1] = p[0];
+                y[i + 1] = p[1];
+            }
+            tour = new int[n + 2];
+            pos = new int[n + 2];
+            this.limitada = limitada;
+            this.limite = limite;
+            this.maxPasadas = maxPasadas;
+            rejilla = new Rejilla(x, y, n + 1);
+        }
+
+        /**
+         * Distancia entre dos nodos; el fin está a distancia cero de todos.
+         *
+         * @param a Nodo.
+         * @param b Nodo.
+         * @return Distancia (km).
+         */
+        double d(int a, int b) {
+            if (a == fin || b == fin) return 0;
+            double dx = x[a] - x[b], dy = y[a] - y[b];
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+
+        /**
+         * Indica si se agotó el presupuesto de tiempo.
+         *
+         * @return true si ya pasó el límite.
+         */
+        boolean agotado() {
+            return limitada && System.nanoTime() - limite >= 0;
+        }
+
+        /**
+         * Arma la ruta inicial: desde cada punto se va al punto sin visitar más cercano.
+         * Los candidatos se buscan en la rejilla, quitando cada punto al visitarlo.
+         */
+        void vecinoMasCercano() {
+            rejilla.quitar(0);
+            int actual = 0;
+            for (int p = 1; p <= n; p++) {
+                int mejor = rejilla.masCercano(x[actual], y[actual]);
+                rejilla.quitar(mejor);
+                tour[p] = mejor;
+                actual = mejor;
+            }
+            tour[fin] = fin;
+            for (int p = 0; p <= fin; p++) pos[tour[p]] = p;
+        }
+
+        /**
+         * Calcula en paralelo los vecinos más cercanos de la bodega y de cada caja,
+         * recorriendo la rejilla en anillos alrededor de cada punto.
+         */
+        void calcularVecinos() {
+            int k = Math.min(VECINOS, n);
+            vecinos = new int[n + 1][];
+            IntStream.rangeClosed(0, n).parallel().forEach(a -> {
+                int[] v = new int[k];
+                double[] dv = new double[k];
+                int m = 0;
+                int cx = rejilla.columna(x[a]), cy = rejilla.fila(y[a]);
+                for (int anillo = 0; anillo <= rejilla.lado; anillo++) {
+                    if (m == k && dv[k - 1] <= (anillo - 1) * rejilla.tam) break;
+                    for (int gy = cy - anillo; gy <= cy + anillo; gy++) {
+                        if (gy < 0 || gy >= rejilla.lado) continue;
+                        boolean borde = gy == cy - anillo || gy == cy + anillo;
+                        for (int gx = cx - anillo; gx <= cx + anillo; gx += borde ? 1 : 2 * anillo) {
+                            if (gx >= 0 && gx < rejilla.lado) {
+                                int celda = gy * rejilla.lado + gx;
+                                for (int t = rejilla.inicio[celda]; t < rejilla.inicio[celda + 1]; t++) {
+                                    int c = rejilla.puntos[t];
+                                    if (c == a) continue;
+                                    double dc = d(a, c);
+                                    if (m == k && dc >= dv[k - 1]) continue;
+                                    int i = m < k ? m++ : k - 1;
+                                    while (i > 0 && dv[i - 1] > dc) {
+                                        v[i] = v[i - 1];
+                                        dv[i] = dv[i - 1];
+                                        i--;
+                                    }
+                                    v[i] = c;
+                                    dv[i] = dc;
+                                }
+                            }
+                            if (anillo == 0) break;
+                        }
+                    }
+                }
+                vecinos[a] = v;
+            });
+        }
+
+        /**
+         * Mejora la ruta: rondas de tramos en paralelo hasta que ninguno mejore,
+         * y luego la ruta completa.
+         */
+        void mejorar() {
+            int tramos = Math.min(ForkJoinPool.getCommonPoolParallelism(), (n + 1) / TRAMO_MINIMO);
+            if (tramos > 1) {
+                int largo = (n + 1) / tramos;
+                boolean mejoro = true;
+                for (int ronda = 0; mejoro && ronda < maxPasadas && !agotado(); ronda++) {
+                    int desfase = (ronda % 2) * (largo / 2);
+                    int t = ronda % 2 == 0 ? tramos : tramos - 1;
+                    mejoro = IntStream.range(0, t).parallel()
+                            .map(s -> optimizarTramo(desfase + s * largo,
+                                    s == tramos - 1 ? fin : desfase + (s + 1) * largo) ? 1 : 0)
+                            .sum() > 0 || ronda == 0;
+                }
+            }
+            optimizarTramo(0, fin);
+        }
+
+        /**
+         * Aplica movimientos 2-opt y Or-opt que solo cambian posiciones estrictamente
+         * entre lo y hi, hasta llegar a un óptimo local, agotar el tiempo o completar
+         * el número máximo de pasadas.
+         * Tramos disjuntos pueden optimizarse a la vez desde hilos distintos.
+         *
+         * @param lo Posición fija inicial del tramo.
+         * @param hi Posición fija final del tramo.
+         * @return true si la ruta mejoró.
+         */
+        boolean optimizarTramo(int lo, int hi) {
+            boolean mejoro = false, hubo = true;
+            for (int pasada = 0; hubo && pasada < maxPasadas && !agotado(); pasada++) {
+                hubo = false;
+                for (int p = lo; p < hi; p++) {
+                    if ((p & 255) == 0 && agotado()) return mejoro;
+                    if (dosOpt(p, lo, hi) || orOpt(p, lo, hi)) hubo = mejoro = true;
+                }
+            }
+            return mejoro;
+        }
+
+        /**
+         * Busca un movimiento 2-opt que reemplace una arista del nodo en la posición i
+         * por una arista hacia uno de sus vecinos cercanos, y lo aplica si acorta la ruta.
+         *
+         * @param i Posición del nodo.
+         * @param lo Posición fija inicial del tramo.
+         * @param hi Posición fija final del tramo.
+         * @return true si se aplicó un movimiento.
+         */
+        boolean dosOpt(int i, int lo, int hi) {
+            int a = tour[i];
+            // arista hacia el siguiente: a-b ... c-e  =>  a-c ... b-e
+            int b = tour[i + 1];
+            double dab = d(a, b);
+            for (int c : vecinos[a]) {
+                double dac = d(a, c);
+                if (dac >= dab) break;
+                int j = pos[c];
+                if (j < lo || j >= hi || j == i) continue;
+                int e = tour[j + 1];
+                if (dab + d(c, e) - dac - d(b, e) > EPSILON) {
+                    invertir(Math.min(i, j) + 1, Math.max(i, j));
+                    return true;
+                }
+            }
+            if (i == lo) return false;
+            // arista hacia el anterior: b-a ... e-c  =>  b-e ... a-c
+            b = tour[i - 1];
+            dab = d(a, b);
+            for (int c : vecinos[a]) {
+                double dac = d(a, c);
+                if (dac >= dab) break;
+                int j = pos[c];
+                if (j <= lo || j > hi || j == i) continue;
+                int e = tour[j - 1];
+                if (dab + d(c, e) - dac - d(b, e) > EPSILON) {
+                    if (i < j) invertir(i, j - 1);
+                    else invertir(j, i - 1);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Busca un movimiento Or-opt: sacar el tramo de 1 a 3 entregas que empieza en la
+         * posición i e insertarlo (en cualquier sentido) junto a un vecino cercano.
+         *
+         * @param i Posición inicial del tramo a mover.
+         * @param lo Posición fija inicial del tramo optimizado.
+         * @param hi Posición fija final del tramo optimizado.
+         * @return true si se aplicó un movimiento.
+         */
+        boolean orOpt(int i, int lo, int hi) {
+            if (i <= lo) return false;
+            for (int l = 1; l <= 3 && i + l - 1 < hi; l++) {
+                int s1 = tour[i], s2 = tour[i + l - 1];
+                int p = tour[i - 1], q = tour[i + l];
+                double quitar = d(p, s1) + d(s2, q) - d(p, q);
+                if (quitar <= EPSILON) continue;
+                for (int extremo = 0; extremo < 2; extremo++) {
+                    for (int c : vecinos[extremo == 0 ? s1 : s2]) {
+                        int j = pos[c];
+                        for (int e = j - 1; e <= j; e++) {
+                            if (e < lo || e >= hi || (e >= i - 1 && e <= i + l - 1)) continue;
+                            int u = tour[e], v = tour[e + 1];
+                            double duv = d(u, v);
+                            double directo = d(u, s1) + d(s2, v) - duv;
+                            double invertido = d(u, s2) + d(s1, v) - duv;
+                            if (quitar - Math.min(directo, invertido) > EPSILON) {
+                                mover(i, l, e, invertido < directo);
+                                return true;
+                            }
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Invierte el orden de la ruta entre dos posiciones, inclusive.
+         *
+         * @param desde Posición inicial.
+         * @param hasta Posición final.
+         */
+        void invertir(int desde, int hasta) {
+            while (desde < hasta) {
+                int t = tour[desde];
+                tour[desde] = tour[hasta];
+                tour[hasta] = t;
+                pos[tour[desde]] = desde;
+                pos[tour[hasta]] = hasta;
+                desde++;
+                hasta--;
+            }
+        }
+
+        /**
+         * Mueve el tramo de l posiciones que empieza en i a continuación de la posición e.
+         *
+         * @param i Posición inicial del tramo.
+         * @param l Largo del tramo.
+         * @param e Posición tras la cual se inserta (fuera del tramo).
+         * @param invertido true para insertarlo en sentido contrario.
+         */
+        void mover(int i, int l, int e, boolean invertido) {
+            int[] tramo = new int[l];
+            for (int k = 0; k < l; k++) {
+                tramo[k] = tour[invertido ? i + l - 1 - k : i + k];
+            }
+            int desde, hasta;
+            if (e > i) {
+                System.arraycopy(tour, i + l, tour, i, e - i - l + 1);
+                System.arraycopy(tramo, 0, tour, e - l + 1, l);
+                desde = i;
+                hasta = e;
+            } else {
+                System.arraycopy(tour, e + 1, tour, e + 1 + l, i - e - 1);
+                System.arraycopy(tramo, 0, tour, e + 1, l);
+                desde = e + 1;
+                hasta = i + l - 1;
+            }
+            for (int k = desde; k <= hasta; k++) pos[tour[k]] = k;
+        }
+    }
+
+    /**
+     * Rejilla uniforme sobre los puntos, con unos dos puntos por celda. Los puntos de
+     * cada celda quedan contiguos en {@code puntos}; los primeros {@code vivos[celda]}
+     * son los que aún no se han quitado.
+     */
+    private static class Rejilla {
+        private final double[] x, y;
+        private final double minX, minY, tam;
+        private final int lado;
+        /** Puntos ordenados por celda */
+        private final int[] puntos;
+        /** Inicio de cada celda en puntos (con una entrada final de cierre) */
+        private final int[] inicio;
+        /** Puntos no quitados de cada celda */
+        private final int[] vivos;
+        /** Posición de cada punto en puntos */
+        private final int[] lugar;
+
+        /**
+         * Construye la rejilla con los puntos 0..m-1.
+         *
+         * @param x Coordenadas x.
+         * @param y Coordenadas y.
+         * @param m Número de puntos.
+         */
+        Rejilla(double[] x, double[] y, int m) {
+            this.x = x;
+            this.y = y;
+            double x0 = Double.POSITIVE_INFINITY, y0 = x0, x1 = Double.NEGATIVE_INFINITY, y1 = x1;
+            for (int i = 0; i < m; i++) {
+                x0 = Math.min(x0, x[i]);
+                x1 = Math.max(x1, x[i]);
+                y0 = Math.min(y0, y[i]);
+                y1 = Math.max(y1, y[i]);
+            }
+            lado = Math.max(1, (int) Math.sqrt(m / 2.0));
+            minX = x0;
+            minY = y0;
+            tam = Math.max(Math.max(x1 - x0, y1 - y0), 1e-6) / lado * (1 + 1e-9);
+            inicio = new int[lado * lado + 1];
+            vivos = new int[lado * lado];
+            int[] celdaDe = new int[m];
+            for (int i = 0; i < m; i++) {
+                celdaDe[i] = fila(y[i]) * lado + columna(x[i]);
+                vivos[celdaDe[i]]++;
+            }
+            for (int c = 0; c < vivos.length; c++) inicio[c + 1] = inicio[c] + vivos[c];
+            puntos = new int[m];
+            lugar = new int[m];
+            int[] siguiente = Arrays.copyOf(inicio, vivos.length);
+            for (int i = 0; i < m; i++) {
+                lugar[i] = siguiente[celdaDe[i]]++;
+                puntos[lugar[i]] = i;
+            }
+        }
+
+        /**
+         * Columna de la celda que contiene la coordenada x.
+         *
+         * @param px Coordenada x.
+         * @return Columna, entre 0 y lado-1.
+         */
+        int columna(double px) {
+            return Math.min(lado - 1, Math.max(0, (int) ((px - minX) / tam)));
+        }
+
+        /**
+         * Fila de la celda que contiene la coordenada y.
+         *
+         * @param py Coordenada y.
+         * @return Fila, entre 0 y lado-1.
+         */
+        int fila(double py) {
+            return Math.min(lado - 1, Math.max(0, (int) ((py - minY) / tam)));
+        }
+
+        /**
+         * Quita un punto de la rejilla, intercambiándolo con el último vivo de su celda.
+         *
+         * @param i Punto a quitar.
+         */
+        void quitar(int i) {
+            int celda = fila(y[i]) * lado + columna(x[i]);
+            int ultimo = inicio[celda] + --vivos[celda];
+            int otro = puntos[ultimo];
+            puntos[ultimo] = i;
+            puntos[lugar[i]] = otro;
+            lugar[otro] = lugar[i];
+            lugar[i] = ultimo;
+        }
+
+        /**
+         * Busca el punto vivo más cercano a una posición, recorriendo anillos de celdas
+         * hasta que ningún anillo siguiente pueda tener uno más cercano.
+         *
+         * @param px Coordenada x.
+         * @param py Coordenada y.
+         * @return Punto más cercano, o -1 si no quedan puntos.
+         */
+        int masCercano(double px, double py) {
+            int cx = columna(px), cy = fila(py);
+            int mejor = -1;
+            double dm = Double.POSITIVE_INFINITY;
+            for (int anillo = 0; anillo <= lado; anillo++) {
+                double cota = (anillo - 1) * tam;
+                if (mejor >= 0 && dm <= cota * cota) break;
+                for (int gy = cy - anillo; gy <= cy + anillo; gy++) {
+                    if (gy < 0 || gy >= lado) continue;
+                    boolean borde = gy == cy - anillo || gy == cy + anillo;
+                    for (int gx = cx - anillo; gx <= cx + anillo; gx += borde ? 1 : 2 * anillo) {
+                        if (gx >= 0 && gx < lado) {
+                            int celda = gy * lado + gx;
+                            for (int t = inicio[celda], f = t + vivos[celda]; t < f; t++) {
+                                int c = puntos[t];
+                                double dx = x[c] - px, dy = y[c] - py;
+                                double dc = dx * dx + dy * dy;
+                                if (dc < dm) {
+                                    dm = dc;
+                                    mejor = c;
+                                }
+                            }
+                        }
+                        if (anillo == 0) break;
+                    }
+                }
+            }
+            return mejor;
+        }
+    }
+}
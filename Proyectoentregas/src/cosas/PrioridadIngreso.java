@@ -0,0 +1,57 @@
+package cosas;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Llaves de prioridad para la cola de ingreso, calculadas con los datos de la guía.
+ * En una {@link tdas.ColaPrioridad} sale primero la caja con menor valor de llave,
+ * por lo que las llaves son negativas: a mayor distancia o mayor valor, antes sale.
+ *
+ * @author piped
+ */
+public enum PrioridadIngreso implements ToDoubleFunction<Caja> {
+
+    /** Primero las cajas más lejanas, que tardan más en entregarse */
+    DISTANCIA {
+        @Override
+        public double applyAsDouble(Caja c) {
+            return -distanciaRelativa(c);
+        }
+    },
+
+    /** Primero las cajas con mayor costo de envío */
+    VALOR {
+        @Override
+        public double applyAsDouble(Caja c) {
+            return -valorRelativo(c);
+        }
+    },
+
+    /** Distancia y valor con el mismo peso, ambos llevados a una escala de 0 a 1 */
+    MIXTA {
+        @Override
+        public double applyAsDouble(Caja c) {
+            return -(distanciaRelativa(c) + valorRelativo(c)) / 2;
+        }
+    };
+
+    /**
+     * Devuelve la distancia de la caja respecto de la máxima con cubeta propia en bodega.
+     *
+     * @param c Caja con guía.
+     * @return Distancia relativa, normalmente entre 0 y 1.
+     */
+    private static double distanciaRelativa(Caja c) {
+        return c.getGuia().getDistanciaAprox() / Bodega.DISTANCIA_MAXIMA;
+    }
+
+    /**
+     * Devuelve el costo de envío de la caja respecto del de una carga completa de camión.
+     *
+     * @param c Caja con guía.
+     * @return Valor relativo entre 0 y 1.
+     */
+    private static double valorRelativo(Caja c) {
+        return c.getGuia().getCostoEnvio() / (GuiaEnvio.COSTO_POR_KG * GuiaEnvio.PESO_MAXIMO_VOLUMETRICO);
+    }
+}
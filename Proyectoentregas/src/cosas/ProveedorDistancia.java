@@ -0,0 +1,20 @@
+package cosas;
+
+/**
+ * Estrategia para calcular la distancia aproximada de un envío.
+ * {@link GuiaEnvio} la usa al crear cada guía; se cambia con
+ * {@link GuiaEnvio#setProveedorDistancia(ProveedorDistancia)}.
+ *
+ * @author piped
+ */
+public interface ProveedorDistancia {
+
+    /**
+     * Calcula la distancia aproximada de un envío.
+     *
+     * @param destino Destino del envío.
+     * @param cliente Cliente del envío (puede ser null).
+     * @return Distancia aproximada en kilómetros.
+     */
+    double distancia(GuiaEnvio.Destino destino, Cliente cliente);
+}
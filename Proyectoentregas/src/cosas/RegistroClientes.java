@@ -0,0 +1,72 @@
+package cosas;
+
+import java.util.Iterator;
+
+/**
+ * Registro de clientes con un índice hash por identificación.
+ * La búsqueda por ID no distingue mayúsculas de minúsculas y cuesta O(1) esperado.
+ * No se permiten dos clientes con el mismo ID.
+ * Los clientes se recorren en el orden en que fueron registrados.
+ *
+ * Los datos se guardan codificados en un {@link AlmacenClientes}: al registrar un
+ * cliente se copian sus datos, y buscar o recorrer devuelve vistas
+ * ({@link AlmacenClientes.ClienteCompacto}) que leen y escriben en el almacén.
+ *
+ * @author piped
+ */
+public class RegistroClientes implements Iterable<Cliente> {
+
+    /**
+     * Almacén compacto con los datos y el índice por ID de los clientes.
+     */
+    private AlmacenClientes almacen;
+
+    /**
+     * Crea un registro de clientes vacío.
+     */
+    public RegistroClientes() {
+        almacen = new AlmacenClientes();
+    }
+
+    /**
+     * Registra una copia de un cliente si su ID no está en uso. Los cambios posteriores
+     * al objeto recibido no afectan al registro; para modificar un cliente registrado
+     * se usa la vista que devuelve {@link #buscar}.
+     *
+     * @param c Cliente a registrar.
+     * @return true si se registró, false si el ID es nulo o ya existe.
+     */
+    public boolean agregar(Cliente c) {
+        if (c.getId() == null) return false;
+        return almacen.agregar(c) >= 0;
+    }
+
+    /**
+     * Busca un cliente por su ID, sin distinguir mayúsculas de minúsculas.
+     *
+     * @param id ID del cliente.
+     * @return Vista del cliente, o null si no existe.
+     */
+    public Cliente buscar(String id) {
+        return almacen.buscar(id);
+    }
+
+    /**
+     * Devuelve el número de clientes registrados.
+     *
+     * @return Cantidad de clientes.
+     */
+    public int size() {
+        return almacen.size();
+    }
+
+    /**
+     * Retorna un iterador sobre los clientes en orden de registro.
+     *
+     * @return Iterador de vistas de los clientes.
+     */
+    @Override
+    public Iterator<Cliente> iterator() {
+        return almacen.iterator();
+    }
+}
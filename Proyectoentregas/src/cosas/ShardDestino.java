@@ -0,0 +1,315 @@
+package cosas;
+
+import bitacora.Bitacora;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import tdas.ConcurrentQueue;
+import tdas.List;
+
+/**
+ * Actor que es dueño de la bodega y los camiones de un destino. Todas las operaciones
+ * se envían como comandos a un buzón y las ejecuta, en orden de llegada, un único hilo
+ * propio del destino. Como solo ese hilo toca la bodega y los camiones, sus listas y
+ * pilas no necesitan candados, y cualquier hilo puede enviar comandos sin carreras.
+ * Varios destinos procesan sus comandos en paralelo, cada uno en su hilo.
+ *
+ * Los comandos con respuesta devuelven un {@link CompletableFuture}; recibir una caja
+ * no tiene respuesta para no crear un objeto extra por caja. Si un comando falla, el
+ * error se registra en la bitácora y el actor sigue con el siguiente.
+ *
+ * La flota puede compartirse entre destinos, porque sus métodos están sincronizados;
+ * la bodega, en cambio, es solo de este actor.
+ *
+ * @author piped
+ */
+public class ShardDestino implements AutoCloseable {
+
+    /** Capacidad por defecto del buzón */
+    public static final int CAPACIDAD_BUZON = 1 << 16;
+
+    private final GuiaEnvio.Destino destino;
+
+    /** Bodega del destino; solo la usa el hilo del actor */
+    private final Bodega bodega;
+
+    /** Camiones del destino; el actor carga y despacha solo los de su destino */
+    private final Flota flota;
+
+    /** Comandos pendientes */
+    private final ConcurrentQueue<Runnable> buzon;
+
+    /** Hilo del actor */
+    private final Thread hilo;
+
+    /** Indica que el hilo del actor está por dormirse o dormido */
+    private volatile boolean dormido;
+
+    /** Indica que no se aceptan más comandos */
+    private volatile boolean cerrado;
+
+    /** Envíos en curso, que pueden dejar un comando en el buzón después de cerrar */
+    private final AtomicInteger enviando = new AtomicInteger();
+
+    /**
+     * Crea e inicia el actor de un destino con un buzón de la capacidad por defecto.
+     *
+     * @param destino Destino del actor.
+     */
+    public ShardDestino(GuiaEnvio.Destino destino) {
+        this(destino, CAPACIDAD_BUZON);
+    }
+
+    /**
+     * Crea e inicia el actor de un destino.
+     *
+     * @param destino Destino del actor.
+     * @param capacidadBuzon Número máximo de comandos pendientes; al llenarse, quien envía espera.
+     */
+    public ShardDestino(GuiaEnvio.Destino destino, int capacidadBuzon) {
+        this(destino, new Bodega(destino), new Flota(), capacidadBuzon);
+    }
+
+    /**
+     * Crea e inicia el actor de un destino sobre una bodega y una flota existentes.
+     * Desde ese momento la bodega solo debe usarse a través del actor.
+     *
+     * @param destino Destino del actor.
+     * @param bodega Bodega del destino.
+     * @param flota Flota donde se cargan y despachan los camiones del destino.
+     * @param capacidadBuzon Número máximo de comandos pendientes; al llenarse, quien envía espera.
+     */
+    public ShardDestino(GuiaEnvio.Destino destino, Bodega bodega, Flota flota, int capacidadBuzon) {
+        this.destino = destino;
+        this.bodega = bodega;
+        this.flota = flota;
+        this.buzon = new ConcurrentQueue<>(capacidadBuzon);
+        hilo = new Thread(this::atender, "destino-" + destino);
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Envía una caja a la bodega del destino.
+     *
+     * @param c Caja con guía de este destino.
+     */
+    public void recibir(Caja c) {
+        enviar(() -> bodega.recibirCaja(c));
+    }
+
+    /**
+     * Envía un grupo de cajas a la bodega del destino como un solo comando.
+     *
+     * @param cajas Cajas con guía de este destino.
+     * @return Futuro que termina cuando todas las cajas están en la bodega.
+     */
+    public CompletableFuture<Void> recibirTodas(List<Caja> cajas) {
+        return consultar(() -> {
+            for (Caja c : cajas) bodega.recibirCaja(c);
+            return null;
+        });
+    }
+
+    /**
+     * Pide una copia de las cajas de la bodega ordenadas por distancia.
+     *
+     * @return Cajas de la más cercana a la más lejana.
+     */
+    public CompletableFuture<List<Caja>> ordenar() {
+        return consultar(() -> {
+            bodega.ordenarPorDistancia();
+            return bodega.getAlmacen();
+        });
+    }
+
+    /**
+     * Pide una vista de las cajas de la bodega (ver {@link Bodega#vista}). El hilo del
+     * destino solo toma la instantánea; el recorrido se hace en el hilo que la pidió,
+     * mientras el destino sigue procesando comandos.
+     *
+     * @return Cajas de la más cercana a la más lejana.
+     */
+    public CompletableFuture<Stream<Caja>> vista() {
+        return consultar(bodega::vista);
+    }
+
+    /**
+     * Pide cargar la bodega en camiones.
+     *
+     * @return Número de camiones cargados.
+     */
+    public CompletableFuture<Integer> cargar() {
+        return cargar(null);
+    }
+
+    /**
+     * Pide cargar la bodega en camiones y ejecutar una acción con el candado de la
+     * flota tomado, justo después de asignar los camiones.
+     *
+     * @param alCargar Acción que recibe el destino cargado, o null.
+     * @return Número de camiones cargados.
+     */
+    public CompletableFuture<Integer> cargar(Consumer<GuiaEnvio.Destino> alCargar) {
+        return consultar(() -> flota.cargar(bodega, alCargar));
+    }
+
+    /**
+     * Pide despachar los camiones cargados.
+     *
+     * @param metrica Métricas donde se registran los despachos.
+     * @return Número de camiones despachados.
+     */
+    public CompletableFuture<Integer> despachar(MetricaDespacho metrica) {
+        return despachar(metrica, null);
+    }
+
+    /**
+     * Pide despachar los camiones cargados y ejecutar una acción con el candado de la
+     * flota tomado, justo después del despacho.
+     *
+     * @param metrica Métricas donde se registran los despachos.
+     * @param alDespachar Acción que recibe el destino despachado, o null.
+     * @return Número de camiones despachados.
+     */
+    public CompletableFuture<Integer> despachar(MetricaDespacho metrica, Consumer<GuiaEnvio.Destino> alDespachar) {
+        return consultar(() -> {
+            synchronized (flota) {
+                int n = flota.despachar(destino, metrica);
+                if (alDespachar != null) alDespachar.accept(destino);
+                return n;
+            }
+        });
+    }
+
+    /**
+     * Pide una marca que termina cuando el actor ejecutó todos los comandos enviados antes.
+     *
+     * @return Futuro que termina al llegar la marca.
+     */
+    public CompletableFuture<Void> esperar() {
+        return consultar(() -> null);
+    }
+
+    /**
+     * Pide el número de cajas en la bodega.
+     *
+     * @return Cajas en bodega.
+     */
+    public CompletableFuture<Integer> cantidadCajas() {
+        return consultar(bodega::cantidadCajas);
+    }
+
+    /**
+     * Pide el número de camiones cargados que esperan despacho.
+     *
+     * @return Camiones cargados.
+     */
+    public CompletableFuture<Integer> camionesCargados() {
+        return consultar(() -> flota.cantidadCargados(destino));
+    }
+
+    /**
+     * Devuelve el destino del actor.
+     *
+     * @return Destino.
+     */
+    public GuiaEnvio.Destino getDestino() {
+        return destino;
+    }
+
+    /**
+     * Devuelve cuántos comandos esperan en el buzón.
+     *
+     * @return Comandos pendientes.
+     */
+    public int pendientes() {
+        return buzon.size();
+    }
+
+    /**
+     * Envía un comando cuyo resultado se entrega en un futuro.
+     * Si el comando lanza una excepción, el futuro termina con ella.
+     *
+     * @param <T> Tipo del resultado.
+     * @param comando Operación a ejecutar en el hilo del actor.
+     * @return Futuro con el resultado.
+     */
+    private <T> CompletableFuture<T> consultar(Supplier<T> comando) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        enviar(() -> {
+            try {
+                f.complete(comando.get());
+            } catch (RuntimeException e) {
+                f.completeExceptionally(e);
+            }
+        });
+        return f;
+    }
+
+    /**
+     * Deja un comando en el buzón y despierta al actor si está dormido.
+     *
+     * @param comando Comando a ejecutar.
+     * @throws IllegalStateException si el actor está cerrado o se interrumpe la espera.
+     */
+    private void enviar(Runnable comando) {
+        enviando.incrementAndGet();
+        try {
+            if (cerrado) throw new IllegalStateException("Destino " + destino + " cerrado");
+            buzon.put(comando);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Envio interrumpido", e);
+        } finally {
+            enviando.decrementAndGet();
+        }
+        if (dormido) LockSupport.unpark(hilo);
+    }
+
+    /**
+     * Ciclo del actor: ejecuta los comandos en orden y duerme cuando el buzón está vacío.
+     * Termina cuando el actor está cerrado, ningún envío sigue en curso y no quedan comandos.
+     */
+    private void atender() {
+        while (true) {
+            Runnable comando = buzon.poll();
+            if (comando != null) {
+                try {
+                    comando.run();
+                } catch (RuntimeException e) {
+                    Bitacora.get().error(() -> "Fallo un comando del destino " + destino + ": " + e);
+                }
+                continue;
+            }
+            if (cerrado && enviando.get() == 0 && buzon.isEmpty()) return;
+            dormido = true;
+            if (buzon.isEmpty() && !cerrado) LockSupport.parkNanos(this, 10_000_000L);
+            dormido = false;
+        }
+    }
+
+    /**
+     * Deja de aceptar comandos; los que ya se enviaron se siguen ejecutando.
+     */
+    void detener() {
+        cerrado = true;
+        LockSupport.unpark(hilo);
+    }
+
+    /**
+     * Deja de aceptar comandos, espera a que se ejecuten los pendientes y detiene el hilo.
+     */
+    @Override
+    public void close() {
+        detener();
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package cosas;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Proveedor de distancias con una tabla por destino y dirección del cliente.
+ * La primera vez que aparece una dirección se calcula su distancia con otro
+ * proveedor y se guarda; las siguientes guías a la misma dirección reutilizan
+ * el valor. También se pueden precargar distancias conocidas.
+ * Puede usarse desde varios hilos a la vez.
+ *
+ * @author piped
+ */
+public class TablaDistancias implements ProveedorDistancia {
+
+    /** Proveedor usado para las direcciones que no están en la tabla */
+    private final ProveedorDistancia calculo;
+
+    /** Distancia por dirección, una tabla por destino */
+    private final ConcurrentHashMap<String, Double>[] tablas;
+
+    /**
+     * Crea una tabla vacía que calcula las distancias faltantes con el proveedor dado.
+     *
+     * @param calculo Proveedor para direcciones nuevas.
+     */
+    public TablaDistancias(ProveedorDistancia calculo) {
+        this.calculo = calculo;
+        @SuppressWarnings("unchecked")
+        ConcurrentHashMap<String, Double>[] nuevas =
+                (ConcurrentHashMap<String, Double>[]) new ConcurrentHashMap<?, ?>[GuiaEnvio.Destino.values().length];
+        tablas = nuevas;
+        for (int i = 0; i < tablas.length; i++) {
+            tablas[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Guarda una distancia conocida para una dirección.
+     *
+     * @param destino Destino.
+     * @param direccion Dirección del cliente.
+     * @param distancia Distancia en kilómetros.
+     */
+    public void precargar(GuiaEnvio.Destino destino, String direccion, double distancia) {
+        tablas[destino.ordinal()].put(direccion, distancia);
+    }
+
+    /**
+     * Devuelve el número de direcciones guardadas para un destino.
+     *
+     * @param destino Destino.
+     * @return Número de direcciones.
+     */
+    public int size(GuiaEnvio.Destino destino) {
+        return tablas[destino.ordinal()].size();
+    }
+
+    /**
+     * Busca la distancia de la dirección del cliente, calculándola solo la primera vez.
+     * Si el cliente no tiene dirección, se calcula sin guardarla.
+     *
+     * @param destino Destino del envío.
+     * @param cliente Cliente del envío.
+     * @return Distancia en kilómetros.
+     */
+    @Override
+    public double distancia(GuiaEnvio.Destino destino, Cliente cliente) {
+        String direccion = cliente == null ? null : cliente.getDireccion();
+        if (direccion == null) return calculo.distancia(destino, cliente);
+        ConcurrentHashMap<String, Double> tabla = tablas[destino.ordinal()];
+        Double d = tabla.get(direccion);
+        if (d == null) {
+            d = tabla.computeIfAbsent(direccion, k -> calculo.distancia(destino, cliente));
+        }
+        return d;
+    }
+}
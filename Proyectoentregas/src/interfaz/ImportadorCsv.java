@@ -0,0 +1,271 @@
+package interfaz;
+
+import cosas.Caja;
+import cosas.Cliente;
+import cosas.GuiaEnvio;
+import cosas.RegistroClientes;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.ToIntFunction;
+import persistencia.Diario;
+import tdas.ColaAcotada;
+
+/**
+ * Importación masiva y no interactiva de cajas desde un archivo de texto.
+ * Cada línea describe una caja con los campos
+ * {@code altura,longitud,ancho,peso,idCliente,destino}, separados por coma,
+ * punto y coma o tabulador. El destino puede ser su número (0-4) o su nombre.
+ * Se ignoran las líneas vacías, las que empiezan con '#' y una cabecera: la primera
+ * línea restante, si no empieza con un número.
+ *
+ * El archivo se lee línea por línea con un lector con búfer, así que la memoria
+ * usada no depende del tamaño del archivo. Cada caja pasa por las mismas reglas
+ * que el registro por consola: cliente existente y peso facturado de máximo 4000 kg.
+ *
+ * La cola de ingreso es acotada. Si se da una acción de vaciado, cuando la cola se
+ * llena se vacía con ella (por ejemplo enrutando las cajas a sus bodegas) y la fila se
+ * vuelve a encolar, así que un archivo más grande que la cola se importa completo. Sin
+ * acción de vaciado las filas que no caben se cuentan como cola llena.
+ *
+ * @author piped
+ */
+public class ImportadorCsv {
+
+    /** Tamaño del búfer de lectura */
+    private static final int TAMANO_BUFER = 1 << 16;
+
+    private RegistroClientes clientes;
+    private ColaAcotada<Caja> cola;
+    private Diario diario;
+    private ToIntFunction<ColaAcotada<Caja>> vaciado;
+
+    /**
+     * Crea un importador que encola en la cola dada, sin vaciarla cuando se llena.
+     *
+     * @param clientes Registro donde se buscan los clientes.
+     * @param cola Cola de ingreso.
+     * @param diario Diario donde se anota cada caja después de encolarla, o null para no anotarlas.
+     */
+    public ImportadorCsv(RegistroClientes clientes, ColaAcotada<Caja> cola, Diario diario) {
+        this(clientes, cola, diario, null);
+    }
+
+    /**
+     * Crea un importador que encola en la cola dada y la vacía cuando se llena.
+     *
+     * @param clientes Registro donde se buscan los clientes.
+     * @param cola Cola de ingreso.
+     * @param diario Diario donde se anota cada caja después de encolarla, o null para no anotarlas.
+     * @param vaciado Acción que retira cajas de la cola llena y devuelve cuántas retiró,
+     * o null para no vaciarla. Si hay diario, la acción también debe anotar lo que retira.
+     */
+    public ImportadorCsv(RegistroClientes clientes, ColaAcotada<Caja> cola, Diario diario,
+            ToIntFunction<ColaAcotada<Caja>> vaciado) {
+        this.clientes = clientes;
+        this.cola = cola;
+        this.diario = diario;
+        this.vaciado = vaciado;
+    }
+
+    /**
+     * Importa todas las cajas del archivo.
+     *
+     * @param archivo Ruta del archivo.
+     * @return Resumen de la importación.
+     * @throws IOException si no se puede leer el archivo.
+     */
+    public Resultado importar(Path archivo) throws IOException {
+        Resultado r = new Resultado();
+        long inicio = System.nanoTime();
+        String prefijoGuia = "G" + System.currentTimeMillis() + "-";
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(archivo), StandardCharsets.UTF_8), TAMANO_BUFER)) {
+            String linea;
+            long numero = 0;
+            boolean primera = true;
+            while ((linea = in.readLine()) != null) {
+                numero++;
+                linea = linea.trim();
+                if (linea.isEmpty() || linea.charAt(0) == '#') continue;
+                if (primera) {
+                    primera = false;
+                    if (!Character.isDigit(linea.charAt(0))) continue; // cabecera
+                }
+                r.filas++;
+                procesarFila(linea, prefijoGuia + numero, r);
+            }
+        }
+        r.nanos = System.nanoTime() - inicio;
+        return r;
+    }
+
+    /**
+     * Convierte una fila en caja y la encola si cumple las reglas.
+     *
+     * @param linea Fila del archivo.
+     * @param idGuia ID de la guía a crear.
+     * @param r Resumen donde se cuenta el resultado.
+     */
+    private void procesarFila(String linea, String idGuia, Resultado r) {
+        String[] campos = new String[6];
+        int n = 0, desde = 0;
+        for (int i = 0; i <= linea.length() && n < campos.length; i++) {
+            if (i == linea.length() || esSeparador(linea.charAt(i))) {
+                campos[n++] = linea.substring(desde, i).trim();
+                desde = i + 1;
+            }
+        }
+        if (n < campos.length) {
+            r.invalidas++;
+            return;
+        }
+        Caja c;
+        GuiaEnvio.Destino d;
+        try {
+            c = new Caja(Double.parseDouble(campos[0]), Double.parseDouble(campos[1]),
+                    Double.parseDouble(campos[2]), Double.parseDouble(campos[3]));
+            d = leerDestino(campos[5]);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            r.invalidas++;
+            return;
+        }
+        Cliente cli = clientes.buscar(campos[4]);
+        if (cli == null) {
+            r.sinCliente++;
+            return;
+        }
+        double pesoFacturado = c.getPesoFacturado();
+        if (pesoFacturado > GuiaEnvio.PESO_MAXIMO_VOLUMETRICO) {
+            r.excedidas++;
+            return;
+        }
+        GuiaEnvio g = new GuiaEnvio(idGuia, cli, d);
+        g.calcularCostos(pesoFacturado);
+        c.setGuia(g);
+        if (!encolar(c, r)) {
+            r.colaLlena++;
+            return;
+        }
+        if (diario != null) diario.registrarEncolado(c);
+        r.encoladas++;
+    }
+
+    /**
+     * Encola una caja; si la cola está llena y hay acción de vaciado, la vacía y
+     * vuelve a intentar mientras la acción retire cajas.
+     *
+     * @param c Caja a encolar.
+     * @param r Resumen donde se cuentan las cajas vaciadas.
+     * @return true si la caja quedó encolada.
+     */
+    private boolean encolar(Caja c, Resultado r) {
+        while (!cola.offer(c)) {
+            int n = vaciado == null ? 0 : vaciado.applyAsInt(cola);
+            if (n == 0) return false;
+            r.vaciadas += n;
+        }
+        return true;
+    }
+
+    /**
+     * Indica si un carácter separa campos.
+     *
+     * @param ch Carácter.
+     * @return true si es coma, punto y coma o tabulador.
+     */
+    private static boolean esSeparador(char ch) {
+        return ch == ',' || ch == ';' || ch == '\t';
+    }
+
+    /**
+     * Interpreta un destino por número o por nombre.
+     *
+     * @param s Texto del destino.
+     * @return Destino.
+     * @throws IllegalArgumentException si el destino no existe.
+     */
+    private static GuiaEnvio.Destino leerDestino(String s) {
+        if (!s.isEmpty() && Character.isDigit(s.charAt(0)))
+            return GuiaEnvio.Destino.values()[Integer.parseInt(s)];
+        return GuiaEnvio.Destino.valueOf(s.toUpperCase());
+    }
+
+    /**
+     * Resumen de una importación.
+     */
+    public static class Resultado {
+        /** Filas de datos leídas */
+        private long filas;
+        /** Cajas encoladas */
+        private long encoladas;
+        /** Filas con formato inválido */
+        private long invalidas;
+        /** Filas cuyo cliente no existe */
+        private long sinCliente;
+        /** Cajas rechazadas por superar 4000 kg facturados */
+        private long excedidas;
+        /** Cajas no encoladas porque la cola estaba llena */
+        private long colaLlena;
+        /** Cajas retiradas de la cola al vaciarla durante la importación */
+        private long vaciadas;
+        /** Duración de la importación en nanosegundos */
+        private long nanos;
+
+        /**
+         * Devuelve el número de filas de datos leídas.
+         *
+         * @return Filas leídas.
+         */
+        public long getFilas() {
+            return filas;
+        }
+
+        /**
+         * Devuelve el número de cajas encoladas.
+         *
+         * @return Cajas encoladas.
+         */
+        public long getEncoladas() {
+            return encoladas;
+        }
+
+        /**
+         * Devuelve el número de cajas no encoladas porque la cola estaba llena.
+         *
+         * @return Cajas rechazadas por cola llena.
+         */
+        public long getColaLlena() {
+            return colaLlena;
+        }
+
+        /**
+         * Devuelve el número de cajas retiradas de la cola al vaciarla durante la importación.
+         *
+         * @return Cajas vaciadas.
+         */
+        public long getVaciadas() {
+            return vaciadas;
+        }
+
+        /**
+         * Devuelve la velocidad de la importación.
+         *
+         * @return Filas procesadas por segundo.
+         */
+        public double getFilasPorSegundo() {
+            return nanos == 0 ? 0 : filas * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Filas=%d, encoladas=%d, invalidas=%d, sin cliente=%d, "
+                    + "exceden 4000 kg=%d, cola llena=%d, enviadas a bodega=%d, tiempo=%.2f s, filas/s=%.0f",
+                    filas, encoladas, invalidas, sinCliente, excedidas, colaLlena, vaciadas,
+                    nanos / 1e9, getFilasPorSegundo());
+        }
+    }
+}
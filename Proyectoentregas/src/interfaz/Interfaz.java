@@ -1,8 +1,13 @@
 package interfaz;
 
 import tdas.*;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Scanner;
 import cosas.*;
+import bitacora.Bitacora;
+import persistencia.Estado;
+import persistencia.Persistencia;
 
 /**
  * Clase principal que actúa como interfaz de usuario para gestionar el
@@ -10,26 +15,54 @@ import cosas.*;
  * camiones y métricas de despacho mediante una consola interactiva.
  */
 public class Interfaz {
-    private static Queue<Caja> cola = new Queue<>();
-    private static Bodega[] bodegas = new Bodega[5];
-    private static Camion[] camiones = new Camion[5];
-    private static List<Cliente> clientes = new List<>();
-    private static MetricaDespacho metricaDespacho = new MetricaDespacho();
+    /**
+     * Capacidad de la cola de ingreso; se puede cambiar con {@code -Dingreso.capacidad=N}.
+     * Con la cola llena se rechazan las cajas nuevas hasta procesar las encoladas.
+     */
+    private static final int CAPACIDAD_COLA = Integer.getInteger("ingreso.capacidad", 1 << 16);
+    private static final String DIRECTORIO_DATOS = "datos";
+    private static ColaAcotada<Caja> cola;
+    private static Flota flota;
+    private static RegistroClientes clientes;
+    private static MetricaDespacho metricaDespacho;
+    /** Actores dueños de las bodegas; después de recuperar el estado solo ellos las modifican */
+    private static CentroDistribucion centro;
+    private static EnrutadorLotes enrutador;
+    private static DespachadorAutomatico despachador;
+    private static Persistencia persistencia;
+    private static Estado estado;
     private static Scanner sc = new Scanner(System.in);
 
     /**
-     * Método principal que inicia el menú de interacción con el usuario.
+     * Método principal que recupera el estado guardado e inicia el menú de interacción con el usuario.
+     * Con los argumentos {@code --importar archivo...} importa las cajas de los archivos sin
+     * mostrar el menú y termina.
      */
-    public static void main(String[] args) {
-        for (int i = 0; i < GuiaEnvio.Destino.values().length; i++) {
-            bodegas[i] = new Bodega(GuiaEnvio.Destino.values()[i]);
-            camiones[i] = new Camion(GuiaEnvio.Destino.values()[i]);
+    public static void main(String[] args) throws IOException {
+        instalarTablaDistancias();
+        persistencia = new Persistencia(Paths.get(DIRECTORIO_DATOS), Persistencia.EVENTOS_POR_INSTANTANEA);
+        estado = persistencia.recuperar(CAPACIDAD_COLA, prioridadIngreso());
+        cola = estado.getCola();
+        flota = estado.getFlota();
+        clientes = estado.getClientes();
+        metricaDespacho = estado.getMetrica();
+        if (args.length > 0 && args[0].equals("--importar")) {
+            importar(args);
+            persistencia.tomarInstantanea(estado);
+            persistencia.cerrar();
+            return;
         }
+        centro = new CentroDistribucion(estado.getBodegas(), flota);
+        enrutador = new EnrutadorLotes(centro);
+        despachador = new DespachadorAutomatico(flota, metricaDespacho,
+                DespachadorAutomatico.PERIODO_POR_DEFECTO, DespachadorAutomatico.ESPERA_MAXIMA_POR_DEFECTO,
+                d -> persistencia.getDiario().registrarDespachoAutomatico(d));
         boolean salir = false;
         while (!salir) {
+            Bitacora.get().vaciar();
             System.out.println("--- Menu Principal---\n"
                     + "1-Encolar \n"
-                    + "2-Mostrar cola\n"
+                    + "2-Mostrar cola (capacidad " + cola.capacity() + ")\n"
                     + "3-Procesar\n"
                     + "4-Mostrar bodega\n"
                     + "5-Ordenar bodega\n"
@@ -39,11 +72,13 @@ public class Interfaz {
                     + "9-Agregar cliente \n"
                     + "10-Mostrar clientes \n"
                     + "11-Mostrar Metricas \n"
-                    + "12-Salir");
+                    + "12-Procesar todo\n"
+                    + "13-Priorizar caja en cola\n"
+                    + "14-Salir");
             int opt = sc.nextInt(); sc.nextLine();
             switch(opt) {
                 case 1: encolarCaja(); break;
-                case 2: System.out.println("Cajas en cola=" + cola.size()); break;
+                case 2: System.out.println("Cajas en cola=" + cola.size() + " de " + cola.capacity()); break;
                 case 3: procesarSiguiente(); break;
                 case 4: mostrarBodega(); break;
                 case 5: ordenarBodega(); break;
@@ -53,12 +88,69 @@ public class Interfaz {
                 case 9: agregarCliente(); break;
                 case 10: mostrarClientes(); break;
                 case 11: mostrarMetricas(); break;
-                case 12: salir = true; break;
+                case 12: procesarTodo(); break;
+                case 13: priorizarCaja(); break;
+                case 14: salir = true; break;
+            }
+            centro.esperar();
+            synchronized (flota) {
+                persistencia.instantaneaSiCorresponde(estado);
             }
         }
+        despachador.close();
+        centro.close();
+        persistencia.tomarInstantanea(estado);
+        persistencia.cerrar();
+        Bitacora.get().close();
         System.out.println("Fin aplicacion.");
     }
 
+    /**
+     * Hace que las guías nuevas tomen su distancia de una {@link TablaDistancias}, de modo
+     * que los envíos a una misma dirección reutilizan la distancia ya calculada. Se puede
+     * desactivar con {@code -Ddistancia.tabla=false}.
+     */
+    private static void instalarTablaDistancias() {
+        if (!Boolean.parseBoolean(System.getProperty("distancia.tabla", "true"))) return;
+        GuiaEnvio.setProveedorDistancia(new TablaDistancias(GuiaEnvio.getProveedorDistancia()));
+    }
+
+    /**
+     * Lee la propiedad {@code ingreso.prioridad} (distancia, valor o mixta) que elige
+     * el orden de la cola de ingreso. Sin la propiedad, o con "fifo", la cola atiende
+     * en orden de llegada.
+     *
+     * @return Llave de prioridad, o null para atender en orden de llegada.
+     */
+    private static PrioridadIngreso prioridadIngreso() {
+        String p = System.getProperty("ingreso.prioridad", "fifo");
+        return p.equalsIgnoreCase("fifo") ? null : PrioridadIngreso.valueOf(p.toUpperCase());
+    }
+
+    /**
+     * Importa las cajas de cada archivo indicado después de {@code --importar}.
+     * Cuando la cola de ingreso se llena, sus cajas se enrutan a las bodegas y la
+     * importación sigue; las que quedan en la cola al terminar esperan el siguiente
+     * procesamiento.
+     *
+     * @param args Argumentos del programa.
+     * @throws IOException si no se puede leer un archivo.
+     */
+    private static void importar(String[] args) throws IOException {
+        try (CentroDistribucion actores = new CentroDistribucion(estado.getBodegas(), flota)) {
+            EnrutadorLotes lotes = new EnrutadorLotes(actores);
+            ImportadorCsv importador = new ImportadorCsv(clientes, cola, persistencia.getDiario(), q -> {
+                int n = lotes.procesarTodo(q);
+                if (n > 0) persistencia.getDiario().registrarEnrutado(n);
+                return n;
+            });
+            for (int i = 1; i < args.length; i++) {
+                System.out.println("Importando " + args[i]);
+                System.out.println(importador.importar(Paths.get(args[i])));
+            }
+        }
+    }
+
     /**
      * Permite agregar un cliente de forma manual o automática.
      */
@@ -66,11 +158,11 @@ public class Interfaz {
         System.out.println("1.Agregar manual \n" + "2.Agregar aleatorio \n");
         int opt = sc.nextInt(); sc.nextLine();
         switch(opt) {
-            case 1: agregarClienteManual();
-                    System.out.println("Cliente agregado");
+            case 1: if (agregarClienteManual()) System.out.println("Cliente agregado");
+                    else System.out.println("Ya existe un cliente con ese ID.");
                     break;
-            case 2: agregarClienteAleatorio();
-                    System.out.println("Cliente agregado");
+            case 2: if (agregarClienteAleatorio()) System.out.println("Cliente agregado");
+                    else System.out.println("No se encontro un ID libre para el cliente.");
                     break;
         }
     }
@@ -86,21 +178,41 @@ public class Interfaz {
 
     /**
      * Agrega un cliente con datos ingresados por el usuario.
+     *
+     * @return true si se agregó, false si el ID ya estaba registrado.
      */
-    private static void agregarClienteManual(){
+    private static boolean agregarClienteManual(){
         System.out.println("Ingrese ID"); String id = sc.nextLine();
         System.out.println("Ingrese nombre"); String nombre = sc.nextLine();
         System.out.println("Ingrese telefono"); String tel = sc.nextLine();
         System.out.println("Ingrese email"); String email = sc.nextLine();
         System.out.println("Ingrese dirección"); String dir = sc.nextLine();
-        clientes.addFirst(new Cliente(id, nombre, tel, email, dir));
+        return registrarCliente(new Cliente(id, nombre, tel, email, dir));
     }
 
     /**
      * Agrega un cliente con datos generados aleatoriamente.
+     * Si el ID generado ya existe, se genera otro cliente, hasta un número limitado de intentos.
+     *
+     * @return true si se agregó, false si no se encontró un ID libre.
      */
-    private static void agregarClienteAleatorio(){
-        clientes.addFirst(new Cliente(true));
+    private static boolean agregarClienteAleatorio(){
+        for (int intento = 0; intento < 100; intento++) {
+            if (registrarCliente(new Cliente(true))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Registra un cliente y anota el alta en el diario.
+     *
+     * @param c Cliente a registrar.
+     * @return true si se registró, false si el ID ya existía.
+     */
+    private static boolean registrarCliente(Cliente c) {
+        if (!clientes.agregar(c)) return false;
+        persistencia.getDiario().registrarCliente(c);
+        return true;
     }
 
     /**
@@ -115,13 +227,7 @@ public class Interfaz {
         System.out.println("Ingrese el id del cliente"); 
         String id = sc.nextLine();
 
-        Cliente cli = null;
-        for (Cliente unCliente : clientes) {
-            if (unCliente.getId().equalsIgnoreCase(id)) {
-                cli = unCliente;
-                break;
-            }
-        }
+        Cliente cli = clientes.buscar(id);
         if (cli == null) {
             System.out.println("ID de cliente no encontrado. No se puede encolar la caja.");
             return;
@@ -146,20 +252,66 @@ public class Interfaz {
         GuiaEnvio g = new GuiaEnvio("G" + System.currentTimeMillis(), cli, GuiaEnvio.Destino.values()[d]);
         g.calcularCostos(pesoFacturado);
         c.setGuia(g);
-        cola.enqueue(c);
+        if (!cola.offer(c)) {
+            System.out.println("La cola de ingreso esta llena. No se puede encolar la caja (capacidad " + cola.capacity() + ", ver -Dingreso.capacidad).");
+            return;
+        }
+        persistencia.getDiario().registrarEncolado(c);
         System.out.println("Caja encolada correctamente: " + c);
     }
 
+    /**
+     * Adelanta una caja de la cola de ingreso bajando su prioridad.
+     * Solo está disponible cuando la cola está ordenada por prioridad.
+     */
+    private static void priorizarCaja() {
+        if (!(cola instanceof ColaPrioridad)) {
+            System.out.println("La cola atiende en orden de llegada. Inicie con -Dingreso.prioridad=distancia|valor|mixta.");
+            return;
+        }
+        ColaPrioridad<Caja> prioridades = (ColaPrioridad<Caja>) cola;
+        System.out.println("Ingrese el id de la guia"); 
+        String id = sc.nextLine();
+        ColaPrioridad.Entrada<Caja> e = prioridades.buscar(c -> c.getGuia().getIdCaja().equals(id));
+        if (e == null) {
+            System.out.println("La caja no esta en la cola.");
+            return;
+        }
+        System.out.print("Prioridad actual " + e.getPrioridad() + " (sale primero la menor). Nueva prioridad: ");
+        double p = sc.nextDouble(); sc.nextLine();
+        if (p > e.getPrioridad()) {
+            System.out.println("La prioridad solo puede bajar.");
+            return;
+        }
+        if (!prioridades.priorizar(e, p)) {
+            System.out.println("La caja ya salio de la cola.");
+            return;
+        }
+        persistencia.getDiario().registrarPriorizado(id, p);
+        System.out.println("Caja priorizada: " + e.getItem());
+    }
+
     /**
      * Procesa la siguiente caja en la cola y la envía a la bodega correspondiente.
      */
     private static void procesarSiguiente() {
-        Caja c = cola.dequeue();
+        Caja c = cola.poll();
         if (c == null) { 
             System.out.println("Cola vacia"); 
             return; 
         }
-        bodegas[c.getGuia().getDestino().ordinal()].recibirCaja(c);
+        centro.recibir(c);
+        persistencia.getDiario().registrarEnrutado(1);
+    }
+
+    /**
+     * Procesa todas las cajas en cola, enviándolas por lotes a sus bodegas en paralelo.
+     */
+    private static void procesarTodo() {
+        long inicio = System.nanoTime();
+        int n = enrutador.procesarTodo(cola);
+        if (n > 0) persistencia.getDiario().registrarEnrutado(n);
+        System.out.printf("Cajas procesadas: %d en %.1f ms%n", n, (System.nanoTime() - inicio) / 1e6);
     }
 
     /**
@@ -173,10 +325,12 @@ public class Interfaz {
                 +"3- BODEGA-OCCIDENTE\n" 
                 +"4- BODEGA-CENTRO\n "); 
         int d = sc.nextInt();
-        if (bodegas[d].getAlmacen().isEmpty()) {
+        ShardDestino shard = centro.getDestino(GuiaEnvio.Destino.values()[d]);
+        if (shard.cantidadCajas().join() == 0) {
             System.out.println("La bodega esta vacia.");
         } else {
-            bodegas[d].mostrarCajas();
+            System.out.println("--- Bodega " + shard.getDestino() + " ---");
+            shard.vista().join().forEach(System.out::println);
         }
     }
 
@@ -191,11 +345,11 @@ public class Interfaz {
                 +"3- BODEGA-OCCIDENTE\n" 
                 +"4- BODEGA-CENTRO\n "); 
         int d = sc.nextInt();
-        bodegas[d].ordenarPorDistancia();
+        centro.getDestino(GuiaEnvio.Destino.values()[d]).ordenar().join();
     }
 
     /**
-     * Carga todas las cajas de una bodega a su camión correspondiente.
+     * Carga las cajas de una bodega en los camiones de la flota de su destino.
      */
     private static void cargarCamion() {
         System.out.print("---Cargar Camion---\n"
@@ -205,16 +359,14 @@ public class Interfaz {
                 +"3- CAMION-OCCIDENTE\n" 
                 +"4- CAMION-CENTRO\n "); 
         int d = sc.nextInt();
-        List<Caja> almacen = bodegas[d].getAlmacen();
-        for (int i = almacen.size() - 1; i >= 0; i--){
-            Caja caja = almacen.get(i);
-            camiones[d].cargarCaja(caja);
-            almacen.remove(i);
-        }
+        ShardDestino shard = centro.getDestino(GuiaEnvio.Destino.values()[d]);
+        int cargados = shard.cargar(dest -> persistencia.getDiario().registrarCarga(dest)).join();
+        System.out.println("Camiones cargados: " + cargados
+                + ". Cajas que quedan en bodega: " + shard.cantidadCajas().join());
     }
 
     /**
-     * Muestra las cajas cargadas en un camión.
+     * Muestra las cajas cargadas en los camiones de un destino.
      */
     private static void mostrarCamion() {
         System.out.print("---MOSTRAR CAMION---\n"
@@ -224,11 +376,17 @@ public class Interfaz {
                 +"3- CAMION-OCCIDENTE\n" 
                 +"4- CAMION-CENTRO\n "); 
         int d = sc.nextInt();
-        camiones[d].mostrarCarga();
+        List<Camion> cargados = flota.getCargados(GuiaEnvio.Destino.values()[d]);
+        if (cargados.isEmpty()) {
+            System.out.println("No hay camiones cargados.");
+        }
+        for (Camion camion : cargados) {
+            camion.mostrarCarga();
+        }
     }
 
     /**
-     * Despacha un camión, actualizando las métricas de despacho.
+     * Despacha los camiones cargados de un destino, actualizando las métricas de despacho.
      */
     private static void despacharCamion() {
         System.out.print("---DESPACHAR CAMION---\n"
@@ -239,19 +397,9 @@ public class Interfaz {
                 + "4- CAMION-CENTRO\n ");
         int d = sc.nextInt();
         sc.nextLine();
-        Camion camion = camiones[d];
-
-        double pesoVolumetrico = camion.calcularPesoVolumetrico();
-        float pesoFacturado = (float) camion.calcularPesoFacturado();
-        int numeroCajas = camion.obtenerNumeroCajas();
-
-        boolean despachado = camion.despachar();
-
-        if (despachado) {
-            metricaDespacho.agregarPesoVolumetrico(pesoVolumetrico);
-            metricaDespacho.agregarPesoFacturado(pesoFacturado * 3);
-            metricaDespacho.agregarNumeroCajas(numeroCajas);
-        }
+        int despachados = centro.getDestino(GuiaEnvio.Destino.values()[d])
+                .despachar(metricaDespacho, dest -> persistencia.getDiario().registrarDespacho(dest)).join();
+        System.out.println("Camiones despachados: " + despachados);
     }
 
     /**
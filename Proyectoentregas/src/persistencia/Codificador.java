@@ -0,0 +1,113 @@
+package persistencia;
+
+import cosas.Caja;
+import cosas.Cliente;
+import cosas.GuiaEnvio;
+import cosas.RegistroClientes;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Conversión binaria de clientes y cajas, compartida por el diario y las instantáneas.
+ *
+ * @author piped
+ */
+class Codificador {
+
+    private Codificador() {
+    }
+
+    /**
+     * Escribe un texto que puede ser null.
+     *
+     * @param out Salida binaria.
+     * @param s Texto a escribir.
+     * @throws IOException si falla la escritura.
+     */
+    static void escribirTexto(DataOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    /**
+     * Lee un texto escrito con {@link #escribirTexto}.
+     *
+     * @param in Entrada binaria.
+     * @return Texto leído, o null.
+     * @throws IOException si falla la lectura.
+     */
+    static String leerTexto(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Escribe todos los datos de un cliente.
+     *
+     * @param out Salida binaria.
+     * @param c Cliente a escribir.
+     * @throws IOException si falla la escritura.
+     */
+    static void escribirCliente(DataOutput out, Cliente c) throws IOException {
+        escribirTexto(out, c.getId());
+        escribirTexto(out, c.getNombre());
+        escribirTexto(out, c.getTelefono());
+        escribirTexto(out, c.getEmail());
+        escribirTexto(out, c.getDireccion());
+    }
+
+    /**
+     * Lee un cliente escrito con {@link #escribirCliente}.
+     *
+     * @param in Entrada binaria.
+     * @return Cliente leído.
+     * @throws IOException si falla la lectura.
+     */
+    static Cliente leerCliente(DataInput in) throws IOException {
+        return new Cliente(leerTexto(in), leerTexto(in), leerTexto(in), leerTexto(in), leerTexto(in));
+    }
+
+    /**
+     * Escribe una caja y su guía; el cliente se guarda solo por su ID.
+     *
+     * @param out Salida binaria.
+     * @param c Caja a escribir.
+     * @throws IOException si falla la escritura.
+     */
+    static void escribirCaja(DataOutput out, Caja c) throws IOException {
+        out.writeDouble(c.getAltura());
+        out.writeDouble(c.getLongitud());
+        out.writeDouble(c.getAncho());
+        out.writeDouble(c.getPesoReal());
+        GuiaEnvio g = c.getGuia();
+        out.writeBoolean(g != null);
+        if (g != null) {
+            escribirTexto(out, g.getIdCaja());
+            escribirTexto(out, g.getCliente() == null ? null : g.getCliente().getId());
+            out.writeByte(g.getDestino().ordinal());
+            out.writeDouble(g.getDistanciaAprox());
+            out.writeDouble(g.getPesoFacturado());
+        }
+    }
+
+    /**
+     * Lee una caja escrita con {@link #escribirCaja}, resolviendo su cliente en el registro.
+     *
+     * @param in Entrada binaria.
+     * @param clientes Registro donde se busca el cliente de la guía.
+     * @return Caja leída, con su guía si la tenía.
+     * @throws IOException si falla la lectura.
+     */
+    static Caja leerCaja(DataInput in, RegistroClientes clientes) throws IOException {
+        Caja c = new Caja(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+        if (in.readBoolean()) {
+            String idCaja = leerTexto(in);
+            Cliente cli = clientes.buscar(leerTexto(in));
+            GuiaEnvio.Destino d = GuiaEnvio.Destino.values()[in.readByte()];
+            GuiaEnvio g = new GuiaEnvio(idCaja, cli, d, in.readDouble());
+            g.calcularCostos(in.readDouble());
+            c.setGuia(g);
+        }
+        return c;
+    }
+}
@@ -0,0 +1,491 @@
+package persistencia;
+
+import cosas.Caja;
+import cosas.Cliente;
+import cosas.GuiaEnvio;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de eventos de solo agregado.
+ * Cada evento del sistema (cliente, encolado, enrutado, carga y despacho)
+ * se codifica como un registro {@code [largo][tipo][datos][crc32]}.
+ *
+ * Los registros se acumulan en memoria y un hilo escritor los envía al archivo
+ * por lotes, con un solo fsync por lote (group commit). Registrar un evento solo
+ * codifica unos bytes y los copia en el búfer, por lo que el costo en la ruta de
+ * ingreso es de microsegundos; quien necesite garantizar durabilidad puede llamar a
+ * {@link #sincronizar(long)} con el número devuelto. El búfer pendiente tiene un
+ * límite de bytes: si el disco no alcanza a escribir, quien registra espera a que
+ * se vacíe en lugar de hacer crecer la memoria sin control.
+ *
+ * Cada registro se codifica completo en un búfer aparte y solo entonces se agrega
+ * al lote, así que un error al codificar no deja registros a medias.
+ *
+ * Los eventos se registran después de aplicarlos, y en el mismo orden en que se
+ * aplican. La garantía es de a lo sumo una vez: al recuperar nunca se repite un
+ * evento que no ocurrió, pero si el proceso se detiene antes del siguiente fsync
+ * se pierden los últimos eventos.
+ *
+ * @author piped
+ */
+public class Diario implements AutoCloseable {
+
+    /** Tipo de registro: alta de cliente */
+    static final byte CLIENTE = 1;
+
+    /** Tipo de registro: caja encolada */
+    static final byte ENCOLADO = 2;
+
+    /** Tipo de registro: cajas enrutadas de la cola a sus bodegas */
+    static final byte ENRUTADO = 3;
+
+    /** Tipo de registro: bodega cargada en camiones */
+    static final byte CARGA = 4;
+
+    /** Tipo de registro: camiones de un destino despachados */
+    static final byte DESPACHO = 5;
+
+    /** Tipo de registro: despacho automático de un destino, que puede incluir camiones con espera vencida */
+    static final byte DESPACHO_AUTOMATICO = 6;
+
+    /** Tipo de registro: caja de la cola de ingreso adelantada con una prioridad menor */
+    static final byte PRIORIZADO = 7;
+
+    /** Límite por defecto de bytes pendientes de escribir */
+    public static final int LIMITE_PENDIENTE = 8 << 20;
+
+    /** Canal del archivo del diario */
+    private final FileChannel canal;
+
+    /** Candado que protege los búferes y los contadores */
+    private final Object lock = new Object();
+
+    /** Lote que recibe los registros nuevos */
+    private Lote pendiente = new Lote();
+
+    /** Lote libre para el siguiente intercambio */
+    private Lote reserva = new Lote();
+
+    /** Bytes pendientes a partir de los cuales quien registra espera al escritor */
+    private final int limitePendiente;
+
+    /** Búfer donde cada hilo codifica un registro antes de agregarlo al lote */
+    private final ThreadLocal<Registro> borradores = ThreadLocal.withInitial(Registro::new);
+
+    /** Número del último registro agregado */
+    private long agregados;
+
+    /** Número del último registro escrito y sincronizado en disco */
+    private long durables;
+
+    /** Registros agregados desde la apertura del diario */
+    private long eventos;
+
+    /** Indica que el diario se está cerrando */
+    private boolean cerrado;
+
+    /** Error de escritura del hilo escritor, si lo hubo */
+    private IOException falla;
+
+    /** Hilo que escribe los lotes y hace fsync */
+    private final Thread escritor;
+
+    /**
+     * Abre (o crea) el diario en la ruta dada y agrega registros al final.
+     *
+     * @param archivo Ruta del archivo del diario.
+     * @throws IOException si no se puede abrir el archivo.
+     */
+    public Diario(Path archivo) throws IOException {
+        this(archivo, LIMITE_PENDIENTE);
+    }
+
+    /**
+     * Abre (o crea) el diario en la ruta dada con un límite de bytes pendientes.
+     *
+     * @param archivo Ruta del archivo del diario.
+     * @param limitePendiente Bytes pendientes a partir de los cuales registrar espera.
+     * @throws IOException si no se puede abrir el archivo.
+     */
+    public Diario(Path archivo, int limitePendiente) throws IOException {
+        if (limitePendiente < 1)
+            throw new IllegalArgumentException("Limite invalido: " + limitePendiente);
+        this.limitePendiente = limitePendiente;
+        canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        escritor = new Thread(this::escribirLotes, "diario-escritor");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Registra el alta de un cliente.
+     *
+     * @param c Cliente registrado.
+     * @return Número del registro.
+     */
+    public long registrarCliente(Cliente c) {
+        return registrar(CLIENTE, out -> Codificador.escribirCliente(out, c));
+    }
+
+    /**
+     * Registra una caja encolada en la cola de ingreso.
+     *
+     * @param c Caja encolada, con su guía.
+     * @return Número del registro.
+     */
+    public long registrarEncolado(Caja c) {
+        return registrar(ENCOLADO, out -> Codificador.escribirCaja(out, c));
+    }
+
+    /**
+     * Registra que se retiraron cajas de la cola y se enviaron a sus bodegas.
+     *
+     * @param cantidad Número de cajas enrutadas.
+     * @return Número del registro.
+     */
+    public long registrarEnrutado(int cantidad) {
+        return registrar(ENRUTADO, out -> out.writeInt(cantidad));
+    }
+
+    /**
+     * Registra que una caja de la cola de ingreso recibió una prioridad menor.
+     *
+     * @param idCaja ID de la guía de la caja.
+     * @param prioridad Nueva prioridad.
+     * @return Número del registro.
+     */
+    public long registrarPriorizado(String idCaja, double prioridad) {
+        return registrar(PRIORIZADO, out -> {
+            Codificador.escribirTexto(out, idCaja);
+            out.writeDouble(prioridad);
+        });
+    }
+
+    /**
+     * Registra la carga de la bodega de un destino en camiones.
+     *
+     * @param d Destino cargado.
+     * @return Número del registro.
+     */
+    public long registrarCarga(GuiaEnvio.Destino d) {
+        return registrarDestino(CARGA, d);
+    }
+
+    /**
+     * Registra el despacho de los camiones cargados de un destino.
+     *
+     * @param d Destino despachado.
+     * @return Número del registro.
+     */
+    public long registrarDespacho(GuiaEnvio.Destino d) {
+        return registrarDestino(DESPACHO, d);
+    }
+
+    /**
+     * Registra un despacho automático de los camiones de un destino.
+     *
+     * @param d Destino despachado.
+     * @return Número del registro.
+     */
+    public long registrarDespachoAutomatico(GuiaEnvio.Destino d) {
+        return registrarDestino(DESPACHO_AUTOMATICO, d);
+    }
+
+    /**
+     * Registra un evento cuyo único dato es un destino.
+     *
+     * @param tipo Tipo de registro.
+     * @param d Destino.
+     * @return Número del registro.
+     */
+    private long registrarDestino(byte tipo, GuiaEnvio.Destino d) {
+        return registrar(tipo, out -> out.writeByte(d.ordinal()));
+    }
+
+    /**
+     * Codifica un registro completo en el borrador del hilo y lo agrega al lote
+     * pendiente. Si el lote ya alcanzó el límite de bytes, espera a que el hilo
+     * escritor lo tome.
+     *
+     * @param tipo Tipo de registro.
+     * @param datos Codificación de los datos del registro.
+     * @return Número del registro.
+     * @throws UncheckedIOException si falla la codificación o hubo un error de escritura.
+     * @throws IllegalStateException si el diario está cerrado.
+     */
+    private long registrar(byte tipo, Datos datos) {
+        Registro r = borradores.get();
+        try {
+            r.codificar(tipo, datos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (lock) {
+            while (pendiente.size() > 0 && pendiente.size() + r.size() > limitePendiente
+                    && falla == null && !cerrado) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Registro interrumpido", e);
+                }
+            }
+            if (falla != null) throw new UncheckedIOException(falla);
+            if (cerrado) throw new IllegalStateException("Diario cerrado");
+            r.copiarA(pendiente);
+            eventos++;
+            agregados++;
+            lock.notifyAll();
+            return agregados;
+        }
+    }
+
+    /**
+     * Espera hasta que el registro indicado (y todos los anteriores) estén en disco.
+     *
+     * @param numero Número de registro devuelto por un método registrar.
+     */
+    public void sincronizar(long numero) {
+        synchronized (lock) {
+            while (durables < numero && falla == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (falla != null) throw new UncheckedIOException(falla);
+        }
+    }
+
+    /**
+     * Espera a que todo lo registrado hasta ahora esté en disco.
+     */
+    public void sincronizar() {
+        long hasta;
+        synchronized (lock) {
+            hasta = agregados;
+        }
+        sincronizar(hasta);
+    }
+
+    /**
+     * Devuelve cuántos registros se agregaron desde que se abrió el diario.
+     *
+     * @return Número de eventos.
+     */
+    public long getEventos() {
+        synchronized (lock) {
+            return eventos;
+        }
+    }
+
+    /**
+     * Ciclo del hilo escritor: toma el lote pendiente, lo escribe y hace un solo fsync.
+     */
+    private void escribirLotes() {
+        while (true) {
+            Lote lote;
+            long hasta;
+            synchronized (lock) {
+                while (pendiente.size() == 0 && !cerrado) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pendiente.size() == 0) return;
+                lote = pendiente;
+                pendiente = reserva;
+                reserva = lote;
+                hasta = agregados;
+                lock.notifyAll();
+            }
+            try {
+                ByteBuffer buf = lote.comoByteBuffer();
+                while (buf.hasRemaining()) canal.write(buf);
+                canal.force(false);
+            } catch (IOException e) {
+                synchronized (lock) {
+                    falla = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            lote.reset();
+            synchronized (lock) {
+                durables = hasta;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Escribe lo pendiente, detiene el hilo escritor y cierra el archivo.
+     *
+     * @throws IOException si falla el cierre o hubo un error de escritura.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            cerrado = true;
+            lock.notifyAll();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        canal.close();
+        if (falla != null) throw falla;
+    }
+
+    /**
+     * Recorre los registros válidos de un archivo de diario. La lectura se detiene
+     * en el primer registro incompleto o con CRC inválido (escritura interrumpida).
+     *
+     * @param archivo Ruta del diario.
+     * @param lector Acción que recibe el tipo y los datos de cada registro.
+     * @return Bytes válidos leídos; el resto del archivo debe descartarse.
+     * @throws IOException si falla la lectura.
+     */
+    static long leer(Path archivo, LectorRegistro lector) throws IOException {
+        long validos = 0;
+        try (FileChannel in = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(4);
+            CRC32 crc = new CRC32();
+            while (true) {
+                cabecera.clear();
+                if (leerCompleto(in, cabecera) < 4) break;
+                int largo = cabecera.getInt(0);
+                if (largo < 1 || largo > in.size()) break;
+                ByteBuffer cuerpo = ByteBuffer.allocate(largo + 4);
+                if (leerCompleto(in, cuerpo) < largo + 4) break;
+                crc.reset();
+                crc.update(cuerpo.array(), 0, largo);
+                if ((int) crc.getValue() != cuerpo.getInt(largo)) break;
+                byte tipo = cuerpo.get(0);
+                lector.leer(tipo, new DataInputStream(new ByteArrayInputStream(cuerpo.array(), 1, largo - 1)));
+                validos += 4 + largo + 4;
+            }
+        }
+        return validos;
+    }
+
+    /**
+     * Lee del canal hasta llenar el búfer o llegar al final del archivo.
+     *
+     * @param in Canal de lectura.
+     * @param buf Búfer a llenar.
+     * @return Bytes leídos.
+     * @throws IOException si falla la lectura.
+     */
+    private static int leerCompleto(FileChannel in, ByteBuffer buf) throws IOException {
+        int total = 0;
+        while (buf.hasRemaining()) {
+            int n = in.read(buf);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Acción que procesa un registro leído del diario.
+     */
+    interface LectorRegistro {
+        /**
+         * Procesa un registro.
+         *
+         * @param tipo Tipo de registro.
+         * @param datos Datos del registro.
+         * @throws IOException si los datos no se pueden decodificar.
+         */
+        void leer(byte tipo, DataInputStream datos) throws IOException;
+    }
+
+    /**
+     * Codificación de los datos de un registro.
+     */
+    private interface Datos {
+        /**
+         * Escribe los datos.
+         *
+         * @param out Salida de datos.
+         * @throws IOException si falla la codificación.
+         */
+        void escribir(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Lote de registros completos en memoria.
+     */
+    private static class Lote extends ByteArrayOutputStream {
+
+        /**
+         * Devuelve el contenido del lote sin copiarlo.
+         *
+         * @return Vista del contenido.
+         */
+        ByteBuffer comoByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    /**
+     * Borrador donde se codifica un registro completo, con su largo y CRC,
+     * antes de agregarlo a un lote.
+     */
+    private static class Registro extends ByteArrayOutputStream {
+
+        /** Salida para codificar los datos sobre el borrador */
+        final DataOutputStream datos = new DataOutputStream(this);
+
+        /** Calculador de CRC reutilizable */
+        final CRC32 crc = new CRC32();
+
+        /**
+         * Codifica un registro, descartando lo que hubiera en el borrador.
+         *
+         * @param tipo Tipo de registro.
+         * @param d Codificación de los datos.
+         * @throws IOException si falla la codificación.
+         */
+        void codificar(byte tipo, Datos d) throws IOException {
+            reset();
+            datos.writeInt(0);
+            datos.writeByte(tipo);
+            d.escribir(datos);
+            int largo = count - 4;
+            buf[0] = (byte) (largo >>> 24);
+            buf[1] = (byte) (largo >>> 16);
+            buf[2] = (byte) (largo >>> 8);
+            buf[3] = (byte) largo;
+            crc.reset();
+            crc.update(buf, 4, largo);
+            datos.writeInt((int) crc.getValue());
+        }
+
+        /**
+         * Agrega el registro codificado al final de un lote.
+         *
+         * @param lote Lote de destino.
+         */
+        void copiarA(Lote lote) {
+            lote.write(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package persistencia;
+
+import cosas.Bodega;
+import cosas.Caja;
+import cosas.Flota;
+import cosas.GuiaEnvio;
+import cosas.MetricaDespacho;
+import cosas.RegistroClientes;
+import java.util.function.ToDoubleFunction;
+import tdas.ColaAcotada;
+import tdas.ColaPrioridad;
+import tdas.ConcurrentQueue;
+
+/**
+ * Estado completo del sistema que se guarda en el diario y en las instantáneas:
+ * cola de ingreso, bodegas, flota de camiones, clientes y métricas de despacho.
+ *
+ * @author piped
+ */
+public class Estado {
+    private ColaAcotada<Caja> cola;
+    private Bodega[] bodegas;
+    private Flota flota;
+    private RegistroClientes clientes;
+    private MetricaDespacho metrica;
+
+    /**
+     * Crea un estado vacío con una bodega por destino.
+     *
+     * @param capacidadCola Capacidad de la cola de ingreso.
+     */
+    public Estado(int capacidadCola) {
+        this(capacidadCola, null);
+    }
+
+    /**
+     * Crea un estado vacío con una bodega por destino y una cola de ingreso
+     * ordenada por la prioridad dada.
+     *
+     * @param capacidadCola Capacidad de la cola de ingreso.
+     * @param prioridad Llave de prioridad de la cola, o null para atender en orden de llegada.
+     */
+    public Estado(int capacidadCola, ToDoubleFunction<? super Caja> prioridad) {
+        cola = prioridad == null ? new ConcurrentQueue<>(capacidadCola) : new ColaPrioridad<>(prioridad, capacidadCola);
+        bodegas = new Bodega[GuiaEnvio.Destino.values().length];
+        for (int i = 0; i < bodegas.length; i++) {
+            bodegas[i] = new Bodega(GuiaEnvio.Destino.values()[i]);
+        }
+        flota = new Flota();
+        clientes = new RegistroClientes();
+        metrica = new MetricaDespacho();
+    }
+
+    /**
+     * Devuelve la cola de ingreso de cajas.
+     *
+     * @return Cola de ingreso de cajas.
+     */
+    public ColaAcotada<Caja> getCola() {
+        return cola;
+    }
+
+    /**
+     * Devuelve las bodegas del sistema.
+     *
+     * @return Bodegas indexadas por el ordinal del destino.
+     */
+    public Bodega[] getBodegas() {
+        return bodegas;
+    }
+
+    /**
+     * Devuelve la flota de camiones.
+     *
+     * @return Flota de camiones.
+     */
+    public Flota getFlota() {
+        return flota;
+    }
+
+    /**
+     * Devuelve el registro de clientes.
+     *
+     * @return Registro de clientes.
+     */
+    public RegistroClientes getClientes() {
+        return clientes;
+    }
+
+    /**
+     * Devuelve las métricas de despacho.
+     *
+     * @return Métricas de despacho.
+     */
+    public MetricaDespacho getMetrica() {
+        return metrica;
+    }
+}
@@ -0,0 +1,350 @@
+package persistencia;
+
+import cosas.Bodega;
+import cosas.Caja;
+import cosas.Camion;
+import cosas.Cliente;
+import cosas.GuiaEnvio;
+import cosas.MetricaDespacho;
+import cosas.PlanificadorRutas;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ToDoubleFunction;
+import tdas.ColaAcotada;
+import tdas.ColaPrioridad;
+import tdas.List;
+
+/**
+ * Subsistema de persistencia: combina el {@link Diario} de eventos con instantáneas
+ * periódicas del estado completo.
+ *
+ * En el directorio de datos se guardan {@code instantanea.bin} y {@code diario-N.log},
+ * donde N es la generación de la última instantánea. Al arrancar se carga la instantánea
+ * (si existe) y se reaplican los eventos de su diario; al tomar una nueva instantánea
+ * se comienza un diario nuevo y se borra el anterior.
+ *
+ * @author piped
+ */
+public class Persistencia {
+
+    /** Número mágico al inicio de las instantáneas sin prioridades en la cola */
+    private static final int MAGICO = 0x43414A41;
+
+    /** Número mágico al inicio de las instantáneas que pueden guardar la prioridad de cada caja en cola */
+    private static final int MAGICO_PRIORIDADES = 0x43414A42;
+
+    /**
+     * Planificador con que se repiten las cargas del diario: sin límite de tiempo y con
+     * un número fijo de pasadas, para que recuperar dos veces dé los mismos camiones.
+     */
+    private static final PlanificadorRutas RUTAS_RECUPERACION = new PlanificadorRutas(0, 64);
+
+    /** Eventos por defecto entre instantáneas */
+    public static final long EVENTOS_POR_INSTANTANEA = 100_000;
+
+    /** Directorio de datos */
+    private final Path directorio;
+
+    /** Eventos del diario que disparan una nueva instantánea */
+    private final long eventosPorInstantanea;
+
+    /** Generación actual (la de la última instantánea) */
+    private long generacion;
+
+    /** Diario abierto de la generación actual */
+    private Diario diario;
+
+    /**
+     * Crea el subsistema de persistencia sobre un directorio de datos.
+     *
+     * @param directorio Directorio donde se guardan diario e instantáneas.
+     * @param eventosPorInstantanea Eventos del diario tras los cuales se toma una instantánea.
+     */
+    public Persistencia(Path directorio, long eventosPorInstantanea) {
+        this.directorio = directorio;
+        this.eventosPorInstantanea = eventosPorInstantanea;
+    }
+
+    /**
+     * Reconstruye el estado a partir de la última instantánea y su diario,
+     * y deja el diario abierto para seguir registrando eventos.
+     *
+     * @param capacidadCola Capacidad de la cola de ingreso.
+     * @return Estado recuperado (vacío si no hay datos previos).
+     * @throws IOException si no se pueden leer o abrir los archivos.
+     */
+    public Estado recuperar(int capacidadCola) throws IOException {
+        return recuperar(capacidadCola, null);
+    }
+
+    /**
+     * Reconstruye el estado con una cola de ingreso ordenada por prioridad.
+     *
+     * @param capacidadCola Capacidad de la cola de ingreso.
+     * @param prioridad Llave de prioridad de la cola, o null para atender en orden de llegada.
+     * @return Estado recuperado (vacío si no hay datos previos).
+     * @throws IOException si no se pueden leer o abrir los archivos.
+     */
+    public Estado recuperar(int capacidadCola, ToDoubleFunction<? super Caja> prioridad) throws IOException {
+        Files.createDirectories(directorio);
+        Estado estado = new Estado(capacidadCola, prioridad);
+        Path instantanea = directorio.resolve("instantanea.bin");
+        generacion = 0;
+        if (Files.exists(instantanea)) {
+            generacion = leerInstantanea(instantanea, estado);
+        }
+        Path log = archivoDiario(generacion);
+        if (Files.exists(log)) {
+            long validos = Diario.leer(log, (tipo, datos) -> aplicar(tipo, datos, estado));
+            try (FileChannel c = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                if (c.size() > validos) c.truncate(validos);
+            }
+        }
+        diario = new Diario(log);
+        return estado;
+    }
+
+    /**
+     * Devuelve el diario abierto donde se registran los eventos.
+     *
+     * @return Diario de la generación actual.
+     */
+    public Diario getDiario() {
+        return diario;
+    }
+
+    /**
+     * Toma una instantánea si el diario actual ya acumuló suficientes eventos.
+     * Debe llamarse cuando ninguna otra operación esté modificando el estado.
+     *
+     * @param estado Estado actual del sistema.
+     * @throws IOException si falla la escritura.
+     */
+    public void instantaneaSiCorresponde(Estado estado) throws IOException {
+        if (diario.getEventos() >= eventosPorInstantanea) {
+            tomarInstantanea(estado);
+        }
+    }
+
+    /**
+     * Escribe una instantánea del estado, comienza un diario nuevo y borra el anterior.
+     * Debe llamarse cuando ninguna otra operación esté modificando el estado.
+     *
+     * @param estado Estado actual del sistema.
+     * @throws IOException si falla la escritura.
+     */
+    public void tomarInstantanea(Estado estado) throws IOException {
+        long nueva = generacion + 1;
+        Path tmp = directorio.resolve("instantanea.tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            escribirInstantanea(out, nueva, estado);
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp, directorio.resolve("instantanea.bin"),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        diario.close();
+        Path anterior = archivoDiario(generacion);
+        generacion = nueva;
+        diario = new Diario(archivoDiario(generacion));
+        Files.deleteIfExists(anterior);
+    }
+
+    /**
+     * Cierra el diario, esperando a que todos los eventos estén en disco.
+     *
+     * @throws IOException si falla la escritura.
+     */
+    public void cerrar() throws IOException {
+        diario.close();
+    }
+
+    /**
+     * Devuelve la ruta del diario de una generación.
+     *
+     * @param gen Generación.
+     * @return Ruta del archivo.
+     */
+    private Path archivoDiario(long gen) {
+        return directorio.resolve("diario-" + gen + ".log");
+    }
+
+    /**
+     * Reaplica un evento del diario sobre el estado.
+     *
+     * @param tipo Tipo de registro.
+     * @param datos Datos del registro.
+     * @param estado Estado a modificar.
+     * @throws IOException si los datos no se pueden decodificar.
+     */
+    private static void aplicar(byte tipo, DataInputStream datos, Estado estado) throws IOException {
+        switch (tipo) {
+            case Diario.CLIENTE:
+                estado.getClientes().agregar(Codificador.leerCliente(datos));
+                break;
+            case Diario.ENCOLADO:
+                estado.getCola().offer(Codificador.leerCaja(datos, estado.getClientes()));
+                break;
+            case Diario.ENRUTADO:
+                int n = datos.readInt();
+                for (int i = 0; i < n; i++) {
+                    Caja c = estado.getCola().poll();
+                    if (c == null) break;
+                    estado.getBodegas()[c.getGuia().getDestino().ordinal()].recibirCaja(c);
+                }
+                break;
+            case Diario.CARGA:
+                // las cajas de cada camión no dependen del tiempo; su orden de entrega se recalcula
+                estado.getFlota().cargar(estado.getBodegas()[datos.readByte()], RUTAS_RECUPERACION, null);
+                break;
+            case Diario.DESPACHO:
+                estado.getFlota().despachar(GuiaEnvio.Destino.values()[datos.readByte()], estado.getMetrica());
+                break;
+            case Diario.PRIORIZADO:
+                String idCaja = Codificador.leerTexto(datos);
+                double prioridad = datos.readDouble();
+                // con una cola en orden de llegada la prioridad no tiene efecto
+                if (estado.getCola() instanceof ColaPrioridad) {
+                    ColaPrioridad<Caja> cola = (ColaPrioridad<Caja>) estado.getCola();
+                    ColaPrioridad.Entrada<Caja> e = cola.buscar(c -> c.getGuia().getIdCaja().equals(idCaja));
+                    if (e != null && prioridad <= e.getPrioridad()) cola.priorizar(e, prioridad);
+                }
+                break;
+            case Diario.DESPACHO_AUTOMATICO:
+                // el tiempo de espera no se guarda: los camiones del destino se despachan como vencidos
+                estado.getFlota().despachar(GuiaEnvio.Destino.values()[datos.readByte()], estado.getMetrica(), 0);
+                break;
+            default:
+                throw new IOException("Tipo de registro desconocido: " + tipo);
+        }
+    }
+
+    /**
+     * Escribe el estado completo. Una cola en orden de llegada se vacía y se vuelve a llenar
+     * en el mismo orden, por lo que no debe haber otros hilos usándola; de una cola de
+     * prioridad se guardan las cajas en orden de salida, cada una con su prioridad.
+     *
+     * @param out Salida binaria.
+     * @param gen Generación de la instantánea.
+     * @param estado Estado a guardar.
+     * @throws IOException si falla la escritura.
+     */
+    private static void escribirInstantanea(DataOutputStream out, long gen, Estado estado) throws IOException {
+        out.writeInt(MAGICO_PRIORIDADES);
+        out.writeLong(gen);
+
+        out.writeInt(estado.getClientes().size());
+        for (Cliente c : estado.getClientes()) Codificador.escribirCliente(out, c);
+
+        ColaAcotada<Caja> cola = estado.getCola();
+        if (cola instanceof ColaPrioridad) {
+            List<ColaPrioridad.Entrada<Caja>> enCola = ((ColaPrioridad<Caja>) cola).ordenadas();
+            out.writeInt(enCola.size());
+            out.writeBoolean(true);
+            for (ColaPrioridad.Entrada<Caja> e : enCola) {
+                Codificador.escribirCaja(out, e.getItem());
+                out.writeDouble(e.getPrioridad());
+            }
+        } else {
+            List<Caja> enCola = new List<>();
+            for (Caja c = cola.poll(); c != null; c = cola.poll()) enCola.list(c);
+            out.writeInt(enCola.size());
+            out.writeBoolean(false);
+            for (Caja c : enCola) {
+                Codificador.escribirCaja(out, c);
+                cola.offer(c);
+            }
+        }
+
+        for (Bodega b : estado.getBodegas()) {
+            List<Caja> almacen = b.getAlmacen();
+            out.writeInt(almacen.size());
+            for (Caja c : almacen) Codificador.escribirCaja(out, c);
+        }
+
+        for (GuiaEnvio.Destino d : GuiaEnvio.Destino.values()) {
+            List<Camion> cargados = estado.getFlota().getCargados(d);
+            out.writeInt(cargados.size());
+            for (Camion camion : cargados) {
+                List<Caja> carga = camion.getCarga();
+                out.writeInt(carga.size());
+                for (Caja c : carga) Codificador.escribirCaja(out, c); // desde la cima
+            }
+        }
+
+        MetricaDespacho m = estado.getMetrica();
+        out.writeDouble(m.obtenerPesoVolumetricoTotal());
+        out.writeDouble(m.obtenerPesoFacturadoTotal());
+        out.writeInt(m.obtenerNumeroCajasTotal());
+    }
+
+    /**
+     * Carga una instantánea sobre un estado vacío.
+     *
+     * @param archivo Ruta de la instantánea.
+     * @param estado Estado vacío a llenar.
+     * @return Generación de la instantánea.
+     * @throws IOException si el archivo no es válido o falla la lectura.
+     */
+    private static long leerInstantanea(Path archivo, Estado estado) throws IOException {
+        try (InputStream is = Files.newInputStream(archivo);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(is, 1 << 16))) {
+            int magico = in.readInt();
+            if (magico != MAGICO && magico != MAGICO_PRIORIDADES)
+                throw new IOException("Instantanea invalida: " + archivo);
+            long gen = in.readLong();
+
+            for (int i = in.readInt(); i > 0; i--) estado.getClientes().agregar(Codificador.leerCliente(in));
+
+            int enCola = in.readInt();
+            boolean conPrioridad = magico == MAGICO_PRIORIDADES && in.readBoolean();
+            ColaAcotada<Caja> cola = estado.getCola();
+            for (int i = enCola; i > 0; i--) {
+                Caja c = Codificador.leerCaja(in, estado.getClientes());
+                // la prioridad guardada solo se usa si la cola actual también es de prioridad
+                if (conPrioridad) {
+                    double prioridad = in.readDouble();
+                    if (cola instanceof ColaPrioridad) {
+                        ((ColaPrioridad<Caja>) cola).encolar(c, prioridad);
+                        continue;
+                    }
+                }
+                cola.offer(c);
+            }
+
+            for (Bodega b : estado.getBodegas()) {
+                for (int i = in.readInt(); i > 0; i--) b.recibirCaja(Codificador.leerCaja(in, estado.getClientes()));
+            }
+
+            for (GuiaEnvio.Destino d : GuiaEnvio.Destino.values()) {
+                for (int k = in.readInt(); k > 0; k--) {
+                    Caja[] carga = new Caja[in.readInt()];
+                    for (int i = 0; i < carga.length; i++) carga[i] = Codificador.leerCaja(in, estado.getClientes());
+                    Camion camion = new Camion(d);
+                    // un camión guardado con sobrepeso se restaura tal cual, caja por caja
+                    if (!camion.cargarCajas(carga, 0, carga.length)) {
+                        for (int i = carga.length - 1; i >= 0; i--) camion.cargarCaja(carga[i]);
+                    }
+                    estado.getFlota().agregarCargado(camion);
+                }
+            }
+
+            MetricaDespacho m = estado.getMetrica();
+            m.agregarPesoVolumetrico(in.readDouble());
+            m.agregarPesoFacturado(in.readDouble());
+            m.agregarNumeroCajas(in.readInt());
+            return gen;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package simulacion;
+
+/**
+ * Parámetros de una {@link Simulacion}. Todos tienen un valor por defecto que
+ * representa un día típico con un millón de cajas; se cambian con los setters
+ * antes de crear la simulación.
+ *
+ * @author piped
+ */
+public class ConfiguracionSimulacion {
+
+    /** Horas de un día */
+    public static final int HORAS = 24;
+
+    private long semilla = 42;
+    private int cajasPorDia = 1_000_000;
+    private double[] perfilLlegadas = {1, 1, 1, 1, 1, 2, 4, 6, 8, 9, 9, 8, 7, 8, 9, 9, 8, 6, 4, 3, 2, 2, 1, 1};
+    private double pesoRealMinimo = 1;
+    private double pesoRealMaximo = 40;
+    private double ladoMinimo = 10;
+    private double ladoMaximo = 60;
+    private int cicloClasificacion = 15;
+    private int camionesPorDestino = 200;
+    private double velocidad = 50;
+    private int tiempoManiobra = 60;
+    private int esperaMaxima = 240;
+    private int intervaloMuestra = 60;
+
+    /**
+     * Devuelve la semilla de los números aleatorios.
+     *
+     * @return Semilla.
+     */
+    public long getSemilla() {
+        return semilla;
+    }
+
+    /**
+     * Cambia la semilla de los números aleatorios.
+     *
+     * @param semilla Nueva semilla.
+     */
+    public void setSemilla(long semilla) {
+        this.semilla = semilla;
+    }
+
+    /**
+     * Devuelve el número esperado de cajas que llegan en el día.
+     *
+     * @return Cajas por día.
+     */
+    public int getCajasPorDia() {
+        return cajasPorDia;
+    }
+
+    /**
+     * Cambia el número esperado de cajas que llegan en el día.
+     *
+     * @param cajasPorDia Cajas por día.
+     */
+    public void setCajasPorDia(int cajasPorDia) {
+        this.cajasPorDia = cajasPorDia;
+    }
+
+    /**
+     * Devuelve el peso relativo de las llegadas en cada una de las 24 horas.
+     *
+     * @return Perfil horario de llegadas.
+     */
+    public double[] getPerfilLlegadas() {
+        return perfilLlegadas;
+    }
+
+    /**
+     * Cambia el perfil horario de llegadas. Los valores son relativos; se escalan
+     * para que el total del día sea {@link #getCajasPorDia()}.
+     *
+     * @param perfil 24 pesos no negativos, uno por hora.
+     * @throws IllegalArgumentException si no hay 24 valores o todos son cero.
+     */
+    public void setPerfilLlegadas(double[] perfil) {
+        double suma = 0;
+        for (double p : perfil) suma += p;
+        if (perfil.length != HORAS || suma <= 0)
+            throw new IllegalArgumentException("El perfil debe tener 24 valores con suma positiva");
+        this.perfilLlegadas = perfil.clone();
+    }
+
+    /**
+     * Devuelve el peso real mínimo de una caja (kg).
+     *
+     * @return Peso mínimo.
+     */
+    public double getPesoRealMinimo() {
+        return pesoRealMinimo;
+    }
+
+    /**
+     * Devuelve el peso real máximo de una caja (kg).
+     *
+     * @return Peso máximo.
+     */
+    public double getPesoRealMaximo() {
+        return pesoRealMaximo;
+    }
+
+    /**
+     * Cambia el rango del peso real de las cajas, que se elige de forma uniforme.
+     *
+     * @param minimo Peso mínimo (kg).
+     * @param maximo Peso máximo (kg).
+     */
+    public void setPesoReal(double minimo, double maximo) {
+        this.pesoRealMinimo = minimo;
+        this.pesoRealMaximo = maximo;
+    }
+
+    /**
+     * Devuelve el lado mínimo de una caja (cm).
+     *
+     * @return Lado mínimo.
+     */
+    public double getLadoMinimo() {
+        return ladoMinimo;
+    }
+
+    /**
+     * Devuelve el lado máximo de una caja (cm).
+     *
+     * @return Lado máximo.
+     */
+    public double getLadoMaximo() {
+        return ladoMaximo;
+    }
+
+    /**
+     * Cambia el rango de las dimensiones de las cajas, que se eligen de forma uniforme.
+     *
+     * @param minimo Lado mínimo (cm).
+     * @param maximo Lado máximo (cm).
+     */
+    public void setLados(double minimo, double maximo) {
+        this.ladoMinimo = minimo;
+        this.ladoMaximo = maximo;
+    }
+
+    /**
+     * Devuelve cada cuántos minutos se clasifica la cola de ingreso hacia las bodegas.
+     *
+     * @return Minutos entre ciclos de clasificación.
+     */
+    public int getCicloClasificacion() {
+        return cicloClasificacion;
+    }
+
+    /**
+     * Cambia cada cuántos minutos se clasifica la cola de ingreso hacia las bodegas.
+     *
+     * @param minutos Minutos entre ciclos.
+     */
+    public void setCicloClasificacion(int minutos) {
+        this.cicloClasificacion = minutos;
+    }
+
+    /**
+     * Devuelve el número de camiones de cada destino.
+     *
+     * @return Camiones por destino.
+     */
+    public int getCamionesPorDestino() {
+        return camionesPorDestino;
+    }
+
+    /**
+     * Cambia el número de camiones de cada destino.
+     *
+     * @param camiones Camiones por destino.
+     */
+    public void setCamionesPorDestino(int camiones) {
+        this.camionesPorDestino = camiones;
+    }
+
+    /**
+     * Devuelve la velocidad media de los camiones (km/h).
+     *
+     * @return Velocidad.
+     */
+    public double getVelocidad() {
+        return velocidad;
+    }
+
+    /**
+     * Cambia la velocidad media de los camiones (km/h).
+     *
+     * @param velocidad Velocidad.
+     */
+    public void setVelocidad(double velocidad) {
+        this.velocidad = velocidad;
+    }
+
+    /**
+     * Devuelve los minutos de entregas y maniobras que se suman a cada viaje.
+     *
+     * @return Minutos por viaje.
+     */
+    public int getTiempoManiobra() {
+        return tiempoManiobra;
+    }
+
+    /**
+     * Cambia los minutos de entregas y maniobras que se suman a cada viaje.
+     *
+     * @param minutos Minutos por viaje.
+     */
+    public void setTiempoManiobra(int minutos) {
+        this.tiempoManiobra = minutos;
+    }
+
+    /**
+     * Devuelve los minutos que un camión puede esperar en el muelle antes de
+     * salir aunque no alcance el peso mínimo.
+     *
+     * @return Espera máxima en minutos.
+     */
+    public int getEsperaMaxima() {
+        return esperaMaxima;
+    }
+
+    /**
+     * Cambia la espera máxima de un camión en el muelle.
+     *
+     * @param minutos Espera máxima en minutos.
+     */
+    public void setEsperaMaxima(int minutos) {
+        this.esperaMaxima = minutos;
+    }
+
+    /**
+     * Devuelve cada cuántos minutos se toma una muestra para las curvas.
+     *
+     * @return Minutos entre muestras.
+     */
+    public int getIntervaloMuestra() {
+        return intervaloMuestra;
+    }
+
+    /**
+     * Cambia cada cuántos minutos se toma una muestra para las curvas.
+     *
+     * @param minutos Minutos entre muestras.
+     */
+    public void setIntervaloMuestra(int minutos) {
+        this.intervaloMuestra = minutos;
+    }
+}
@@ -0,0 +1,473 @@
+package simulacion;
+
+import bitacora.Bitacora;
+import cosas.AlmacenColumnar;
+import cosas.Bodega;
+import cosas.Caja;
+import cosas.Camion;
+import cosas.Cliente;
+import cosas.GuiaEnvio;
+import cosas.MetricaDespacho;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import tdas.List;
+import tdas.Queue;
+
+/**
+ * Simulación de eventos discretos de un día de operación. Usa las clases reales
+ * {@link Caja}, {@link GuiaEnvio}, {@link Bodega}, {@link Camion} y {@link MetricaDespacho};
+ * el tiempo no es el del reloj sino el de un calendario de eventos, así que un día
+ * completo se simula en segundos.
+ *
+ * Eventos:
+ * <ul>
+ * <li>Llegada: una caja entra a la cola de ingreso. Las llegadas siguen un proceso de
+ * Poisson cuya tasa cambia cada hora según el perfil configurado.</li>
+ * <li>Clasificación: cada ciclo la cola de ingreso se reparte a las bodegas y cada
+ * destino intenta cargar y despachar camiones.</li>
+ * <li>Regreso: un camión vuelve de su ruta y queda libre para el destino.</li>
+ * <li>Muestra: se toma un punto de las curvas de salida.</li>
+ * </ul>
+ *
+ * Cada destino tiene un camión en el muelle que se llena con las cajas más lejanas de
+ * su bodega sin pasar del peso máximo. Sale en cuanto puede despacharse, o al cumplir la
+ * espera máxima aunque le falte peso. Un viaje dura el tiempo de maniobra más la ida y
+ * vuelta hasta la entrega más lejana.
+ *
+ * Las cajas no se crean como objetos Caja y GuiaEnvio: se guardan en un
+ * {@link AlmacenColumnar} y por la cola, las bodegas y los camiones circulan sus vistas,
+ * que solo ocupan su posición. La fila de cada caja se libera al despacharla y la
+ * reutiliza una llegada posterior, así que la memoria depende de las cajas en curso y
+ * no de las llegadas del día.
+ *
+ * Uso: {@code java -cp build/classes simulacion.Simulacion [cajasPorDia] [camionesPorDestino] [semilla]}
+ *
+ * @author piped
+ */
+public class Simulacion {
+
+    private static final long MINUTO = 60_000L;
+    private static final long HORA = 60 * MINUTO;
+    private static final long DIA = ConfiguracionSimulacion.HORAS * HORA;
+
+    private static final int LLEGADA = 0;
+    private static final int CLASIFICACION = 1;
+    private static final int REGRESO = 2;
+    private static final int MUESTRA = 3;
+
+    private final ConfiguracionSimulacion config;
+    private final SplittableRandom aleatorio;
+    private final Calendario calendario = new Calendario();
+    private final Cliente cliente = new Cliente("SIM", "Cliente Simulado", "0", "sim@correo.com", "Simulacion");
+
+    /** Columnas de las cajas que están en la cola, en bodega o en el muelle */
+    private final AlmacenColumnar almacen = new AlmacenColumnar();
+    private final Queue<Caja> ingreso = new Queue<>();
+    private final Bodega[] bodegas;
+    private final MetricaDespacho metrica = new MetricaDespacho();
+
+    /** Camión que se está cargando en el muelle de cada destino, o null */
+    private final Camion[] muelle;
+    /** Distancia de la entrega más lejana del camión en el muelle */
+    private final double[] distanciaMaxima;
+    /** Instante en que el camión del muelle recibió su primera caja, por destino */
+    private final long[] inicioCarga;
+    /** Camiones libres (sin contar el del muelle) por destino */
+    private final int[] libres;
+
+    /** Llegadas por hora según el perfil, por milisegundo */
+    private final double[] tasa = new double[ConfiguracionSimulacion.HORAS];
+
+    private long llegadas;
+    private long cajasDespachadas;
+    private long camionesDespachados;
+    private long camionesForzados;
+    private long llegadasMuestra;
+    private long despachadasMuestra;
+    private final List<Muestra> curvas = new List<>();
+
+    /**
+     * Prepara una simulación con la configuración dada.
+     *
+     * @param config Parámetros de la simulación.
+     */
+    public Simulacion(ConfiguracionSimulacion config) {
+        this.config = config;
+        this.aleatorio = new SplittableRandom(config.getSemilla());
+        int n = GuiaEnvio.Destino.values().length;
+        bodegas = new Bodega[n];
+        muelle = new Camion[n];
+        distanciaMaxima = new double[n];
+        inicioCarga = new long[n];
+        libres = new int[n];
+        for (int i = 0; i < n; i++) {
+            bodegas[i] = new Bodega(GuiaEnvio.Destino.values()[i]);
+            libres[i] = config.getCamionesPorDestino();
+        }
+        double[] perfil = config.getPerfilLlegadas();
+        double suma = 0;
+        for (double p : perfil) suma += p;
+        for (int h = 0; h < tasa.length; h++) {
+            tasa[h] = config.getCajasPorDia() * perfil[h] / suma / HORA;
+        }
+    }
+
+    /**
+     * Ejecuta la simulación del día completo.
+     */
+    public void ejecutar() {
+        programarLlegada(0);
+        calendario.agregar(config.getCicloClasificacion() * MINUTO, CLASIFICACION, -1);
+        calendario.agregar(config.getIntervaloMuestra() * MINUTO, MUESTRA, -1);
+        while (!calendario.isEmpty() && calendario.proximoTiempo() <= DIA) {
+            long t = calendario.proximoTiempo();
+            int destino = calendario.proximoDestino();
+            switch (calendario.sacar()) {
+                case LLEGADA:
+                    llegar();
+                    programarLlegada(t);
+                    break;
+                case CLASIFICACION:
+                    clasificar(t);
+                    calendario.agregar(t + config.getCicloClasificacion() * MINUTO, CLASIFICACION, -1);
+                    break;
+                case REGRESO:
+                    libres[destino]++;
+                    cargar(destino, t);
+                    break;
+                case MUESTRA:
+                    muestrear(t);
+                    calendario.agregar(t + config.getIntervaloMuestra() * MINUTO, MUESTRA, -1);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Programa la siguiente llegada a partir del instante t.
+     * Si la hora actual no tiene llegadas, se salta al comienzo de la siguiente.
+     *
+     * @param t Instante actual (ms).
+     */
+    private void programarLlegada(long t) {
+        while (t < DIA) {
+            int h = (int) (t / HORA);
+            if (tasa[h] > 0) {
+                long siguiente = t + (long) Math.ceil(-Math.log(1 - aleatorio.nextDouble()) / tasa[h]);
+                if (siguiente < DIA) calendario.agregar(siguiente, LLEGADA, -1);
+                return;
+            }
+            t = (h + 1) * HORA;
+        }
+    }
+
+    /**
+     * Agrega una caja con guía al almacén y deja su vista en la cola de ingreso.
+     */
+    private void llegar() {
+        double alt = lado(), lon = lado(), anc = lado();
+        double peso = config.getPesoRealMinimo()
+                + aleatorio.nextDouble() * (config.getPesoRealMaximo() - config.getPesoRealMinimo());
+        GuiaEnvio.Destino d = GuiaEnvio.Destino.values()[aleatorio.nextInt(bodegas.length)];
+        int i = almacen.agregar(alt, lon, anc, peso, "S" + llegadas, cliente, d,
+                1 + aleatorio.nextInt(Bodega.DISTANCIA_MAXIMA));
+        ingreso.enqueue(almacen.vista(i));
+        llegadas++;
+        llegadasMuestra++;
+    }
+
+    /**
+     * Elige un lado de caja al azar dentro del rango configurado.
+     *
+     * @return Lado (cm).
+     */
+    private double lado() {
+        return config.getLadoMinimo() + aleatorio.nextDouble() * (config.getLadoMaximo() - config.getLadoMinimo());
+    }
+
+    /**
+     * Ciclo de clasificación: vacía la cola de ingreso en las bodegas y carga cada destino.
+     *
+     * @param t Instante actual (ms).
+     */
+    private void clasificar(long t) {
+        while (!ingreso.isEmpty()) {
+            Caja c = ingreso.dequeue();
+            bodegas[c.getGuia().getDestino().ordinal()].recibirCaja(c);
+        }
+        for (int d = 0; d < bodegas.length; d++) cargar(d, t);
+    }
+
+    /**
+     * Llena camiones del destino con las cajas más lejanas de su bodega y despacha
+     * los que cumplen las reglas, mientras haya camiones libres.
+     *
+     * @param d Ordinal del destino.
+     * @param t Instante actual (ms).
+     */
+    private void cargar(int d, long t) {
+        Bodega bodega = bodegas[d];
+        while (true) {
+            if (muelle[d] == null) {
+                if (libres[d] == 0 || bodega.estaVacia()) return;
+                muelle[d] = new Camion(bodega.getDestino());
+                distanciaMaxima[d] = 0;
+                libres[d]--;
+            }
+            Camion camion = muelle[d];
+            int n = bodega.cuantasCaben(GuiaEnvio.PESO_MAXIMO_VOLUMETRICO - camion.getPesoTotal());
+            if (n > 0) {
+                if (camion.obtenerNumeroCajas() == 0) inicioCarga[d] = t;
+                distanciaMaxima[d] = Math.max(distanciaMaxima[d], bodega.distanciaMasLejana());
+                // el redondeo de las sumas puede diferir en la última caja: se carga una menos
+                while (n > 0 && !bodega.cargarEn(camion, n)) n--;
+            }
+            boolean listo = camion.puedeDespachar();
+            boolean vencido = camion.obtenerNumeroCajas() > 0
+                    && t - inicioCarga[d] >= config.getEsperaMaxima() * MINUTO;
+            if (!listo && !vencido) return;
+            despachar(d, t, !listo);
+        }
+    }
+
+    /**
+     * Despacha el camión del muelle, registra las métricas, libera las filas de sus
+     * cajas en el almacén y programa su regreso.
+     *
+     * @param d Ordinal del destino.
+     * @param t Instante actual (ms).
+     * @param forzado true si sale por espera vencida sin el peso mínimo.
+     */
+    private void despachar(int d, long t, boolean forzado) {
+        Camion camion = muelle[d];
+        double volumetrico = camion.calcularPesoVolumetrico();
+        double facturado = camion.calcularPesoFacturado();
+        int cajas = camion.obtenerNumeroCajas();
+        List<Caja> carga = camion.getCarga();
+        if (!camion.despachar(forzado)) return;
+        for (Caja c : carga) almacen.liberar(((AlmacenColumnar.VistaCaja) c).getIndice());
+        metrica.agregarPesoVolumetrico(volumetrico);
+        metrica.agregarPesoFacturado(facturado);
+        metrica.agregarNumeroCajas(cajas);
+        cajasDespachadas += cajas;
+        despachadasMuestra += cajas;
+        camionesDespachados++;
+        if (forzado) camionesForzados++;
+        long viaje = config.getTiempoManiobra() * MINUTO
+                + (long) (2 * distanciaMaxima[d] / config.getVelocidad() * HORA);
+        calendario.agregar(t + viaje, REGRESO, d);
+        muelle[d] = null;
+    }
+
+    /**
+     * Agrega un punto a las curvas de salida y reinicia los contadores del intervalo.
+     *
+     * @param t Instante actual (ms).
+     */
+    private void muestrear(long t) {
+        int enBodega = 0, enRuta = 0, total = 0;
+        for (int d = 0; d < bodegas.length; d++) {
+            enBodega += bodegas[d].cantidadCajas();
+            if (muelle[d] != null) enBodega += muelle[d].obtenerNumeroCajas();
+            enRuta += config.getCamionesPorDestino() - libres[d] - (muelle[d] == null ? 0 : 1);
+            total += config.getCamionesPorDestino();
+        }
+        curvas.list(new Muestra(t, llegadasMuestra, despachadasMuestra, ingreso.size(), enBodega,
+                total == 0 ? 0 : (double) enRuta / total));
+        llegadasMuestra = 0;
+        despachadasMuestra = 0;
+    }
+
+    /**
+     * Imprime el resumen del día y las curvas de rendimiento, profundidad de cola
+     * y utilización de camiones.
+     *
+     * @param out Salida.
+     */
+    public void imprimir(PrintStream out) {
+        out.println("=== Simulacion de un dia ===");
+        out.printf("Cajas llegadas: %d, despachadas: %d, pendientes: %d%n",
+                llegadas, cajasDespachadas, llegadas - cajasDespachadas);
+        out.printf("Camiones despachados: %d (%d por espera vencida), carga media: %.1f%%%n",
+                camionesDespachados, camionesForzados, camionesDespachados == 0 ? 0
+                        : 100 * metrica.obtenerPesoFacturadoTotal() / camionesDespachados / GuiaEnvio.PESO_MAXIMO_VOLUMETRICO);
+        out.println(metrica);
+        double horasMuestra = config.getIntervaloMuestra() / 60.0;
+        out.println("hora	llegadas/h	despachadas/h	cola	bodegas	camiones en ruta");
+        for (Muestra m : curvas) {
+            out.printf("%02d:%02d	%.0f	%.0f	%d	%d	%.1f%%%n", m.tiempo / HORA, m.tiempo % HORA / MINUTO,
+                    m.llegadas / horasMuestra, m.despachadas / horasMuestra, m.cola, m.bodegas, 100 * m.utilizacion);
+        }
+    }
+
+    /**
+     * Devuelve las métricas de despacho de la simulación.
+     *
+     * @return Métricas acumuladas.
+     */
+    public MetricaDespacho getMetrica() {
+        return metrica;
+    }
+
+    /**
+     * Ejecuta un día con la configuración por defecto, ajustada con los argumentos,
+     * e imprime los resultados.
+     *
+     * @param args [cajasPorDia] [camionesPorDestino] [semilla]
+     */
+    public static void main(String[] args) {
+        ConfiguracionSimulacion config = new ConfiguracionSimulacion();
+        if (args.length > 0) config.setCajasPorDia(Integer.parseInt(args[0]));
+        if (args.length > 1) config.setCamionesPorDestino(Integer.parseInt(args[1]));
+        if (args.length > 2) config.setSemilla(Long.parseLong(args[2]));
+        // los despachos de camiones se registran en INFO; se apaga la bitácora durante la simulación
+        Bitacora.get().setNivel(Bitacora.Nivel.APAGADO);
+        long inicio = System.nanoTime();
+        Simulacion s = new Simulacion(config);
+        s.ejecutar();
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        Bitacora.get().setNivel(Bitacora.Nivel.INFO);
+        s.imprimir(System.out);
+        System.out.printf("Tiempo de simulacion: %.2f s%n", segundos);
+    }
+
+    /**
+     * Punto de las curvas de salida.
+     */
+    private static class Muestra {
+        private final long tiempo;
+        private final long llegadas;
+        private final long despachadas;
+        private final int cola;
+        private final int bodegas;
+        private final double utilizacion;
+
+        /**
+         * Crea un punto de las curvas.
+         *
+         * @param tiempo Instante de la muestra (ms).
+         * @param llegadas Cajas llegadas en el intervalo.
+         * @param despachadas Cajas despachadas en el intervalo.
+         * @param cola Cajas en la cola de ingreso.
+         * @param bodegas Cajas en bodegas y muelles.
+         * @param utilizacion Fracción de camiones en ruta.
+         */
+        Muestra(long tiempo, long llegadas, long despachadas, int cola, int bodegas, double utilizacion) {
+            this.tiempo = tiempo;
+            this.llegadas = llegadas;
+            this.despachadas = despachadas;
+            this.cola = cola;
+            this.bodegas = bodegas;
+            this.utilizacion = utilizacion;
+        }
+    }
+
+    /**
+     * Calendario de eventos: montículo binario ordenado por instante y, a igual
+     * instante, por orden de programación, para que la simulación sea reproducible.
+     */
+    private static class Calendario {
+        private long[] tiempo = new long[64];
+        private long[] orden = new long[64];
+        private int[] tipo = new int[64];
+        private int[] destino = new int[64];
+        private int n;
+        private long secuencia;
+
+        /**
+         * Programa un evento.
+         *
+         * @param t Instante del evento (ms).
+         * @param tipoEvento Tipo de evento.
+         * @param d Ordinal del destino, o -1.
+         */
+        void agregar(long t, int tipoEvento, int d) {
+            if (n == tiempo.length) {
+                tiempo = Arrays.copyOf(tiempo, 2 * n);
+                orden = Arrays.copyOf(orden, 2 * n);
+                tipo = Arrays.copyOf(tipo, 2 * n);
+                destino = Arrays.copyOf(destino, 2 * n);
+            }
+            int k = n++;
+            tiempo[k] = t;
+            orden[k] = secuencia++;
+            tipo[k] = tipoEvento;
+            destino[k] = d;
+            while (k > 0 && menor(k, (k - 1) / 2)) {
+                intercambiar(k, (k - 1) / 2);
+                k = (k - 1) / 2;
+            }
+        }
+
+        /**
+         * Indica si no quedan eventos.
+         *
+         * @return true si el calendario está vacío.
+         */
+        boolean isEmpty() {
+            return n == 0;
+        }
+
+        /**
+         * Instante del próximo evento.
+         *
+         * @return Instante (ms).
+         */
+        long proximoTiempo() {
+            return tiempo[0];
+        }
+
+        /**
+         * Destino del próximo evento.
+         *
+         * @return Ordinal del destino, o -1.
+         */
+        int proximoDestino() {
+            return destino[0];
+        }
+
+        /**
+         * Quita el próximo evento.
+         *
+         * @return Tipo del evento quitado.
+         */
+        int sacar() {
+            int t = tipo[0];
+            intercambiar(0, --n);
+            int k = 0;
+            while (2 * k + 1 < n) {
+                int j = 2 * k + 1;
+                if (j + 1 < n && menor(j + 1, j)) j++;
+                if (!menor(j, k)) break;
+                intercambiar(k, j);
+                k = j;
+            }
+            return t;
+        }
+
+        /**
+         * Compara dos eventos del montículo.
+         *
+         * @param i Posición.
+         * @param j Posición.
+         * @return true si el evento en i va antes que el de j.
+         */
+        private boolean menor(int i, int j) {
+            return tiempo[i] < tiempo[j] || (tiempo[i] == tiempo[j] && orden[i] < orden[j]);
+        }
+
+        /**
+         * Intercambia dos eventos del montículo.
+         *
+         * @param i Posición.
+         * @param j Posición.
+         */
+        private void intercambiar(int i, int j) {
+            long t = tiempo[i]; tiempo[i] = tiempo[j]; tiempo[j] = t;
+            long o = orden[i]; orden[i] = orden[j]; orden[j] = o;
+            int a = tipo[i]; tipo[i] = tipo[j]; tipo[j] = a;
+            int b = destino[i]; destino[i] = destino[j]; destino[j] = b;
+        }
+    }
+}
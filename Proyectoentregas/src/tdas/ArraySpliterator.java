@@ -0,0 +1,129 @@
+package tdas;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator sobre un tramo del arreglo interno de las colecciones del paquete.
+ * Recorre las posiciones lógicas [i, fin) y las traduce a posiciones del arreglo,
+ * ya sea hacia adelante y en forma circular desde un índice base (List, Bag, Queue)
+ * o hacia atrás desde él (Stack, que se recorre desde la cima).
+ * Al dividirse entrega la primera mitad, por lo que es SIZED y SUBSIZED y
+ * se reparte de forma pareja entre los hilos de un stream paralelo.
+ *
+ * @param <Item> el tipo de elementos recorridos
+ *
+ * @author piped
+ */
+class ArraySpliterator<Item> implements Spliterator<Item> {
+
+    /** Arreglo recorrido */
+    private final Item[] a;
+
+    /** Posición del arreglo que corresponde a la posición lógica 0 */
+    private final int base;
+
+    /** true si las posiciones lógicas avanzan hacia atrás desde base */
+    private final boolean inverso;
+
+    /** Características informadas */
+    private final int caracteristicas;
+
+    /** Siguiente posición lógica a recorrer */
+    private int i;
+
+    /** Posición lógica final (exclusiva) */
+    private final int fin;
+
+    /**
+     * Crea un spliterator sobre las posiciones lógicas [i, fin).
+     *
+     * @param a arreglo recorrido
+     * @param base posición del arreglo de la posición lógica 0 (en inverso, la siguiente a ella)
+     * @param inverso true para avanzar hacia atrás desde base
+     * @param i primera posición lógica
+     * @param fin posición lógica final (exclusiva)
+     * @param caracteristicas características adicionales a SIZED y SUBSIZED
+     */
+    ArraySpliterator(Item[] a, int base, boolean inverso, int i, int fin, int caracteristicas) {
+        this.a = a;
+        this.base = base;
+        this.inverso = inverso;
+        this.i = i;
+        this.fin = fin;
+        this.caracteristicas = caracteristicas | Spliterator.SIZED | Spliterator.SUBSIZED;
+    }
+
+    /**
+     * Traduce una posición lógica a una posición del arreglo.
+     *
+     * @param j posición lógica
+     * @return posición del arreglo
+     */
+    private int posicion(int j) {
+        if (inverso) return base - 1 - j;
+        int p = base + j;
+        return p >= a.length ? p - a.length : p;
+    }
+
+    /**
+     * Entrega el siguiente elemento, si lo hay.
+     *
+     * @param accion acción que recibe el elemento
+     * @return true si había un elemento
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super Item> accion) {
+        if (i >= fin) return false;
+        accion.accept(a[posicion(i++)]);
+        return true;
+    }
+
+    /**
+     * Entrega todos los elementos restantes.
+     *
+     * @param accion acción que recibe cada elemento
+     */
+    @Override
+    public void forEachRemaining(Consumer<? super Item> accion) {
+        int j = i, f = fin;
+        i = fin;
+        for (; j < f; j++) {
+            accion.accept(a[posicion(j)]);
+        }
+    }
+
+    /**
+     * Separa la primera mitad de los elementos restantes en otro spliterator.
+     *
+     * @return spliterator con la primera mitad, o null si quedan menos de 2 elementos
+     */
+    @Override
+    public Spliterator<Item> trySplit() {
+        int medio = (i + fin) >>> 1;
+        if (medio <= i) return null;
+        ArraySpliterator<Item> prefijo = new ArraySpliterator<>(a, base, inverso, i, medio, caracteristicas);
+        i = medio;
+        return prefijo;
+    }
+
+    /**
+     * Retorna la cantidad exacta de elementos restantes.
+     *
+     * @return elementos restantes
+     */
+    @Override
+    public long estimateSize() {
+        return fin - i;
+    }
+
+    /**
+     * Retorna las características del spliterator.
+     *
+     * @return características
+     */
+    @Override
+    public int characteristics() {
+        return caracteristicas;
+    }
+}
@@ -1,6 +1,10 @@
 package tdas;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Clase Bag que implementa una colección simple de elementos donde 
@@ -8,6 +12,9 @@ import java.util.Iterator;
  * Es similar a una bolsa o multiconjunto, no mantiene orden específico 
  * ni elementos únicos.
  * 
+ * Como los elementos nunca se sobrescriben ni se eliminan, los iteradores,
+ * spliterators y streams recorren una instantánea sin necesidad de copiar el arreglo.
+ * 
  * @param <Item> el tipo de elementos que se almacenan en la bolsa
  * @author cvaro
  */
@@ -23,7 +30,17 @@ public class Bag<Item> implements Iterable<Item> {
      * Crea una nueva instancia de Bag vacía con capacidad inicial de 1.
      */
     public Bag() {
-        a = (Item[]) new Object[1]; 
+        a = arreglo(1); 
+        count = 0;
+    }
+
+    /**
+     * Crea una nueva instancia de Bag vacía con la capacidad indicada.
+     * 
+     * @param capacidad capacidad inicial (mínimo 1)
+     */
+    public Bag(int capacidad) {
+        a = arreglo(Math.max(1, capacidad));
         count = 0;
     }
 
@@ -39,6 +56,49 @@ public class Bag<Item> implements Iterable<Item> {
         a[count++] = item;
     }
 
+    /**
+     * Agrega a la bolsa un tramo de un arreglo.
+     * 
+     * @param items arreglo de origen
+     * @param desde posición del primer elemento a agregar
+     * @param n cantidad de elementos a agregar
+     */
+    public void addAll(Item[] items, int desde, int n) {
+        ensureCapacity(count + n);
+        System.arraycopy(items, desde, a, count, n);
+        count += n;
+    }
+
+    /**
+     * Agrega a la bolsa todos los elementos de una lista.
+     * 
+     * @param items lista de elementos a agregar
+     */
+    public void addAll(List<? extends Item> items) {
+        ensureCapacity(count + items.size());
+        items.copiarEn(a, count);
+        count += items.size();
+    }
+
+    /**
+     * Garantiza que la bolsa pueda guardar al menos la cantidad de elementos indicada
+     * sin redimensionar. Si hay que crecer, al menos se duplica la capacidad.
+     * 
+     * @param capacidad capacidad mínima requerida
+     */
+    public void ensureCapacity(int capacidad) {
+        if (capacidad > a.length)
+            resize(Math.max(capacidad, a.length * 2));
+    }
+
+    /**
+     * Reduce la capacidad al número de elementos actuales (mínimo 1).
+     */
+    public void trimToSize() {
+        if (a.length > Math.max(1, count))
+            resize(Math.max(1, count));
+    }
+
     /**
      * Verifica si la bolsa está vacía.
      * 
@@ -63,13 +123,53 @@ public class Bag<Item> implements Iterable<Item> {
      * @param maxCap la nueva capacidad del arreglo
      */
     private void resize(int maxCap) {
-        Item[] aux = (Item[]) new Object[maxCap];
-        for (int i = 0; i < count; i++) {
-            aux[i] = a[i];
-        }
+        Item[] aux = arreglo(maxCap);
+        System.arraycopy(a, 0, aux, 0, count);
         a = aux;
     }
 
+    /**
+     * Crea un arreglo genérico nuevo.
+     *
+     * @param <T> el tipo de los elementos del arreglo
+     * @param n longitud del arreglo
+     * @return arreglo de n posiciones vacías
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] arreglo(int n) {
+        return (T[]) new Object[n];
+    }
+
+    /**
+     * Retorna un spliterator que recorre los elementos sin un orden definido. Es SIZED y SUBSIZED,
+     * así que un stream paralelo lo divide en mitades exactas.
+     *
+     * @return un spliterator sobre los elementos actuales
+     */
+    @Override
+    public Spliterator<Item> spliterator() {
+        return new ArraySpliterator<>(a, 0, false, 0, count, 0);
+    }
+
+    /**
+     * Retorna un stream secuencial sobre los elementos.
+     *
+     * @return un stream de los elementos
+     */
+    public Stream<Item> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Retorna un stream paralelo sobre los elementos, que se reparte entre los hilos
+     * del pool fork-join común.
+     *
+     * @return un stream paralelo de los elementos
+     */
+    public Stream<Item> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
     /**
      * Retorna un iterador que permite recorrer los elementos en la bolsa.
      * 
@@ -84,6 +184,14 @@ public class Bag<Item> implements Iterable<Item> {
      * Clase interna privada que implementa Iterator para recorrer los elementos del Bag.
      */
     private class ArrayIterator implements Iterator<Item> {
+
+        /** Arreglo de la instantánea */
+        private final Item[] b = a;
+
+        /** Cantidad de elementos de la instantánea */
+        private final int n = count;
+
+        /** Índice actual del iterador */
         private int i = 0;
 
         /**
@@ -93,17 +201,19 @@ public class Bag<Item> implements Iterable<Item> {
          */
         @Override
         public boolean hasNext() {
-            return i < count;
+            return i < n;
         }
 
         /**
          * Retorna el siguiente elemento en la iteración.
          * 
          * @return el siguiente elemento
+         * @throws NoSuchElementException si ya no quedan elementos
          */
         @Override
         public Item next() {
-            return a[i++];
+            if (!hasNext()) throw new NoSuchElementException();
+            return b[i++];
         }
     }
 }
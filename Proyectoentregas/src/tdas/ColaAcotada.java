@@ -0,0 +1,51 @@
+package tdas;
+
+/**
+ * Cola con capacidad máxima que pueden compartir varios hilos productores y consumidores.
+ * La implementan {@link ConcurrentQueue}, que atiende en orden de llegada, y
+ * {@link ColaPrioridad}, que atiende primero los elementos de menor prioridad,
+ * de modo que quien solo encola y desencola puede usar cualquiera de las dos.
+ *
+ * @param <Item> el tipo de elementos almacenados en la cola
+ *
+ * @author piped
+ */
+public interface ColaAcotada<Item> {
+
+    /**
+     * Intenta agregar un elemento sin bloquear.
+     *
+     * @param item el elemento a agregar (no puede ser null)
+     * @return true si se agregó, false si la cola está llena
+     */
+    boolean offer(Item item);
+
+    /**
+     * Intenta retirar el siguiente elemento sin bloquear.
+     *
+     * @return el siguiente elemento, o null si la cola está vacía
+     */
+    Item poll();
+
+    /**
+     * Verifica si la cola está vacía en este instante.
+     *
+     * @return true si no hay elementos en la cola, false en caso contrario
+     */
+    boolean isEmpty();
+
+    /**
+     * Retorna la cantidad de elementos en la cola.
+     * Con hilos concurrentes el valor puede cambiar inmediatamente después.
+     *
+     * @return el número de elementos en la cola
+     */
+    int size();
+
+    /**
+     * Retorna la capacidad máxima de la cola.
+     *
+     * @return la capacidad de la cola
+     */
+    int capacity();
+}
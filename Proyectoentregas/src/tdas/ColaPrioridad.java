@@ -0,0 +1,346 @@
+package tdas;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Cola de prioridad acotada implementada con un montículo binario de mínimos.
+ * Cada elemento entra con una prioridad numérica, calculada con la llave de la cola
+ * o dada explícitamente, y sale primero el de menor prioridad; entre prioridades
+ * iguales se respeta el orden de llegada. Encolar y desencolar cuestan O(log n).
+ *
+ * Al encolar se obtiene una {@link Entrada} con la que después se puede adelantar el
+ * elemento bajando su prioridad ({@link #priorizar}, también O(log n)). Cada entrada
+ * guarda su posición en el montículo, así que no hace falta buscarla.
+ *
+ * Las operaciones son seguras para varios hilos: se sincronizan sobre la cola, y como
+ * cada una es logarítmica el candado se mantiene poco tiempo.
+ *
+ * @param <Item> el tipo de elementos almacenados en la cola
+ *
+ * @author piped
+ */
+public class ColaPrioridad<Item> implements ColaAcotada<Item> {
+
+    /**
+     * Elemento de la cola junto con su prioridad y su posición en el montículo.
+     *
+     * @param <Item> el tipo del elemento
+     */
+    public static final class Entrada<Item> {
+
+        /** Elemento encolado */
+        private final Item item;
+
+        /** Prioridad actual; sale primero la menor */
+        private double prioridad;
+
+        /** Número de llegada, que desempata prioridades iguales */
+        private final long llegada;
+
+        /** Posición en el montículo (desde 1), o 0 si ya salió de la cola */
+        private int pos;
+
+        /**
+         * Crea una entrada.
+         *
+         * @param item elemento encolado
+         * @param prioridad prioridad inicial
+         * @param llegada número de llegada
+         */
+        private Entrada(Item item, double prioridad, long llegada) {
+            this.item = item;
+            this.prioridad = prioridad;
+            this.llegada = llegada;
+        }
+
+        /**
+         * Retorna el elemento encolado.
+         *
+         * @return el elemento
+         */
+        public Item getItem() {
+            return item;
+        }
+
+        /**
+         * Retorna la prioridad actual del elemento.
+         *
+         * @return la prioridad; sale primero la menor
+         */
+        public double getPrioridad() {
+            return prioridad;
+        }
+    }
+
+    /** Orden de salida: menor prioridad primero y, a igual prioridad, el que llegó antes */
+    private static final Comparator<Entrada<?>> ORDEN =
+            Comparator.<Entrada<?>>comparingDouble(e -> e.prioridad).thenComparingLong(e -> e.llegada);
+
+    /** Capacidad inicial del arreglo del montículo */
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    /** Montículo de entradas en las posiciones 1..n */
+    private Entrada<Item>[] pq;
+
+    /** Cantidad de elementos en la cola */
+    private int n;
+
+    /** Número de llegada de la próxima entrada */
+    private long llegadas;
+
+    /** Llave que calcula la prioridad de cada elemento */
+    private final ToDoubleFunction<? super Item> llave;
+
+    /** Número máximo de elementos */
+    private final int capacidad;
+
+    /**
+     * Crea una cola vacía.
+     *
+     * @param llave función que calcula la prioridad de cada elemento; sale primero la menor
+     * @param capacidad número máximo de elementos que puede contener la cola
+     */
+    public ColaPrioridad(ToDoubleFunction<? super Item> llave, int capacidad) {
+        if (capacidad < 1)
+            throw new IllegalArgumentException("Capacidad invalida: " + capacidad);
+        this.llave = llave;
+        this.capacidad = capacidad;
+        pq = arreglo(Math.min(capacidad, CAPACIDAD_INICIAL) + 1);
+        n = 0;
+    }
+
+    /**
+     * Agrega un elemento con la prioridad que le asigna la llave.
+     *
+     * @param item el elemento a agregar (no puede ser null)
+     * @return true si se agregó, false si la cola está llena
+     */
+    @Override
+    public boolean offer(Item item) {
+        return encolar(item) != null;
+    }
+
+    /**
+     * Agrega un elemento con la prioridad que le asigna la llave.
+     *
+     * @param item el elemento a agregar (no puede ser null)
+     * @return la entrada del elemento, o null si la cola está llena
+     */
+    public synchronized Entrada<Item> encolar(Item item) {
+        if (item == null)
+            throw new NullPointerException();
+        return encolar(item, llave.applyAsDouble(item));
+    }
+
+    /**
+     * Agrega un elemento con una prioridad dada, sin usar la llave.
+     *
+     * @param item el elemento a agregar (no puede ser null)
+     * @param prioridad prioridad del elemento; sale primero la menor
+     * @return la entrada del elemento, o null si la cola está llena
+     */
+    public synchronized Entrada<Item> encolar(Item item, double prioridad) {
+        if (item == null)
+            throw new NullPointerException();
+        if (n == capacidad)
+            return null;
+        if (n == pq.length - 1)
+            resize(Math.min(capacidad, 2 * n) + 1);
+        Entrada<Item> e = new Entrada<>(item, prioridad, llegadas++);
+        pq[++n] = e;
+        e.pos = n;
+        swim(n);
+        return e;
+    }
+
+    /**
+     * Retira el elemento de menor prioridad.
+     *
+     * @return el elemento, o null si la cola está vacía
+     */
+    @Override
+    public synchronized Item poll() {
+        Entrada<Item> e = pollEntrada();
+        return e == null ? null : e.item;
+    }
+
+    /**
+     * Retira la entrada de menor prioridad.
+     *
+     * @return la entrada, o null si la cola está vacía
+     */
+    public synchronized Entrada<Item> pollEntrada() {
+        if (n == 0)
+            return null;
+        Entrada<Item> min = pq[1];
+        exch(1, n);
+        pq[n--] = null; // evita loitering
+        sink(1);
+        min.pos = 0;
+        if (n > 0 && n == (pq.length - 1) / 8 && (pq.length - 1) / 2 >= CAPACIDAD_INICIAL)
+            resize((pq.length - 1) / 2 + 1);
+        return min;
+    }
+
+    /**
+     * Retorna el elemento de menor prioridad sin retirarlo.
+     *
+     * @return el elemento, o null si la cola está vacía
+     */
+    public synchronized Item peek() {
+        return n == 0 ? null : pq[1].item;
+    }
+
+    /**
+     * Baja la prioridad de un elemento que sigue en la cola (decrease-key), para que
+     * salga antes.
+     *
+     * @param e entrada obtenida al encolar o con {@link #buscar}
+     * @param prioridad nueva prioridad, que no puede ser mayor que la actual
+     * @return true si se actualizó, false si el elemento ya no está en la cola
+     * @throws IllegalArgumentException si la nueva prioridad es mayor que la actual
+     */
+    public synchronized boolean priorizar(Entrada<Item> e, double prioridad) {
+        if (e.pos == 0 || e.pos > n || pq[e.pos] != e)
+            return false;
+        if (prioridad > e.prioridad)
+            throw new IllegalArgumentException("La prioridad solo puede bajar: " + e.prioridad + " -> " + prioridad);
+        e.prioridad = prioridad;
+        swim(e.pos);
+        return true;
+    }
+
+    /**
+     * Busca la entrada de un elemento que cumpla una condición. Recorre toda la cola.
+     *
+     * @param condicion condición que debe cumplir el elemento
+     * @return la primera entrada encontrada, o null si ninguna la cumple
+     */
+    public synchronized Entrada<Item> buscar(Predicate<? super Item> condicion) {
+        for (int i = 1; i <= n; i++) {
+            if (condicion.test(pq[i].item)) return pq[i];
+        }
+        return null;
+    }
+
+    /**
+     * Retorna las entradas en el orden en que saldrían, sin retirarlas. Cuesta O(n log n).
+     *
+     * @return lista de entradas, la de menor prioridad primero
+     */
+    public synchronized List<Entrada<Item>> ordenadas() {
+        Entrada<Item>[] copia = Arrays.copyOfRange(pq, 1, n + 1);
+        Arrays.sort(copia, ORDEN);
+        List<Entrada<Item>> res = new List<>(n);
+        res.addAll(copia, 0, n);
+        return res;
+    }
+
+    /**
+     * Verifica si la cola está vacía.
+     *
+     * @return true si no hay elementos en la cola, false en caso contrario
+     */
+    @Override
+    public synchronized boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * Retorna la cantidad de elementos en la cola.
+     *
+     * @return el número de elementos en la cola
+     */
+    @Override
+    public synchronized int size() {
+        return n;
+    }
+
+    /**
+     * Retorna la capacidad máxima de la cola.
+     *
+     * @return la capacidad de la cola
+     */
+    @Override
+    public int capacity() {
+        return capacidad;
+    }
+
+    /**
+     * Redimensiona el arreglo del montículo.
+     *
+     * @param maxCap nueva longitud del arreglo (capacidad + 1)
+     */
+    private void resize(int maxCap) {
+        Entrada<Item>[] aux = arreglo(maxCap);
+        System.arraycopy(pq, 1, aux, 1, n);
+        pq = aux;
+    }
+
+    /**
+     * Crea un arreglo de entradas.
+     *
+     * @param <T> el tipo de los elementos de las entradas
+     * @param n longitud del arreglo
+     * @return arreglo nuevo
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Entrada<T>[] arreglo(int n) {
+        return (Entrada<T>[]) new Entrada<?>[n];
+    }
+
+    /**
+     * Indica si la entrada en i sale después que la entrada en j.
+     *
+     * @param i posición en el montículo
+     * @param j posición en el montículo
+     * @return true si pq[i] tiene mayor prioridad que pq[j]
+     */
+    private boolean greater(int i, int j) {
+        return ORDEN.compare(pq[i], pq[j]) > 0;
+    }
+
+    /**
+     * Intercambia dos entradas del montículo y actualiza sus posiciones.
+     *
+     * @param i posición en el montículo
+     * @param j posición en el montículo
+     */
+    private void exch(int i, int j) {
+        Entrada<Item> t = pq[i];
+        pq[i] = pq[j];
+        pq[j] = t;
+        pq[i].pos = i;
+        pq[j].pos = j;
+    }
+
+    /**
+     * Sube la entrada en k mientras tenga menor prioridad que su padre.
+     *
+     * @param k posición en el montículo
+     */
+    private void swim(int k) {
+        while (k > 1 && greater(k / 2, k)) {
+            exch(k, k / 2);
+            k = k / 2;
+        }
+    }
+
+    /**
+     * Baja la entrada en k mientras tenga mayor prioridad que alguno de sus hijos.
+     *
+     * @param k posición en el montículo
+     */
+    private void sink(int k) {
+        while (2 * k <= n) {
+            int j = 2 * k;
+            if (j < n && greater(j, j + 1)) j++;
+            if (!greater(k, j)) break;
+            exch(k, j);
+            k = j;
+        }
+    }
+}
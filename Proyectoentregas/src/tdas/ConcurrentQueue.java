@@ -0,0 +1,233 @@
+package tdas;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cola acotada y segura para múltiples hilos productores y consumidores.
+ * Usa un arreglo circular sin bloqueos: cada casilla lleva un número de secuencia
+ * que indica si está libre para un productor o lista para un consumidor, y los
+ * índices de cabeza y cola se reservan con compareAndSet. Así varios productores
+ * pueden encolar al mismo tiempo sin serializarse en un candado.
+ *
+ * Ofrece operaciones no bloqueantes (offer/poll), bloqueantes (put/take)
+ * y con tiempo máximo de espera.
+ *
+ * @param <Item> el tipo de elementos almacenados en la cola
+ *
+ * @author piped
+ */
+public class ConcurrentQueue<Item> implements ColaAcotada<Item> {
+
+    /** Casillas del arreglo circular */
+    private final AtomicReferenceArray<Item> a;
+
+    /** Número de secuencia de cada casilla */
+    private final AtomicLongArray secuencia;
+
+    /** Máscara para convertir una posición en índice (capacidad - 1) */
+    private final int mask;
+
+    /** Próxima posición a reservar por un productor */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Próxima posición a reservar por un consumidor */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Crea una cola con al menos la capacidad indicada.
+     * La capacidad real se redondea a la siguiente potencia de 2, y es al menos 2: con
+     * una sola casilla, el número de secuencia de "ocupada" coincidiría con el de "libre
+     * para la siguiente vuelta" y la cola aceptaría elementos estando llena.
+     *
+     * @param capacidad número máximo de elementos que puede contener la cola
+     */
+    public ConcurrentQueue(int capacidad) {
+        if (capacidad < 1 || capacidad > (1 << 30))
+            throw new IllegalArgumentException("Capacidad invalida: " + capacidad);
+        int cap = Integer.highestOneBit(Math.max(2, capacidad));
+        if (cap < capacidad)
+            cap <<= 1;
+        a = new AtomicReferenceArray<>(cap);
+        secuencia = new AtomicLongArray(cap);
+        for (int i = 0; i < cap; i++) {
+            secuencia.set(i, i);
+        }
+        mask = cap - 1;
+    }
+
+    /**
+     * Intenta agregar un elemento al final de la cola sin bloquear.
+     *
+     * @param item el elemento a agregar (no puede ser null)
+     * @return true si se agregó, false si la cola está llena
+     */
+    @Override
+    public boolean offer(Item item) {
+        if (item == null)
+            throw new NullPointerException();
+        long pos = tail.get();
+        while (true) {
+            int i = (int) pos & mask;
+            long dif = secuencia.get(i) - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    a.lazySet(i, item);
+                    secuencia.set(i, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (dif < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Intenta retirar el primer elemento de la cola sin bloquear.
+     *
+     * @return el primer elemento, o null si la cola está vacía
+     */
+    @Override
+    public Item poll() {
+        long pos = head.get();
+        while (true) {
+            int i = (int) pos & mask;
+            long dif = secuencia.get(i) - (pos + 1);
+            if (dif == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    Item item = a.get(i);
+                    a.lazySet(i, null);
+                    secuencia.set(i, pos + mask + 1);
+                    return item;
+                }
+                pos = head.get();
+            } else if (dif < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * Agrega un elemento esperando, si es necesario, a que haya espacio.
+     *
+     * @param item el elemento a agregar
+     * @throws InterruptedException si el hilo es interrumpido mientras espera
+     */
+    public void put(Item item) throws InterruptedException {
+        for (int intento = 0; !offer(item); intento++) {
+            esperar(intento);
+        }
+    }
+
+    /**
+     * Retira el primer elemento esperando, si es necesario, a que haya uno.
+     *
+     * @return el primer elemento de la cola
+     * @throws InterruptedException si el hilo es interrumpido mientras espera
+     */
+    public Item take() throws InterruptedException {
+        Item item;
+        for (int intento = 0; (item = poll()) == null; intento++) {
+            esperar(intento);
+        }
+        return item;
+    }
+
+    /**
+     * Intenta agregar un elemento esperando como máximo el tiempo indicado.
+     *
+     * @param item el elemento a agregar
+     * @param tiempo tiempo máximo de espera
+     * @param unidad unidad del tiempo de espera
+     * @return true si se agregó, false si se agotó el tiempo
+     * @throws InterruptedException si el hilo es interrumpido mientras espera
+     */
+    public boolean offer(Item item, long tiempo, TimeUnit unidad) throws InterruptedException {
+        long limite = System.nanoTime() + unidad.toNanos(tiempo);
+        for (int intento = 0; !offer(item); intento++) {
+            if (System.nanoTime() - limite >= 0)
+                return false;
+            esperar(intento);
+        }
+        return true;
+    }
+
+    /**
+     * Intenta retirar el primer elemento esperando como máximo el tiempo indicado.
+     *
+     * @param tiempo tiempo máximo de espera
+     * @param unidad unidad del tiempo de espera
+     * @return el primer elemento, o null si se agotó el tiempo
+     * @throws InterruptedException si el hilo es interrumpido mientras espera
+     */
+    public Item poll(long tiempo, TimeUnit unidad) throws InterruptedException {
+        long limite = System.nanoTime() + unidad.toNanos(tiempo);
+        Item item;
+        for (int intento = 0; (item = poll()) == null; intento++) {
+            if (System.nanoTime() - limite >= 0)
+                return null;
+            esperar(intento);
+        }
+        return item;
+    }
+
+    /**
+     * Espera activa corta seguida de pausas crecientes, para no consumir
+     * un núcleo completo cuando la cola permanece llena o vacía.
+     *
+     * @param intento número de intentos fallidos consecutivos
+     * @throws InterruptedException si el hilo fue interrumpido
+     */
+    private static void esperar(int intento) throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        if (intento < 64) {
+            Thread.onSpinWait();
+        } else if (intento < 128) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(1_000_000L, 1_000L << Math.min(intento - 128, 10)));
+        }
+    }
+
+    /**
+     * Verifica si la cola está vacía en este instante.
+     *
+     * @return true si no hay elementos en la cola, false en caso contrario
+     */
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Retorna una estimación de la cantidad de elementos en la cola.
+     * Con hilos concurrentes el valor puede cambiar inmediatamente después.
+     *
+     * @return el número de elementos en la cola
+     */
+    @Override
+    public int size() {
+        long h = head.get();
+        long t = tail.get();
+        return (int) Math.max(0, Math.min(t - h, capacity()));
+    }
+
+    /**
+     * Retorna la capacidad máxima de la cola.
+     *
+     * @return la capacidad de la cola
+     */
+    @Override
+    public int capacity() {
+        return mask + 1;
+    }
+}
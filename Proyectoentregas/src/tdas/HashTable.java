@@ -0,0 +1,231 @@
+package tdas;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Tabla de símbolos implementada con hashing y sondeo lineal (linear probing).
+ * Asocia cada llave con un único valor y permite buscar, insertar y eliminar
+ * en tiempo O(1) esperado. El arreglo se duplica cuando se llena a la mitad
+ * y se reduce a la mitad cuando queda ocupado a un octavo.
+ *
+ * @param <Key> el tipo de las llaves
+ * @param <Value> el tipo de los valores asociados
+ *
+ * @author piped
+ */
+public class HashTable<Key, Value> implements Iterable<Key> {
+
+    /** Llaves almacenadas; null indica una casilla libre */
+    private Key[] keys;
+
+    /** Valores asociados a cada llave, en la misma posición */
+    private Value[] vals;
+
+    /** Número de pares llave-valor en la tabla */
+    private int count;
+
+    /**
+     * Crea una tabla vacía con capacidad inicial de 4.
+     */
+    public HashTable() {
+        this(4);
+    }
+
+    /**
+     * Crea una tabla vacía con la capacidad inicial indicada.
+     *
+     * @param capacidad capacidad inicial del arreglo interno
+     */
+    public HashTable(int capacidad) {
+        keys = arreglo(Math.max(capacidad, 1));
+        vals = arreglo(Math.max(capacidad, 1));
+        count = 0;
+    }
+
+    /**
+     * Calcula la posición inicial de una llave en el arreglo.
+     *
+     * @param key la llave
+     * @return índice entre 0 y la capacidad del arreglo
+     */
+    private int hash(Key key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % keys.length;
+    }
+
+    /**
+     * Asocia un valor a una llave. Si la llave ya existía, reemplaza su valor.
+     *
+     * @param key la llave (no puede ser null)
+     * @param val el valor; si es null la llave se elimina
+     */
+    public void put(Key key, Value val) {
+        if (key == null)
+            throw new IllegalArgumentException("La llave no puede ser null");
+        if (val == null) {
+            delete(key);
+            return;
+        }
+        if (count >= keys.length / 2)
+            resize(2 * keys.length);
+        int i;
+        for (i = hash(key); keys[i] != null; i = (i + 1) % keys.length) {
+            if (keys[i].equals(key)) {
+                vals[i] = val;
+                return;
+            }
+        }
+        keys[i] = key;
+        vals[i] = val;
+        count++;
+    }
+
+    /**
+     * Retorna el valor asociado a una llave.
+     *
+     * @param key la llave a buscar
+     * @return el valor asociado, o null si la llave no existe
+     */
+    public Value get(Key key) {
+        if (key == null)
+            return null;
+        for (int i = hash(key); keys[i] != null; i = (i + 1) % keys.length) {
+            if (keys[i].equals(key))
+                return vals[i];
+        }
+        return null;
+    }
+
+    /**
+     * Verifica si la tabla contiene la llave.
+     *
+     * @param key la llave a buscar
+     * @return true si la llave existe, false en caso contrario
+     */
+    public boolean contains(Key key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Elimina una llave y su valor de la tabla, si existe.
+     *
+     * @param key la llave a eliminar
+     */
+    public void delete(Key key) {
+        if (!contains(key))
+            return;
+        int i = hash(key);
+        while (!key.equals(keys[i])) {
+            i = (i + 1) % keys.length;
+        }
+        keys[i] = null;
+        vals[i] = null;
+        // reinserta el resto del grupo para no romper la secuencia de sondeo
+        i = (i + 1) % keys.length;
+        while (keys[i] != null) {
+            Key k = keys[i];
+            Value v = vals[i];
+            keys[i] = null;
+            vals[i] = null;
+            count--;
+            put(k, v);
+            i = (i + 1) % keys.length;
+        }
+        count--;
+        if (count > 0 && count <= keys.length / 8)
+            resize(keys.length / 2);
+    }
+
+    /**
+     * Verifica si la tabla está vacía.
+     *
+     * @return true si no hay llaves, false en caso contrario
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Retorna el número de llaves en la tabla.
+     *
+     * @return el tamaño de la tabla
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Redimensiona el arreglo y reubica todas las llaves.
+     *
+     * @param maxCap la nueva capacidad del arreglo
+     */
+    private void resize(int maxCap) {
+        Key[] oldKeys = keys;
+        Value[] oldVals = vals;
+        keys = arreglo(maxCap);
+        vals = arreglo(maxCap);
+        count = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null)
+                put(oldKeys[i], oldVals[i]);
+        }
+    }
+
+    /**
+     * Crea un arreglo genérico nuevo.
+     *
+     * @param <T> el tipo de los elementos del arreglo
+     * @param n longitud del arreglo
+     * @return arreglo de n posiciones vacías
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] arreglo(int n) {
+        return (T[]) new Object[n];
+    }
+
+    /**
+     * Retorna un iterador sobre las llaves de la tabla, sin orden específico.
+     *
+     * @return un iterador sobre las llaves
+     */
+    @Override
+    public Iterator<Key> iterator() {
+        return new KeyIterator();
+    }
+
+    /**
+     * Clase interna que recorre las casillas ocupadas del arreglo.
+     */
+    private class KeyIterator implements Iterator<Key> {
+
+        /** Índice de la próxima casilla a revisar */
+        private int i = 0;
+
+        /**
+         * Verifica si hay más llaves por iterar.
+         *
+         * @return true si quedan llaves, false en caso contrario
+         */
+        @Override
+        public boolean hasNext() {
+            while (i < keys.length && keys[i] == null)
+                i++;
+            return i < keys.length;
+        }
+
+        /**
+         * Retorna la siguiente llave de la iteración.
+         *
+         * @return la siguiente llave
+         * @throws NoSuchElementException si ya no quedan llaves
+         */
+        @Override
+        public Key next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return keys[i++];
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package tdas;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Control de las instantáneas de una colección del paquete respaldada por un arreglo
+ * con copia al escribir ({@link List}, {@link Stack} y {@link Queue}).
+ *
+ * Funciona como un candado de secuencia: el hilo que escribe incrementa la versión al
+ * empezar y al terminar cada modificación, de modo que la versión es impar mientras la
+ * colección está a medio modificar. Para tomar una instantánea, un hilo cualquiera marca
+ * el arreglo como compartido, lee la versión, copia las referencias que necesita (arreglo,
+ * cantidad, cabeza) y confirma que la versión no cambió y que la marca sigue puesta; si
+ * no, lo intenta de nuevo. Los lectores nunca bloquean al que escribe.
+ *
+ * Como la versión y la marca son volátiles, una escritura que empieza después de tomada
+ * la instantánea siempre ve la marca y copia el arreglo antes de tocar posiciones
+ * ocupadas, y la instantánea ve todos los elementos escritos antes de la última
+ * modificación terminada.
+ *
+ * Solo puede escribir un hilo a la vez (las escrituras deben sincronizarse por fuera).
+ *
+ * @author piped
+ */
+final class Instantaneas {
+
+    /** Número de modificaciones empezadas y terminadas; impar durante una modificación */
+    private volatile int version;
+
+    /** true si alguna instantánea comparte el arreglo actual */
+    private volatile boolean compartido;
+
+    /**
+     * Marca el comienzo de una modificación.
+     */
+    void empezar() {
+        version++;
+    }
+
+    /**
+     * Marca el fin de una modificación.
+     */
+    void terminar() {
+        version++;
+    }
+
+    /**
+     * Indica si alguna instantánea comparte el arreglo. Solo tiene sentido dentro de
+     * una modificación.
+     *
+     * @return true si hay que copiar el arreglo antes de escribir sobre posiciones ocupadas
+     */
+    boolean compartido() {
+        return compartido;
+    }
+
+    /**
+     * Indica que la colección ya no usa el arreglo que comparten las instantáneas.
+     */
+    void soltar() {
+        if (compartido)
+            compartido = false;
+    }
+
+    /**
+     * Empieza a tomar una instantánea: marca el arreglo como compartido y espera a que
+     * no haya una modificación en curso.
+     *
+     * @return la versión que después se pasa a {@link #valida}
+     */
+    int compartir() {
+        compartido = true;
+        int v;
+        while (((v = version) & 1) != 0) {
+            Thread.onSpinWait();
+        }
+        return v;
+    }
+
+    /**
+     * Confirma la instantánea leída después de {@link #compartir}.
+     *
+     * @param v versión devuelta por {@link #compartir}
+     * @return true si la instantánea es consistente, false si hay que volver a tomarla
+     */
+    boolean valida(int v) {
+        VarHandle.acquireFence();
+        return version == v && compartido;
+    }
+}
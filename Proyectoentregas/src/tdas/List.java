@@ -1,12 +1,23 @@
 package tdas;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementación de una lista dinámica que almacena elementos genéricos.
  * Permite operaciones como agregar, eliminar, acceder, modificar elementos,
  * y recorrerlos mediante iteradores.
  *
+ * Los iteradores, spliterators y streams recorren una instantánea: se crean en O(1)
+ * y ven los elementos que había al crearlos, aunque la lista cambie después. Pueden
+ * crearse y recorrerse desde cualquier hilo, sin candados y sin bloquear al que escribe
+ * (ver {@link Instantaneas}); las modificaciones, en cambio, deben hacerse desde un
+ * solo hilo a la vez.
+ *
  * @param <Item> el tipo de elementos almacenados en la lista
  * 
  * @author piped
@@ -19,11 +30,29 @@ public class List<Item> implements Iterable<Item> {
     /** Cantidad de elementos actuales en la lista */
     private int count;
 
+    /**
+     * Versión y marca de arreglo compartido. Si algún iterador o spliterator comparte el
+     * arreglo, la siguiente escritura sobre posiciones ocupadas lo copia antes (copia al
+     * escribir); agregar al final no toca esas posiciones y no copia.
+     */
+    private final Instantaneas control = new Instantaneas();
+
     /**
      * Constructor que inicializa la lista con capacidad inicial de 1.
      */
     public List() {
-        a = (Item[]) new Object[1];
+        a = arreglo(1);
+        count = 0;
+    }
+
+    /**
+     * Constructor que inicializa la lista con la capacidad indicada, para evitar
+     * redimensionar cuando se conoce de antemano cuántos elementos tendrá.
+     *
+     * @param capacidad capacidad inicial (mínimo 1)
+     */
+    public List(int capacidad) {
+        a = arreglo(Math.max(1, capacidad));
         count = 0;
     }
 
@@ -33,9 +62,14 @@ public class List<Item> implements Iterable<Item> {
      * @param item el elemento a agregar
      */
     public void list(Item item) {
-        if (count == a.length)
-            resize(a.length * 2);
-        a[count++] = item;
+        control.empezar();
+        try {
+            if (count == a.length)
+                resize(a.length * 2);
+            a[count++] = item;
+        } finally {
+            control.terminar();
+        }
     }
 
     /**
@@ -46,15 +80,21 @@ public class List<Item> implements Iterable<Item> {
      * @return true si el elemento fue agregado exitosamente, false si el índice es inválido
      */
     public boolean add(int index, Item placa) {
-        if (index >= 0 && index <= count) {
+        if (index < 0 || index > count)
+            return false;
+        control.empezar();
+        try {
             if (count == a.length)
                 resize(a.length * 2);
+            if (index < count)
+                separar();
             shiftRight(index);
             a[index] = placa;
             count++;
             return true;
+        } finally {
+            control.terminar();
         }
-        return false;
     }
 
     /**
@@ -76,11 +116,115 @@ public class List<Item> implements Iterable<Item> {
     }
 
     /**
-     * Elimina todos los elementos de la lista.
+     * Agrega al final de la lista todos los elementos de otra, en orden.
+     *
+     * @param otra lista cuyos elementos se agregan
+     */
+    public void addAll(List<? extends Item> otra) {
+        control.empezar();
+        try {
+            int n = otra.count;
+            crecer(count + n);
+            System.arraycopy(otra.a, 0, a, count, n);
+            count += n;
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Agrega al final de la lista un tramo de un arreglo, en orden.
+     *
+     * @param items arreglo de origen
+     * @param desde posición del primer elemento a agregar
+     * @param n cantidad de elementos a agregar
+     */
+    public void addAll(Item[] items, int desde, int n) {
+        control.empezar();
+        try {
+            crecer(count + n);
+            System.arraycopy(items, desde, a, count, n);
+            count += n;
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Mueve todos los elementos al final de otra lista, en orden, y deja esta vacía.
+     * Se conserva la capacidad para poder volver a llenarla sin redimensionar.
+     *
+     * @param destino lista que recibe los elementos
+     */
+    public void drainTo(List<? super Item> destino) {
+        destino.addAll(a, 0, count);
+        clear();
+    }
+
+    /**
+     * Elimina todos los elementos de la lista, conservando la capacidad.
      */
     public void clear() {
-        a = (Item[]) new Object[a.length];
-        count = 0;
+        control.empezar();
+        try {
+            if (control.compartido()) {
+                a = arreglo(a.length);
+                control.soltar();
+            } else {
+                Arrays.fill(a, 0, count, null);
+            }
+            count = 0;
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Garantiza que la lista pueda guardar al menos la cantidad de elementos indicada
+     * sin redimensionar. Si hay que crecer, al menos se duplica la capacidad.
+     *
+     * @param minimo capacidad mínima requerida
+     */
+    public void ensureCapacity(int minimo) {
+        control.empezar();
+        try {
+            crecer(minimo);
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Reduce la capacidad al número de elementos actuales (mínimo 1).
+     */
+    public void trimToSize() {
+        control.empezar();
+        try {
+            if (a.length > Math.max(1, count))
+                resize(Math.max(1, count));
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Retorna la longitud del arreglo interno. Lo usan las pruebas del paquete.
+     *
+     * @return capacidad actual de la lista
+     */
+    int capacidad() {
+        return a.length;
+    }
+
+    /**
+     * Crece el arreglo, dentro de una modificación, si no alcanza para la cantidad
+     * de elementos indicada. Si hay que crecer, al menos se duplica la capacidad.
+     *
+     * @param minimo capacidad mínima requerida
+     */
+    private void crecer(int minimo) {
+        if (minimo > a.length)
+            resize(Math.max(minimo, a.length * 2));
     }
 
     /**
@@ -89,11 +233,33 @@ public class List<Item> implements Iterable<Item> {
      * @param maxCap nueva capacidad del arreglo
      */
     private void resize(int maxCap) {
-        Item[] aux = (Item[]) new Object[maxCap];
-        for (int i = 0; i < count; i++) {
-            aux[i] = a[i];
-        }
+        Item[] aux = arreglo(maxCap);
+        System.arraycopy(a, 0, aux, 0, count);
         a = aux;
+        control.soltar();
+    }
+
+    /**
+     * Crea un arreglo genérico nuevo.
+     *
+     * @param <T> el tipo de los elementos del arreglo
+     * @param n longitud del arreglo
+     * @return arreglo de n posiciones vacías
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] arreglo(int n) {
+        return (T[]) new Object[n];
+    }
+
+    /**
+     * Si un iterador comparte el arreglo, lo copia antes de escribir sobre las
+     * posiciones que ese iterador todavía puede leer.
+     */
+    private void separar() {
+        if (control.compartido()) {
+            a = Arrays.copyOf(a, a.length);
+            control.soltar();
+        }
     }
 
     /**
@@ -140,13 +306,18 @@ public class List<Item> implements Iterable<Item> {
      * @return el elemento eliminado, o null si el índice es inválido
      */
     public Item remove(int index) {
-        if (!isEmpty() && index >= 0 && index < count) {
+        if (index < 0 || index >= count)
+            return null;
+        control.empezar();
+        try {
             Item aux = a[index];
+            separar();
             shiftLeft(index);
             count--;
             return aux;
+        } finally {
+            control.terminar();
         }
-        return null;
     }
 
     /**
@@ -164,9 +335,36 @@ public class List<Item> implements Iterable<Item> {
      * @return el último elemento eliminado
      */
     public Item removeLast() {
-        Item aux = a[--count];
-        a[count] = null;
-        return aux;
+        if (count == 0)
+            throw new ArrayIndexOutOfBoundsException(-1);
+        control.empezar();
+        try {
+            separar();
+            Item aux = a[--count];
+            a[count] = null;
+            return aux;
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Elimina los n últimos elementos de la lista y los copia, en orden, en un arreglo.
+     *
+     * @param n cantidad de elementos a eliminar (entre 0 y size())
+     * @param destino arreglo que recibe los elementos
+     * @param pos posición del arreglo donde se copia el primero de ellos
+     */
+    public void removeLast(int n, Item[] destino, int pos) {
+        control.empezar();
+        try {
+            separar();
+            System.arraycopy(a, count - n, destino, pos, n);
+            Arrays.fill(a, count - n, count, null);
+            count -= n;
+        } finally {
+            control.terminar();
+        }
     }
 
     /**
@@ -177,12 +375,17 @@ public class List<Item> implements Iterable<Item> {
      * @return el elemento anterior, o null si el índice es inválido
      */
     public Item set(int index, Item placa) {
-        if (!isEmpty() && index >= 0 && index < count) {
+        if (index < 0 || index >= count)
+            return null;
+        control.empezar();
+        try {
             Item aux = a[index];
+            separar();
             a[index] = placa;
             return aux;
+        } finally {
+            control.terminar();
         }
-        return null;
     }
 
     /**
@@ -194,15 +397,24 @@ public class List<Item> implements Iterable<Item> {
         return count;
     }
 
+    /**
+     * Copia los elementos de la lista en un arreglo, a partir de la posición dada.
+     * Lo usan las demás colecciones del paquete para sus operaciones en bloque.
+     *
+     * @param destino arreglo que recibe los elementos
+     * @param pos posición del arreglo donde se copia el primer elemento
+     */
+    void copiarEn(Object[] destino, int pos) {
+        System.arraycopy(a, 0, destino, pos, count);
+    }
+
     /**
      * Desplaza los elementos una posición a la izquierda desde el índice dado.
      *
      * @param index índice desde donde se comenzará a desplazar
      */
     private void shiftLeft(int index) {
-        for (int i = index; i < count - 1; i++) {
-            a[i] = a[i + 1];
-        }
+        System.arraycopy(a, index + 1, a, index, count - 1 - index);
         a[count - 1] = null;
     }
 
@@ -212,11 +424,45 @@ public class List<Item> implements Iterable<Item> {
      * @param index índice desde donde se comenzará a desplazar
      */
     private void shiftRight(int index) {
-        for (int i = count; i > index; i--) {
-            a[i] = a[i - 1];
+        System.arraycopy(a, index, a, index + 1, count - index);
+    }
+
+    /**
+     * Retorna un spliterator que recorre los elementos en orden. Es SIZED y SUBSIZED,
+     * así que un stream paralelo lo divide en mitades exactas.
+     *
+     * @return un spliterator sobre una instantánea de los elementos actuales
+     */
+    @Override
+    public Spliterator<Item> spliterator() {
+        while (true) {
+            int v = control.compartir();
+            Item[] b = a;
+            int n = count;
+            if (control.valida(v))
+                return new ArraySpliterator<>(b, 0, false, 0, n, Spliterator.ORDERED);
         }
     }
 
+    /**
+     * Retorna un stream secuencial sobre los elementos.
+     *
+     * @return un stream de los elementos
+     */
+    public Stream<Item> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Retorna un stream paralelo sobre los elementos, que se reparte entre los hilos
+     * del pool fork-join común.
+     *
+     * @return un stream paralelo de los elementos
+     */
+    public Stream<Item> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
     /**
      * Retorna un iterador para recorrer los elementos de la lista.
      *
@@ -224,17 +470,40 @@ public class List<Item> implements Iterable<Item> {
      */
     @Override
     public Iterator<Item> iterator() {
-        return new ArrayIterator();
+        while (true) {
+            int v = control.compartir();
+            Item[] b = a;
+            int n = count;
+            if (control.valida(v))
+                return new ArrayIterator(b, n);
+        }
     }
 
     /**
-     * Clase interna que implementa el iterador de la lista.
+     * Clase interna que implementa el iterador de la lista sobre una instantánea.
      */
     private class ArrayIterator implements Iterator<Item> {
 
+        /** Arreglo de la instantánea */
+        private final Item[] b;
+
+        /** Cantidad de elementos de la instantánea */
+        private final int n;
+
         /** Índice actual del iterador */
         private int i = 0;
 
+        /**
+         * Crea un iterador sobre una instantánea.
+         *
+         * @param b arreglo de la instantánea
+         * @param n cantidad de elementos de la instantánea
+         */
+        ArrayIterator(Item[] b, int n) {
+            this.b = b;
+            this.n = n;
+        }
+
         /**
          * Verifica si hay más elementos por iterar.
          *
@@ -242,17 +511,19 @@ public class List<Item> implements Iterable<Item> {
          */
         @Override
         public boolean hasNext() {
-            return i < count;
+            return i < n;
         }
 
         /**
          * Retorna el siguiente elemento en la iteración.
          *
          * @return el siguiente elemento
+         * @throws NoSuchElementException si ya no quedan elementos
          */
         @Override
         public Item next() {
-            return a[i++];
+            if (!hasNext()) throw new NoSuchElementException();
+            return b[i++];
         }
     }
 }
@@ -1,30 +1,69 @@
 package tdas;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Implementación de una estructura de datos tipo Cola (Queue) usando un arreglo dinámico.
+ * Implementación de una estructura de datos tipo Cola (Queue) usando un arreglo circular.
  * Permite operaciones básicas como agregar (enqueue), remover (dequeue), verificar si está vacía
- * y obtener el tamaño. Al remover elementos, los datos se desplazan hacia la izquierda.
- * 
+ * y obtener el tamaño. Los índices de cabeza (head) y cola (tail) avanzan de forma circular,
+ * por lo que encolar y desencolar cuestan O(1) amortizado sin desplazar los datos.
+ *
+ * Los iteradores, spliterators y streams recorren una instantánea creada en O(1); pueden
+ * crearse y recorrerse desde cualquier hilo sin candados (ver {@link Instantaneas}),
+ * mientras las modificaciones se hagan desde un solo hilo a la vez.
+ *
  * @param <Item> el tipo de elementos almacenados en la cola
- * 
+ *
  * @author piped
  */
 public class Queue<Item> implements Iterable<Item> {
 
-    /** Arreglo que almacena los elementos de la cola */
+    /** Arreglo circular que almacena los elementos de la cola */
     private Item[] a;
 
     /** Contador de elementos actuales en la cola */
     private int count;
 
+    /** Índice del primer elemento de la cola */
+    private int head;
+
+    /** Índice donde se insertará el próximo elemento */
+    private int tail;
+
+    /** Capacidad por debajo de la cual la cola no se reduce al desencolar */
+    private final int minimo;
+
+    /**
+     * Versión y marca de arreglo compartido. Si algún iterador o spliterator comparte el
+     * arreglo, la siguiente escritura sobre posiciones ocupadas lo copia antes (copia al
+     * escribir); agregar elementos no toca esas posiciones y no copia.
+     */
+    private final Instantaneas control = new Instantaneas();
+
     /**
      * Constructor que inicializa una cola vacía con capacidad inicial de 1.
      */
     public Queue() {
-        a = (Item[]) new Object[1];
+        this(1);
+    }
+
+    /**
+     * Constructor que inicializa una cola vacía con la capacidad indicada.
+     * Al desencolar, el arreglo nunca se reduce por debajo de esa capacidad.
+     *
+     * @param capacidad capacidad inicial (mínimo 1)
+     */
+    public Queue(int capacidad) {
+        minimo = Math.max(1, capacidad);
+        a = arreglo(minimo);
         count = 0;
+        head = 0;
+        tail = 0;
     }
 
     /**
@@ -34,16 +73,95 @@ public class Queue<Item> implements Iterable<Item> {
      * @param item el elemento a agregar
      */
     public void enqueue(Item item) {
-        if (count == a.length) {
-            resize(a.length * 2);
+        control.empezar();
+        try {
+            if (count == a.length) {
+                resize(a.length * 2);
+            }
+            a[tail] = item;
+            tail = (tail + 1) % a.length;
+            count++;
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Agrega en orden un tramo de un arreglo al final de la cola. Se copia en a lo
+     * sumo dos bloques, uno hasta el final del arreglo circular y otro desde el inicio.
+     *
+     * @param items arreglo de origen
+     * @param desde posición del primer elemento a encolar
+     * @param n cantidad de elementos a encolar
+     */
+    public void enqueueAll(Item[] items, int desde, int n) {
+        control.empezar();
+        try {
+            crecer(count + n);
+            int primero = Math.min(n, a.length - tail);
+            System.arraycopy(items, desde, a, tail, primero);
+            System.arraycopy(items, desde + primero, a, 0, n - primero);
+            tail = (tail + n) % a.length;
+            count += n;
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Agrega en orden los elementos de una lista al final de la cola.
+     *
+     * @param items lista de elementos a encolar
+     */
+    public void enqueueAll(List<? extends Item> items) {
+        int n = items.size();
+        control.empezar();
+        try {
+            crecer(count + n);
+            // si el espacio libre no es contiguo desde tail, se realinea la cola en 0
+            if (tail >= head && tail + n > a.length)
+                resize(a.length);
+            items.copiarEn(a, tail);
+            tail = (tail + n) % a.length;
+            count += n;
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Desencola todos los elementos y los agrega al final de una lista, en orden.
+     * La cola conserva su capacidad.
+     *
+     * @param destino lista que recibe los elementos
+     */
+    public void drainTo(List<? super Item> destino) {
+        int primero = Math.min(count, a.length - head);
+        destino.addAll(a, head, primero);
+        destino.addAll(a, 0, count - primero);
+        control.empezar();
+        try {
+            if (control.compartido()) {
+                a = arreglo(a.length);
+                control.soltar();
+            } else {
+                Arrays.fill(a, head, head + primero, null);
+                Arrays.fill(a, 0, count - primero, null);
+            }
+            count = 0;
+            head = 0;
+            tail = 0;
+        } finally {
+            control.terminar();
         }
-        a[count++] = item;
     }
 
     /**
      * Elimina y retorna el primer elemento de la cola.
      * Si la cola está vacía, retorna null.
-     * Redimensiona el arreglo si es necesario para ahorrar espacio.
+     * El arreglo se reduce a la mitad cuando queda ocupado a 1/8, de modo que
+     * después de reducirlo hace falta cuadruplicar los elementos para volver a
+     * crecer y una carga que oscila cerca del umbral no redimensiona en cada operación.
      *
      * @return el primer elemento en la cola, o null si está vacía
      */
@@ -51,22 +169,19 @@ public class Queue<Item> implements Iterable<Item> {
         if (isEmpty()) {
             return null;
         }
-        Item item = a[0];
-        shiftLeft();        
-        a[--count] = null;   
-        if (count > 0 && count == a.length / 4) {
-            resize(a.length / 2);
-        }
-        return item;
-    }
-
-    /**
-     * Desplaza todos los elementos del arreglo una posición a la izquierda.
-     * Se utiliza luego de hacer un dequeue.
-     */
-    private void shiftLeft() {
-        for (int i = 1; i < count; i++) {
-            a[i - 1] = a[i];
+        control.empezar();
+        try {
+            separar();
+            Item item = a[head];
+            a[head] = null; // evita loitering
+            head = (head + 1) % a.length;
+            count--;
+            if (count > 0 && count == a.length / 8 && a.length / 2 >= minimo) {
+                resize(a.length / 2);
+            }
+            return item;
+        } finally {
+            control.terminar();
         }
     }
 
@@ -88,17 +203,133 @@ public class Queue<Item> implements Iterable<Item> {
         return count;
     }
 
+    /**
+     * Garantiza que la cola pueda guardar al menos la cantidad de elementos indicada
+     * sin redimensionar. Si hay que crecer, al menos se duplica la capacidad.
+     *
+     * @param capacidad capacidad mínima requerida
+     */
+    public void ensureCapacity(int capacidad) {
+        control.empezar();
+        try {
+            crecer(capacidad);
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Reduce la capacidad al número de elementos actuales (mínimo 1). La capacidad
+     * dada al construir la cola sigue siendo el piso para las reducciones posteriores,
+     * así que recortar no impide liberar memoria al vaciarla.
+     */
+    public void trimToSize() {
+        control.empezar();
+        try {
+            int capacidad = Math.max(1, count);
+            if (a.length > capacidad)
+                resize(capacidad);
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Retorna la longitud del arreglo interno. Lo usan las pruebas del paquete.
+     *
+     * @return capacidad actual de la cola
+     */
+    int capacidad() {
+        return a.length;
+    }
+
+    /**
+     * Crece el arreglo, dentro de una modificación, si no alcanza para la cantidad
+     * de elementos indicada. Si hay que crecer, al menos se duplica la capacidad.
+     *
+     * @param capacidad capacidad mínima requerida
+     */
+    private void crecer(int capacidad) {
+        if (capacidad > a.length)
+            resize(Math.max(capacidad, a.length * 2));
+    }
+
     /**
      * Redimensiona el arreglo interno a una nueva capacidad.
+     * Los elementos se copian en orden desde la cabeza, en a lo sumo dos bloques,
+     * de modo que en el nuevo arreglo la cola queda nuevamente alineada en la posición 0.
      *
      * @param maxCap la nueva capacidad del arreglo
      */
     private void resize(int maxCap) {
-        Item[] aux = (Item[]) new Object[maxCap];
-        for (int i = 0; i < count; i++) {
-            aux[i] = a[i];
-        }
+        Item[] aux = arreglo(maxCap);
+        int primero = Math.min(count, a.length - head);
+        System.arraycopy(a, head, aux, 0, primero);
+        System.arraycopy(a, 0, aux, primero, count - primero);
         a = aux;
+        control.soltar();
+        head = 0;
+        tail = count % maxCap;
+    }
+
+    /**
+     * Crea un arreglo genérico nuevo.
+     *
+     * @param <T> el tipo de los elementos del arreglo
+     * @param n longitud del arreglo
+     * @return arreglo de n posiciones vacías
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] arreglo(int n) {
+        return (T[]) new Object[n];
+    }
+
+    /**
+     * Si un iterador comparte el arreglo, lo copia antes de escribir sobre las
+     * posiciones que ese iterador todavía puede leer.
+     */
+    private void separar() {
+        if (control.compartido()) {
+            a = Arrays.copyOf(a, a.length);
+            control.soltar();
+        }
+    }
+
+    /**
+     * Retorna un spliterator que recorre los elementos en orden de llegada. Es SIZED y SUBSIZED,
+     * así que un stream paralelo lo divide en mitades exactas.
+     *
+     * @return un spliterator sobre una instantánea de los elementos actuales
+     */
+    @Override
+    public Spliterator<Item> spliterator() {
+        while (true) {
+            int v = control.compartir();
+            Item[] b = a;
+            int h = head;
+            int n = count;
+            if (control.valida(v))
+                return new ArraySpliterator<>(b, h, false, 0, n, Spliterator.ORDERED);
+        }
+    }
+
+    /**
+     * Retorna un stream secuencial sobre los elementos.
+     *
+     * @return un stream de los elementos
+     */
+    public Stream<Item> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Retorna un stream paralelo sobre los elementos, que se reparte entre los hilos
+     * del pool fork-join común.
+     *
+     * @return un stream paralelo de los elementos
+     */
+    public Stream<Item> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
     }
 
     /**
@@ -108,17 +339,46 @@ public class Queue<Item> implements Iterable<Item> {
      */
     @Override
     public Iterator<Item> iterator() {
-        return new ArrayIterator();
+        while (true) {
+            int v = control.compartir();
+            Item[] b = a;
+            int h = head;
+            int n = count;
+            if (control.valida(v))
+                return new ArrayIterator(b, h, n);
+        }
     }
 
     /**
-     * Clase interna que implementa un iterador sobre los elementos de la cola.
+     * Clase interna que implementa un iterador sobre una instantánea de la cola.
      */
     private class ArrayIterator implements Iterator<Item> {
 
-        /** Índice del siguiente elemento a devolver */
+        /** Arreglo de la instantánea */
+        private final Item[] b;
+
+        /** Índice de la cabeza en la instantánea */
+        private final int h;
+
+        /** Cantidad de elementos de la instantánea */
+        private final int n;
+
+        /** Cantidad de elementos ya recorridos desde la cabeza */
         private int i = 0;
 
+        /**
+         * Crea un iterador sobre una instantánea.
+         *
+         * @param b arreglo de la instantánea
+         * @param h índice de la cabeza en la instantánea
+         * @param n cantidad de elementos de la instantánea
+         */
+        ArrayIterator(Item[] b, int h, int n) {
+            this.b = b;
+            this.h = h;
+            this.n = n;
+        }
+
         /**
          * Verifica si hay más elementos por iterar.
          *
@@ -126,17 +386,19 @@ public class Queue<Item> implements Iterable<Item> {
          */
         @Override
         public boolean hasNext() {
-            return i < count;
+            return i < n;
         }
 
         /**
          * Retorna el siguiente elemento de la iteración.
          *
          * @return el siguiente elemento en la cola
+         * @throws NoSuchElementException si ya no quedan elementos
          */
         @Override
         public Item next() {
-            return a[i++];
+            if (!hasNext()) throw new NoSuchElementException();
+            return b[(h + i++) % b.length];
         }
     }
 }
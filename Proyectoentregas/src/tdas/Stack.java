@@ -1,12 +1,21 @@
 package tdas;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementación de una estructura de datos tipo Pila (Stack) usando un arreglo dinámico.
  * Permite operaciones básicas como apilar (push), desapilar (pop), ver el elemento en la cima (peak),
  * verificar si está vacía y obtener el tamaño. La capacidad del arreglo se ajusta dinámicamente.
  *
+ * Los iteradores, spliterators y streams recorren una instantánea creada en O(1); pueden
+ * crearse y recorrerse desde cualquier hilo sin candados (ver {@link Instantaneas}),
+ * mientras las modificaciones se hagan desde un solo hilo a la vez.
+ *
  * @param <Item> el tipo de elementos almacenados en la pila
  * 
  * @author sala5
@@ -19,11 +28,32 @@ public class Stack<Item> implements Iterable<Item> {
     /** Contador de elementos actuales en la pila */
     private int count;
 
+    /** Capacidad por debajo de la cual la pila no se reduce al desapilar */
+    private final int minimo;
+
+    /**
+     * Versión y marca de arreglo compartido. Si algún iterador o spliterator comparte el
+     * arreglo, la siguiente escritura sobre posiciones ocupadas lo copia antes (copia al
+     * escribir); agregar elementos no toca esas posiciones y no copia.
+     */
+    private final Instantaneas control = new Instantaneas();
+
     /**
      * Constructor que inicializa una pila vacía con capacidad inicial de 1.
      */
     public Stack() {
-        a = (Item[]) new Object[1];
+        this(1);
+    }
+
+    /**
+     * Constructor que inicializa una pila vacía con la capacidad indicada.
+     * Al desapilar, el arreglo nunca se reduce por debajo de esa capacidad.
+     *
+     * @param capacidad capacidad inicial (mínimo 1)
+     */
+    public Stack(int capacidad) {
+        minimo = Math.max(1, capacidad);
+        a = arreglo(minimo);
         count = 0;
     }
 
@@ -34,26 +64,98 @@ public class Stack<Item> implements Iterable<Item> {
      * @param item el elemento a agregar
      */
     public void push(Item item) {
-        if (count == a.length)
-            resize(a.length * 2);
-        a[count++] = item;
+        control.empezar();
+        try {
+            if (count == a.length)
+                resize(a.length * 2);
+            a[count++] = item;
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Apila en orden un tramo de un arreglo; el último elemento queda en la cima.
+     *
+     * @param items arreglo de origen
+     * @param desde posición del primer elemento a apilar
+     * @param n cantidad de elementos a apilar
+     */
+    public void pushAll(Item[] items, int desde, int n) {
+        control.empezar();
+        try {
+            crecer(count + n);
+            System.arraycopy(items, desde, a, count, n);
+            count += n;
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Apila en orden los elementos de una lista; el último de la lista queda en la cima.
+     *
+     * @param items lista de elementos a apilar
+     */
+    public void pushAll(List<? extends Item> items) {
+        control.empezar();
+        try {
+            crecer(count + items.size());
+            items.copiarEn(a, count);
+            count += items.size();
+        } finally {
+            control.terminar();
+        }
     }
 
     /**
      * Elimina y retorna el elemento en la cima de la pila.
      * Si la pila está vacía, retorna null.
-     * Redimensiona el arreglo si es necesario para ahorrar espacio.
+     * El arreglo se reduce a la mitad cuando queda ocupado a 1/8, de modo que
+     * después de reducirlo hace falta cuadruplicar los elementos para volver a
+     * crecer y una carga que oscila cerca del umbral no redimensiona en cada operación.
      *
      * @return el elemento en la cima de la pila, o null si está vacía
      */
     public Item pop() {
         if (isEmpty())
             return null;
-        Item aux = a[--count];
-        a[count] = null; // evita loitering
-        if (count > 0 && count == a.length / 4)
-            resize(a.length / 2);
-        return aux;
+        control.empezar();
+        try {
+            separar();
+            Item aux = a[--count];
+            a[count] = null; // evita loitering
+            if (count > 0 && count == a.length / 8 && a.length / 2 >= minimo)
+                resize(a.length / 2);
+            return aux;
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Desapila todos los elementos y los agrega al final de una lista en orden LIFO,
+     * el de la cima primero. La pila conserva su capacidad.
+     *
+     * @param destino lista que recibe los elementos
+     */
+    public void drainTo(List<? super Item> destino) {
+        destino.ensureCapacity(destino.size() + count);
+        for (int i = count - 1; i >= 0; i--) {
+            destino.list(a[i]);
+        }
+        control.empezar();
+        try {
+            if (control.compartido()) {
+                a = arreglo(a.length);
+                control.soltar();
+            } else {
+                Arrays.fill(a, 0, count, null);
+            }
+            count = 0;
+        } finally {
+            control.terminar();
+        }
     }
 
     /**
@@ -83,17 +185,126 @@ public class Stack<Item> implements Iterable<Item> {
         return count;
     }
 
+    /**
+     * Garantiza que la pila pueda guardar al menos la cantidad de elementos indicada
+     * sin redimensionar. Si hay que crecer, al menos se duplica la capacidad.
+     *
+     * @param capacidad capacidad mínima requerida
+     */
+    public void ensureCapacity(int capacidad) {
+        control.empezar();
+        try {
+            crecer(capacidad);
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Reduce la capacidad al número de elementos actuales (mínimo 1). La capacidad
+     * dada al construir la pila sigue siendo el piso para las reducciones posteriores,
+     * así que recortar no impide liberar memoria al vaciarla.
+     */
+    public void trimToSize() {
+        control.empezar();
+        try {
+            int capacidad = Math.max(1, count);
+            if (a.length > capacidad)
+                resize(capacidad);
+        } finally {
+            control.terminar();
+        }
+    }
+
+    /**
+     * Retorna la longitud del arreglo interno. Lo usan las pruebas del paquete.
+     *
+     * @return capacidad actual de la pila
+     */
+    int capacidad() {
+        return a.length;
+    }
+
+    /**
+     * Crece el arreglo, dentro de una modificación, si no alcanza para la cantidad
+     * de elementos indicada. Si hay que crecer, al menos se duplica la capacidad.
+     *
+     * @param capacidad capacidad mínima requerida
+     */
+    private void crecer(int capacidad) {
+        if (capacidad > a.length)
+            resize(Math.max(capacidad, a.length * 2));
+    }
+
     /**
      * Redimensiona el arreglo interno a una nueva capacidad.
      *
      * @param maxCap la nueva capacidad del arreglo
      */
     private void resize(int maxCap) {
-        Item[] aux = (Item[]) new Object[maxCap];
-        for (int i = 0; i < count; i++) {
-            aux[i] = a[i];
-        }
+        Item[] aux = arreglo(maxCap);
+        System.arraycopy(a, 0, aux, 0, count);
         a = aux;
+        control.soltar();
+    }
+
+    /**
+     * Crea un arreglo genérico nuevo.
+     *
+     * @param <T> el tipo de los elementos del arreglo
+     * @param n longitud del arreglo
+     * @return arreglo de n posiciones vacías
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] arreglo(int n) {
+        return (T[]) new Object[n];
+    }
+
+    /**
+     * Si un iterador comparte el arreglo, lo copia antes de escribir sobre las
+     * posiciones que ese iterador todavía puede leer.
+     */
+    private void separar() {
+        if (control.compartido()) {
+            a = Arrays.copyOf(a, a.length);
+            control.soltar();
+        }
+    }
+
+    /**
+     * Retorna un spliterator que recorre los elementos en orden LIFO, desde la cima. Es SIZED y SUBSIZED,
+     * así que un stream paralelo lo divide en mitades exactas.
+     *
+     * @return un spliterator sobre una instantánea de los elementos actuales
+     */
+    @Override
+    public Spliterator<Item> spliterator() {
+        while (true) {
+            int v = control.compartir();
+            Item[] b = a;
+            int n = count;
+            if (control.valida(v))
+                return new ArraySpliterator<>(b, n, true, 0, n, Spliterator.ORDERED);
+        }
+    }
+
+    /**
+     * Retorna un stream secuencial sobre los elementos.
+     *
+     * @return un stream de los elementos
+     */
+    public Stream<Item> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Retorna un stream paralelo sobre los elementos, que se reparte entre los hilos
+     * del pool fork-join común.
+     *
+     * @return un stream paralelo de los elementos
+     */
+    public Stream<Item> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
     }
 
     /**
@@ -103,16 +314,37 @@ public class Stack<Item> implements Iterable<Item> {
      */
     @Override
     public Iterator<Item> iterator() {
-        return new ReverseArrayIterator();
+        while (true) {
+            int v = control.compartir();
+            Item[] b = a;
+            int n = count;
+            if (control.valida(v))
+                return new ReverseArrayIterator(b, n);
+        }
     }
 
     /**
-     * Clase interna que implementa un iterador en orden inverso para la pila.
+     * Clase interna que implementa un iterador en orden inverso para la pila,
+     * sobre una instantánea.
      */
     private class ReverseArrayIterator implements Iterator<Item> {
 
+        /** Arreglo de la instantánea */
+        private final Item[] b;
+
         /** Índice del siguiente elemento a retornar en la iteración */
-        private int i = count;
+        private int i;
+
+        /**
+         * Crea un iterador sobre una instantánea.
+         *
+         * @param b arreglo de la instantánea
+         * @param n cantidad de elementos de la instantánea
+         */
+        ReverseArrayIterator(Item[] b, int n) {
+            this.b = b;
+            this.i = n;
+        }
 
         /**
          * Verifica si hay más elementos por iterar.
@@ -128,10 +360,12 @@ public class Stack<Item> implements Iterable<Item> {
          * Retorna el siguiente elemento en la iteración.
          *
          * @return el siguiente elemento en orden LIFO
+         * @throws NoSuchElementException si ya no quedan elementos
          */
         @Override
         public Item next() {
-            return a[--i];
+            if (!hasNext()) throw new NoSuchElementException();
+            return b[--i];
         }
     }
 }
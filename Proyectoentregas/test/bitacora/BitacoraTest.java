@@ -0,0 +1,122 @@
+package bitacora;
+
+import cosas.Bodega;
+import cosas.Caja;
+import cosas.Camion;
+import cosas.Cliente;
+import cosas.GuiaEnvio;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link Bitacora}: con el nivel por defecto los eventos de cada caja no se
+ * formatean, y los eventos descartados por cola llena quedan avisados en la bitácora.
+ *
+ * @author piped
+ */
+public class BitacoraTest {
+
+    @Test
+    public void conNivelInfoNoSeFormateanLasCajas() {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        Bitacora.configurar(new Bitacora(Channels.newChannel(salida), Bitacora.Nivel.INFO, Bitacora.CAPACIDAD, false));
+        try {
+            AtomicInteger formateadas = new AtomicInteger();
+            GuiaEnvio.Destino d = GuiaEnvio.Destino.NORTE;
+            Bodega bodega = new Bodega(d);
+            for (int i = 0; i < 10; i++) bodega.recibirCaja(caja("B" + i, d, 250, formateadas));
+            Camion camion = new Camion(d);
+            assertTrue(bodega.cargarEn(camion, 10));
+            camion.cargarCaja(caja("X", d, 10, formateadas));
+            assertTrue(camion.despachar());
+            assertEquals(0, formateadas.get());
+
+            Bitacora.get().setNivel(Bitacora.Nivel.DEPURACION);
+            bodega.recibirCaja(caja("D", d, 10, formateadas));
+            assertEquals(1, formateadas.get());
+            Bitacora.get().vaciar();
+            String texto = salida.toString();
+            assertTrue(texto.contains("Despachando camion NORTE con 11 cajas."));
+            assertTrue(texto, texto.contains("[DEPURACION] Caja agregada a bodega NORTE"));
+        } finally {
+            Bitacora.configurar(new Bitacora(Channels.newChannel(new ByteArrayOutputStream()),
+                    Bitacora.Nivel.INFO, Bitacora.CAPACIDAD, false));
+        }
+    }
+
+    @Test(timeout = 30_000)
+    public void avisaLosEventosDescartados() throws InterruptedException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        CountDownLatch escribiendo = new CountDownLatch(1);
+        CountDownLatch seguir = new CountDownLatch(1);
+        WritableByteChannel canal = new WritableByteChannel() {
+            private final WritableByteChannel real = Channels.newChannel(salida);
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                escribiendo.countDown();
+                try {
+                    seguir.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return real.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Bitacora b = new Bitacora(canal, Bitacora.Nivel.INFO, 2, false);
+        b.info(() -> "primero");
+        // el escritor queda detenido en el primer lote; la cola de 2 se llena
+        escribiendo.await();
+        for (int i = 0; i < 10; i++) {
+            int k = i;
+            b.info(() -> "evento " + k);
+        }
+        assertEquals(8, b.getDescartados());
+        seguir.countDown();
+        b.close();
+        String texto = new String(salida.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(texto, texto.contains("[AVISO] Se descartaron 8 eventos por cola llena."));
+        assertTrue(texto.contains("evento 0"));
+        assertTrue(texto.contains("evento 1"));
+    }
+
+    /**
+     * Crea una caja con guía que cuenta cuántas veces se formatea.
+     *
+     * @param id ID de la caja.
+     * @param d Destino.
+     * @param peso Peso real (kg).
+     * @param formateadas Contador de llamadas a toString.
+     * @return Caja con guía.
+     */
+    private static Caja caja(String id, GuiaEnvio.Destino d, double peso, AtomicInteger formateadas) {
+        Caja c = new Caja(10, 10, 10, peso) {
+            @Override
+            public String toString() {
+                formateadas.incrementAndGet();
+                return super.toString();
+            }
+        };
+        GuiaEnvio g = new GuiaEnvio(id, new Cliente("C1", "Ana Gomez", "300", null, null), d, 12);
+        g.calcularCostos(c.getPesoFacturado());
+        c.setGuia(g);
+        return c;
+    }
+}
@@ -0,0 +1,145 @@
+package cosas;
+
+import java.util.Iterator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link AlmacenClientes}: lo que se agrega se lee igual al buscar y al
+ * recorrer, tanto para clientes generados como para datos que no siguen los formatos
+ * compactos, y el almacén ocupa varias veces menos memoria que los Cliente originales.
+ *
+ * @author piped
+ */
+public class AlmacenClientesTest {
+
+    @Test
+    public void losClientesGeneradosSeLeenIgual() {
+        Cliente[] generados = new GeneradorCarga(5).clientes(10_000);
+        Cliente[] aleatorios = new Cliente[2_000];
+        for (int i = 0; i < aleatorios.length; i++) aleatorios[i] = new Cliente(true);
+        AlmacenClientes a = new AlmacenClientes();
+        for (Cliente c : generados) assertTrue(a.agregar(c) >= 0);
+        for (Cliente c : aleatorios) assertTrue(a.agregar(c) >= 0);
+
+        Iterator<Cliente> it = a.iterator();
+        for (Cliente c : generados) comparar(c, it.next());
+        for (Cliente c : aleatorios) comparar(c, it.next());
+        assertFalse(it.hasNext());
+        for (Cliente c : generados) comparar(c, a.buscar(c.getId()));
+        for (Cliente c : aleatorios) comparar(c, a.buscar(c.getId().toLowerCase()));
+    }
+
+    @Test
+    public void losDatosFueraDeFormatoSeLeenIgual() {
+        Cliente[] manuales = {
+            new Cliente("AbC-9", "Ana Maria Gomez", "3001234567", "ana.maria.gomez@correo.com", "Calle 26 #5"),
+            new Cliente("c12", "Luis Perez", "+573001234567", "Luis.Perez@correo.com", "Carrera 7 No 45-10"),
+            new Cliente("C007", "Sara", "0012", "sara@correo.com", "Calle 1 #040"),
+            new Cliente("C0", "Juan  Lopez ", "300 123 4567", "otro@mail.org", "Calle 1 #0"),
+            new Cliente("C8", "Lucia Ortiz", "1234567890123456789", null, "Avenida 1 #99999"),
+            new Cliente("C999999999999999999", null, null, "x@correo.com", null),
+            new Cliente("C9999999999999999999", "", "", "", ""),
+            new Cliente("cliente", "Mateo Rincon", "7", "mateo.rincon@correo.com", "Calle #12 sur"),
+            new Cliente("C00", "Felipe Castaño", "57", "felipe.castaño@correo.com", "#3"),
+            new Cliente("C13", "Carlos Vargas", "3", "carlos.vargas@correo.com", "Calle 80 #32767"),
+            new Cliente("C14", "Daniela Torres", "3", "daniela.torres@correo.com", "Calle 80 #32768"),
+        };
+        AlmacenClientes a = new AlmacenClientes(2);
+        for (int i = 0; i < manuales.length; i++) assertEquals(i, a.agregar(manuales[i]));
+
+        int i = 0;
+        for (Cliente c : a) comparar(manuales[i++], c);
+        assertEquals(manuales.length, i);
+        for (Cliente c : manuales) comparar(c, a.buscar(c.getId().toUpperCase()));
+
+        // los IDs con ceros a la izquierda o en minúsculas no se confunden con su forma numérica
+        assertEquals("c12", a.buscar("C12").getId());
+        assertEquals("C007", a.buscar("c007").getId());
+        assertNull(a.buscar("C7"));
+        assertEquals("C0", a.buscar("c0").getId());
+        assertEquals("C00", a.buscar("C00").getId());
+        assertEquals(-1, a.agregar(new Cliente("ABC-9", "Otro", "1", null, null)));
+        assertEquals(-1, a.agregar(new Cliente("C12", "Otro", "1", null, null)));
+        assertEquals(manuales.length, a.size());
+    }
+
+    @Test
+    public void losCambiosPorLaVistaSeConservan() {
+        AlmacenClientes a = new AlmacenClientes();
+        a.agregar(new Cliente("C1", "Ana Gomez", "3001234567", "ana.gomez@correo.com", "Calle 26 #5"));
+        Cliente v = a.buscar("c1");
+        // el correo no derivado del nombre nuevo se conserva tal cual
+        v.setNombre("Ana Perez");
+        assertEquals("ana.gomez@correo.com", v.getEmail());
+        v.setEmail("ana.perez@correo.com");
+        v.setTelefono("+57 300");
+        v.setDireccion("Calle 26");
+        v.setId("aNa");
+        comparar(new Cliente("aNa", "Ana Perez", "+57 300", "ana.perez@correo.com", "Calle 26"), a.buscar("ANA"));
+        assertNull(a.buscar("C1"));
+    }
+
+    @Test
+    public void ocupaVariasVecesMenosMemoria() {
+        int n = 200_000;
+        Cliente[] generados = new GeneradorCarga(3).clientes(n);
+        // como al leer de un archivo o del diario: cada cliente con sus cinco cadenas propias
+        Cliente[] propios = new Cliente[n];
+        for (int i = 0; i < n; i++) {
+            Cliente c = generados[i];
+            propios[i] = new Cliente(new String(c.getId()), new String(c.getNombre()), new String(c.getTelefono()),
+                    new String(c.getEmail()), new String(c.getDireccion()));
+        }
+        generados = null;
+        long conClientes = memoriaUsada();
+
+        AlmacenClientes a = new AlmacenClientes(n);
+        for (Cliente c : propios) a.agregar(c);
+        Cliente muestra = propios[n / 2];
+        propios = null;
+        long conAlmacen = memoriaUsada();
+
+        // la memoria del almacén es lo que queda al soltar también el almacén
+        comparar(muestra, a.buscar(muestra.getId()));
+        assertEquals(n, a.size());
+        a = null;
+        long base = memoriaUsada();
+        long bytesAlmacen = conAlmacen - base;
+        long bytesClientes = conClientes - base;
+        assertTrue("almacen=" + bytesAlmacen + " clientes=" + bytesClientes, bytesAlmacen * 4 < bytesClientes);
+        assertTrue("almacen=" + bytesAlmacen, bytesAlmacen < 80L * n);
+    }
+
+    /**
+     * Mide la memoria ocupada después de recolectar la basura.
+     *
+     * @return Bytes ocupados del heap.
+     */
+    private static long memoriaUsada() {
+        Runtime rt = Runtime.getRuntime();
+        long anterior = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long usada = rt.totalMemory() - rt.freeMemory();
+            if (usada >= anterior) return usada;
+            anterior = usada;
+        }
+        return anterior;
+    }
+
+    /**
+     * Compara los datos de un cliente con los leídos del almacén.
+     *
+     * @param esperado Cliente original.
+     * @param leido Cliente leído.
+     */
+    private static void comparar(Cliente esperado, Cliente leido) {
+        assertNotNull(esperado.getId(), leido);
+        assertEquals(esperado.getId(), leido.getId());
+        assertEquals(esperado.getNombre(), leido.getNombre());
+        assertEquals(esperado.getTelefono(), leido.getTelefono());
+        assertEquals(esperado.getEmail(), leido.getEmail());
+        assertEquals(esperado.getDireccion(), leido.getDireccion());
+    }
+}
@@ -0,0 +1,146 @@
+package cosas;
+
+import org.junit.Test;
+import tdas.List;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link AlmacenColumnar}: las vistas y las cajas materializadas conservan
+ * todos los datos de la caja y de su guía (ID, costos, cliente, destino y distancia),
+ * asignar una guía a una vista no pierde nada, las filas liberadas se reutilizan y
+ * Bodega y Camion trabajan con las vistas como con cualquier caja.
+ *
+ * @author piped
+ */
+public class AlmacenColumnarTest {
+
+    @Test
+    public void lasVistasConservanLaCajaYSuGuia() {
+        Cliente cli = new Cliente("C1", "Ana Gomez", "300", null, null);
+        String[] ids = {"G17", "S0", "caja-007", "G007", "ABC", "", "X12345678901234567890", null};
+        AlmacenColumnar a = new AlmacenColumnar(2);
+        Caja[] originales = new Caja[ids.length + 1];
+        for (int i = 0; i < ids.length; i++) {
+            Caja c = new Caja(10.3 + i, 20.7, 33.1, 4.25 * i);
+            GuiaEnvio g = new GuiaEnvio(ids[i], i % 2 == 0 ? cli : null,
+                    i == 3 ? null : GuiaEnvio.Destino.values()[i % 5], 12.345 + i);
+            // una guía con un peso facturado distinto al de la caja también se conserva
+            g.calcularCostos(i == 2 ? 99.5 : c.getPesoFacturado());
+            c.setGuia(g);
+            originales[i] = c;
+        }
+        originales[ids.length] = new Caja(1, 2, 3, 4);
+        for (int i = 0; i < originales.length; i++) assertEquals(i, a.agregar(originales[i]));
+        assertEquals(originales.length, a.size());
+
+        for (int i = 0; i < originales.length; i++) {
+            comparar(originales[i], a.vista(i));
+            comparar(originales[i], a.materializar(i));
+            comparar(originales[i], a.cursor().mover(i));
+        }
+        assertSame(cli, a.vista(0).getGuia().getCliente());
+        assertNull(a.vista(ids.length).getGuia());
+    }
+
+    @Test
+    public void asignarGuiaAUnaVistaNoPierdeDatos() {
+        AlmacenColumnar a = new AlmacenColumnar();
+        int i = a.agregar(40, 40, 40, 3);
+        AlmacenColumnar.VistaCaja v = a.vista(i);
+        assertNull(v.getGuia());
+        Cliente cli = new Cliente("C9", "Luis Perez", "301", null, null);
+        GuiaEnvio g = new GuiaEnvio("G42", cli, GuiaEnvio.Destino.SUR, 77.5);
+        g.calcularCostos(v.getPesoFacturado());
+        v.setGuia(g);
+        comparar(g, v.getGuia());
+        assertEquals(12.8 * 3, v.getGuia().getCostoEnvio(), 1e-9);
+
+        // calcularCostos sobre la guía de la vista queda en las columnas
+        v.getGuia().calcularCostos(50);
+        assertEquals(50, a.materializar(i).getGuia().getPesoFacturado(), 0);
+        assertEquals(150, a.vista(i).getGuia().getCostoEnvio(), 0);
+
+        v.setGuia(null);
+        assertNull(v.getGuia());
+        assertNull(a.materializar(i).getGuia());
+    }
+
+    @Test
+    public void lasFilasLiberadasSeReutilizan() {
+        AlmacenColumnar a = new AlmacenColumnar(4);
+        for (int i = 0; i < 4; i++) a.agregar(10, 10, 10, 1, "G" + i, null, GuiaEnvio.Destino.NORTE, i);
+        a.liberar(1);
+        a.liberar(2);
+        assertEquals(2, a.size());
+        assertEquals(2, a.pesoFacturadoTotal(GuiaEnvio.Destino.NORTE), 1e-9);
+        int k = a.agregar(10, 10, 10, 1, "nuevo", null, GuiaEnvio.Destino.SUR, 9);
+        assertTrue(k == 1 || k == 2);
+        assertEquals("nuevo", a.vista(k).getGuia().getIdCaja());
+        assertEquals(GuiaEnvio.Destino.SUR, a.destino(k));
+        assertEquals(3, a.size());
+        try {
+            a.vista(4);
+            fail("la fila 4 no existe");
+        } catch (IndexOutOfBoundsException e) {
+            // esperado
+        }
+    }
+
+    @Test
+    public void bodegaYCamionUsanLasVistas() {
+        GuiaEnvio.Destino d = GuiaEnvio.Destino.ORIENTE;
+        AlmacenColumnar a = new AlmacenColumnar();
+        Bodega bodega = new Bodega(d);
+        for (int i = 0; i < 30; i++) {
+            bodega.recibirCaja(a.vista(a.agregar(10, 10, 10, 100, "G" + i, null, d, (i * 37) % 90 + 0.5)));
+        }
+        List<Caja> ordenadas = bodega.getAlmacen();
+        for (int i = 1; i < ordenadas.size(); i++) {
+            assertTrue(ordenadas.get(i - 1).getGuia().getDistanciaAprox() <= ordenadas.get(i).getGuia().getDistanciaAprox());
+        }
+        Camion camion = new Camion(d);
+        int n = bodega.cuantasCaben(GuiaEnvio.PESO_MAXIMO_VOLUMETRICO);
+        assertEquals(30, n);
+        assertTrue(bodega.cargarEn(camion, n));
+        assertEquals(a.pesoFacturadoTotal(d), camion.getPesoTotal(), 1e-9);
+        assertEquals(a.size(), camion.obtenerNumeroCajas());
+        for (Caja c : camion.getCarga()) a.liberar(((AlmacenColumnar.VistaCaja) c).getIndice());
+        assertEquals(0, a.size());
+    }
+
+    /**
+     * Compara los datos de una caja y de su guía.
+     *
+     * @param esperada Caja original.
+     * @param leida Caja leída del almacén.
+     */
+    private static void comparar(Caja esperada, Caja leida) {
+        assertEquals(esperada.getAltura(), leida.getAltura(), 0);
+        assertEquals(esperada.getLongitud(), leida.getLongitud(), 0);
+        assertEquals(esperada.getAncho(), leida.getAncho(), 0);
+        assertEquals(esperada.getPesoReal(), leida.getPesoReal(), 0);
+        assertEquals(esperada.getPesoVolumetrico(), leida.getPesoVolumetrico(), 0);
+        assertEquals(esperada.getPesoFacturado(), leida.getPesoFacturado(), 0);
+        if (esperada.getGuia() == null) {
+            assertNull(leida.getGuia());
+        } else {
+            comparar(esperada.getGuia(), leida.getGuia());
+        }
+    }
+
+    /**
+     * Compara los datos de dos guías.
+     *
+     * @param esperada Guía original.
+     * @param leida Guía leída del almacén.
+     */
+    private static void comparar(GuiaEnvio esperada, GuiaEnvio leida) {
+        assertNotNull(leida);
+        assertEquals(esperada.getIdCaja(), leida.getIdCaja());
+        assertSame(esperada.getCliente(), leida.getCliente());
+        assertEquals(esperada.getDestino(), leida.getDestino());
+        assertEquals(esperada.getDistanciaAprox(), leida.getDistanciaAprox(), 0);
+        assertEquals(esperada.getPesoFacturado(), leida.getPesoFacturado(), 0);
+        assertEquals(esperada.getCostoEnvio(), leida.getCostoEnvio(), 0);
+    }
+}
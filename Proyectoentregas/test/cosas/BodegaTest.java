@@ -0,0 +1,108 @@
+package cosas;
+
+import org.junit.Test;
+import tdas.List;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del traslado de {@link Bodega} a {@link Camion}: {@link Bodega#cuantasCaben}
+ * cuenta desde la más lejana, {@link Bodega#cargarEn} deja la más cercana en la cima y,
+ * si el camión rechaza el bloque por sobrepeso, ni la bodega ni el camión cambian.
+ *
+ * @author piped
+ */
+public class BodegaTest {
+
+    /** Tolerancia para comparar pesos */
+    private static final double EPS = 1e-9;
+
+    @Test
+    public void cargarEnDejaLaMasCercanaEnLaCima() {
+        GuiaEnvio.Destino d = GuiaEnvio.Destino.NORTE;
+        Bodega bodega = new Bodega(d);
+        for (int i = 0; i < 5; i++) bodega.recibirCaja(caja("B" + i, d, 500, 10 * (i + 1)));
+        assertEquals(50, bodega.distanciaMasLejana(), EPS);
+        assertEquals(3, bodega.cuantasCaben(1_500));
+        assertEquals(2, bodega.cuantasCaben(1_499));
+
+        Camion camion = new Camion(d);
+        assertTrue(bodega.cargarEn(camion, 3));
+        assertEquals(2, bodega.cantidadCajas());
+        assertEquals(20, bodega.distanciaMasLejana(), EPS);
+        assertEquals(1_500, camion.getPesoTotal(), EPS);
+        List<Caja> carga = camion.getCarga();
+        assertEquals("B2", carga.get(0).getGuia().getIdCaja());
+        assertEquals("B3", carga.get(1).getGuia().getIdCaja());
+        assertEquals("B4", carga.get(2).getGuia().getIdCaja());
+    }
+
+    @Test
+    public void cargarEnConSobrepesoNoCambiaNada() {
+        GuiaEnvio.Destino d = GuiaEnvio.Destino.SUR;
+        Bodega bodega = new Bodega(d);
+        // varias cajas por cubeta, para que el retiro y la devolución crucen cubetas
+        for (int i = 0; i < 12; i++) bodega.recibirCaja(caja("S" + i, d, 700, 5 + (i % 4) + i / 10.0));
+        List<Caja> antes = bodega.getAlmacen();
+
+        Camion camion = new Camion(d);
+        camion.cargarCajas(new Caja[] {caja("P", d, 1_000, 1)}, 0, 1);
+        int[] avisos = {0};
+        camion.agregarOyente(new OyenteCamion() {
+            @Override
+            public void excederiaMaximo(Camion c, Caja caja) {
+                avisos[0]++;
+            }
+        });
+
+        int caben = bodega.cuantasCaben(GuiaEnvio.PESO_MAXIMO_VOLUMETRICO - camion.getPesoTotal());
+        assertEquals(4, caben);
+        assertFalse(bodega.cargarEn(camion, caben + 1));
+        assertEquals(1, avisos[0]);
+
+        assertEquals(1, camion.obtenerNumeroCajas());
+        assertEquals(1_000, camion.getPesoTotal(), EPS);
+        assertEquals("P", camion.getCarga().get(0).getGuia().getIdCaja());
+        List<Caja> despues = bodega.getAlmacen();
+        assertEquals(antes.size(), bodega.cantidadCajas());
+        assertEquals(antes.size(), despues.size());
+        for (int i = 0; i < antes.size(); i++) assertSame(antes.get(i), despues.get(i));
+
+        // después del rechazo el traslado que sí cabe funciona
+        assertTrue(bodega.cargarEn(camion, caben));
+        assertEquals(3_800, camion.getPesoTotal(), EPS);
+        assertEquals(8, bodega.cantidadCajas());
+    }
+
+    @Test
+    public void cargarCajasAgregaElBloqueSobreLaCargaAnterior() {
+        GuiaEnvio.Destino d = GuiaEnvio.Destino.CENTRO;
+        Camion camion = new Camion(d);
+        Caja[] primero = {caja("A", d, 100, 1), caja("B", d, 100, 2)};
+        Caja[] segundo = {caja("X", d, 50, 3), caja("C", d, 100, 4), caja("D", d, 100, 5), caja("Y", d, 50, 6)};
+        assertTrue(camion.cargarCajas(primero, 0, 2));
+        assertTrue(camion.cargarCajas(segundo, 1, 2));
+        assertFalse(camion.cargarCajas(new Caja[] {caja("E", d, GuiaEnvio.PESO_MAXIMO_VOLUMETRICO, 7)}, 0, 1));
+        String[] esperado = {"C", "D", "A", "B"};
+        List<Caja> carga = camion.getCarga();
+        assertEquals(esperado.length, carga.size());
+        for (int i = 0; i < esperado.length; i++) assertEquals(esperado[i], carga.get(i).getGuia().getIdCaja());
+        assertEquals(400, camion.getPesoTotal(), EPS);
+    }
+
+    /**
+     * Crea una caja pequeña con el peso real dado y su guía.
+     *
+     * @param id ID de la caja.
+     * @param d Destino.
+     * @param peso Peso real (kg), que resulta ser el facturado.
+     * @param distancia Distancia aproximada (km).
+     * @return Caja con guía.
+     */
+    private static Caja caja(String id, GuiaEnvio.Destino d, double peso, double distancia) {
+        Caja c = new Caja(10, 10, 10, peso);
+        GuiaEnvio g = new GuiaEnvio(id, null, d, distancia);
+        g.calcularCostos(c.getPesoFacturado());
+        c.setGuia(g);
+        return c;
+    }
+}
@@ -0,0 +1,117 @@
+package cosas;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import tdas.List;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del reparto First-Fit Decreasing de {@link Flota#cargar}: ninguna caja se
+ * pierde ni se duplica, todo camión cargado queda dentro de la ventana de despacho y
+ * ninguna caja de un camión habría cabido en uno anterior.
+ *
+ * @author piped
+ */
+public class FlotaTest {
+
+    /** Tolerancia para comparar sumas de pesos */
+    private static final double EPS = 1e-6;
+
+    @Test
+    public void repartoRespetaLasInvariantesDeFirstFitDecreasing() {
+        Random r = new Random(7);
+        for (int ronda = 0; ronda < 20; ronda++) {
+            GuiaEnvio.Destino d = GuiaEnvio.Destino.NORTE;
+            Bodega bodega = new Bodega(d);
+            Map<Caja, Boolean> originales = new IdentityHashMap<>();
+            int n = 50 + r.nextInt(400);
+            for (int i = 0; i < n; i++) {
+                // la mayoría entre 50 y 1500 kg; algunas más pesadas que un camión completo
+                double peso = r.nextInt(40) == 0 ? GuiaEnvio.PESO_MAXIMO_VOLUMETRICO + 1 : 50 + r.nextInt(1450);
+                Caja c = caja("R" + ronda + "-" + i, d, peso, 1 + r.nextInt(100));
+                originales.put(c, Boolean.TRUE);
+                bodega.recibirCaja(c);
+            }
+
+            Flota flota = new Flota(new PlanificadorRutas(0, 8));
+            int[] avisos = {0};
+            int cargados = flota.cargar(bodega, destino -> {
+                assertTrue(Thread.holdsLock(flota));
+                assertEquals(d, destino);
+                avisos[0]++;
+            });
+            assertEquals(1, avisos[0]);
+
+            List<Camion> camiones = flota.getCargados(d);
+            assertEquals(cargados, camiones.size());
+            Map<Caja, Boolean> vistas = new IdentityHashMap<>();
+            double[] pesos = new double[camiones.size()];
+            for (int b = 0; b < camiones.size(); b++) {
+                Camion camion = camiones.get(b);
+                assertTrue(camion.puedeDespachar());
+                for (Caja c : camion.getCarga()) {
+                    assertNull("caja repetida", vistas.put(c, Boolean.TRUE));
+                    pesos[b] += c.getPesoFacturado();
+                }
+                assertEquals(camion.getPesoTotal(), pesos[b], EPS);
+            }
+
+            // First-Fit: cada caja de un camión no cabía en ninguno de los anteriores
+            for (int j = 1; j < camiones.size(); j++) {
+                for (Caja c : camiones.get(j).getCarga()) {
+                    for (int i = 0; i < j; i++) {
+                        assertTrue(pesos[i] + c.getPesoFacturado() > GuiaEnvio.PESO_MAXIMO_VOLUMETRICO - EPS);
+                    }
+                }
+            }
+
+            // lo que vuelve a la bodega: las cajas demasiado pesadas y a lo sumo un camión incompleto
+            double resto = 0;
+            for (Caja c : bodega.getAlmacen()) {
+                assertNull("caja repetida", vistas.put(c, Boolean.TRUE));
+                if (c.getPesoFacturado() <= GuiaEnvio.PESO_MAXIMO_VOLUMETRICO) resto += c.getPesoFacturado();
+            }
+            assertTrue(resto < GuiaEnvio.PESO_MINIMO_VOLUMETRICO);
+            assertEquals(originales.keySet(), vistas.keySet());
+        }
+    }
+
+    @Test
+    public void bodegaVaciaNoCargaCamiones() {
+        Flota flota = new Flota();
+        assertEquals(0, flota.cargar(new Bodega(GuiaEnvio.Destino.SUR)));
+        assertTrue(flota.getCargados(GuiaEnvio.Destino.SUR).isEmpty());
+    }
+
+    @Test
+    public void getCargadosDevuelveUnaCopia() {
+        Bodega bodega = new Bodega(GuiaEnvio.Destino.SUR);
+        for (int i = 0; i < 6; i++) bodega.recibirCaja(caja("S" + i, GuiaEnvio.Destino.SUR, 600, 10 + i));
+        Flota flota = new Flota();
+        assertEquals(1, flota.cargar(bodega));
+        List<Camion> copia = flota.getCargados(GuiaEnvio.Destino.SUR);
+        copia.removeLast();
+        assertEquals(1, flota.cantidadCargados(GuiaEnvio.Destino.SUR));
+        assertEquals(1, flota.despachar(GuiaEnvio.Destino.SUR, new MetricaDespacho()));
+        assertTrue(flota.getCargados(GuiaEnvio.Destino.SUR).isEmpty());
+    }
+
+    /**
+     * Crea una caja pequeña con el peso real dado y su guía.
+     *
+     * @param id ID de la caja.
+     * @param d Destino.
+     * @param peso Peso real (kg), que resulta ser el facturado.
+     * @param distancia Distancia aproximada (km).
+     * @return Caja con guía.
+     */
+    private static Caja caja(String id, GuiaEnvio.Destino d, double peso, double distancia) {
+        Caja c = new Caja(10, 10, 10, peso);
+        GuiaEnvio g = new GuiaEnvio(id, null, d, distancia);
+        g.calcularCostos(c.getPesoFacturado());
+        c.setGuia(g);
+        return c;
+    }
+}
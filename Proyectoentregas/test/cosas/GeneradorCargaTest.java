@@ -0,0 +1,56 @@
+package cosas;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link GeneradorCarga}: los generadores de bloques distintos no comparten
+ * tramos de su secuencia, y la generación en paralelo da IDs únicos y es reproducible.
+ *
+ * @author piped
+ */
+public class GeneradorCargaTest {
+
+    @Test
+    public void losBloquesNoSeSolapan() {
+        for (long semilla : new long[] {0, 1, 42, -7}) {
+            GeneradorCarga g = new GeneradorCarga(semilla);
+            Set<Long> vistos = new HashSet<>();
+            int bloques = 64, porBloque = 1_000;
+            for (long b = 0; b < bloques; b++) {
+                SplittableRandom r = g.aleatorio(b);
+                for (int i = 0; i < porBloque; i++) {
+                    assertTrue("semilla " + semilla + ", bloque " + b, vistos.add(r.nextLong()));
+                }
+            }
+            // los bloques de los hilos (números negativos) tampoco repiten los de la generación masiva
+            for (long b = Long.MIN_VALUE; b < Long.MIN_VALUE + 8; b++) {
+                SplittableRandom r = g.aleatorio(b);
+                for (int i = 0; i < porBloque; i++) assertTrue(vistos.add(r.nextLong()));
+            }
+        }
+    }
+
+    @Test
+    public void laGeneracionEnParaleloEsReproducible() {
+        int n = 3 * 4096 + 17;
+        Cliente[] a = new GeneradorCarga(9).clientes(n);
+        Cliente[] b = new GeneradorCarga(9).clientes(n);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            assertTrue(ids.add(a[i].getId()));
+            assertEquals(a[i].getId(), b[i].getId());
+            assertEquals(a[i].getTelefono(), b[i].getTelefono());
+            assertEquals(a[i].getDireccion(), b[i].getDireccion());
+        }
+        Caja[] ca = new GeneradorCarga(9).cajas(n, a);
+        Caja[] cb = new GeneradorCarga(9).cajas(n, a);
+        for (int i = 0; i < n; i++) {
+            assertEquals(ca[i].getPesoFacturado(), cb[i].getPesoFacturado(), 0);
+            assertTrue(ca[i].getPesoFacturado() <= GuiaEnvio.PESO_MAXIMO_VOLUMETRICO);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package cosas;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link RegistroClientes}: la búsqueda por ID no distingue mayúsculas, no
+ * se aceptan dos clientes con el mismo ID aunque difieran en mayúsculas, y los IDs
+ * generados al azar no chocan.
+ *
+ * @author piped
+ */
+public class RegistroClientesTest {
+
+    @Test
+    public void buscarNoDistingueMayusculas() {
+        RegistroClientes r = new RegistroClientes();
+        assertTrue(r.agregar(new Cliente("Ab12", "Ana Gomez", "300", "ana@x.com", "Calle 1 #2")));
+        assertTrue(r.agregar(new Cliente("C77", "Luis Perez", "301", "luis@x.com", "Calle 2 #3")));
+        assertEquals("Ab12", r.buscar("ab12").getId());
+        assertEquals("Ab12", r.buscar("AB12").getId());
+        assertEquals("Luis Perez", r.buscar("c77").getNombre());
+        assertNull(r.buscar("Ab13"));
+        assertNull(r.buscar(null));
+    }
+
+    @Test
+    public void rechazaIdsRepetidos() {
+        RegistroClientes r = new RegistroClientes();
+        assertTrue(r.agregar(new Cliente("Xy9", "Ana Gomez", "300", null, null)));
+        assertFalse(r.agregar(new Cliente("xY9", "Otro", "1", null, null)));
+        assertTrue(r.agregar(new Cliente("C5", "Luis Perez", "301", null, null)));
+        assertFalse(r.agregar(new Cliente("c5", "Otro", "1", null, null)));
+        assertFalse(r.agregar(new Cliente(null, "Sin ID", "1", null, null)));
+        assertEquals(2, r.size());
+        assertEquals("Ana Gomez", r.buscar("XY9").getNombre());
+    }
+
+    @Test
+    public void cambiarElIdAUnoOcupadoFalla() {
+        RegistroClientes r = new RegistroClientes();
+        r.agregar(new Cliente("A1", "Ana Gomez", "300", null, null));
+        r.agregar(new Cliente("B1", "Luis Perez", "301", null, null));
+        try {
+            r.buscar("b1").setId("a1");
+            fail("el ID ya pertenece a otro cliente");
+        } catch (IllegalArgumentException e) {
+            // esperado
+        }
+        r.buscar("b1").setId("Z1");
+        assertNull(r.buscar("B1"));
+        assertEquals("Luis Perez", r.buscar("z1").getNombre());
+    }
+
+    @Test
+    public void losIdsAleatoriosNoChocan() {
+        RegistroClientes r = new RegistroClientes();
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            Cliente c = new Cliente(true);
+            assertTrue(ids.add(c.getId().toLowerCase()));
+            assertTrue(r.agregar(c));
+        }
+        assertEquals(100_000, r.size());
+    }
+}
@@ -0,0 +1,110 @@
+package cosas;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import tdas.List;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link ShardDestino}: con varios hilos enviando y un buzón pequeño no se
+ * pierde ningún comando aceptado, ni siquiera si el actor se cierra mientras llegan, y
+ * un comando que falla no detiene al actor.
+ *
+ * @author piped
+ */
+public class ShardDestinoTest {
+
+    /** Hilos que envían cajas al actor */
+    private static final int HILOS = 4;
+
+    @Test(timeout = 60_000)
+    public void variosHilosConBuzonPequenoEntreganTodasLasCajas() throws InterruptedException {
+        GuiaEnvio.Destino d = GuiaEnvio.Destino.ORIENTE;
+        Bodega bodega = new Bodega(d);
+        int porHilo = 5_000;
+        ShardDestino shard = new ShardDestino(d, bodega, new Flota(), 16);
+        Thread[] hilos = new Thread[HILOS];
+        for (int t = 0; t < HILOS; t++) {
+            int h = t;
+            hilos[t] = new Thread(() -> {
+                for (int i = 0; i < porHilo; i++) shard.recibir(caja(h + "-" + i, d, i % 100));
+            });
+            hilos[t].start();
+        }
+        for (Thread t : hilos) t.join();
+        assertEquals(Integer.valueOf(HILOS * porHilo), shard.cantidadCajas().join());
+        shard.close();
+        assertEquals(HILOS * porHilo, bodega.cantidadCajas());
+    }
+
+    @Test(timeout = 60_000)
+    public void cerrarNoPierdeComandosAceptados() throws InterruptedException {
+        GuiaEnvio.Destino d = GuiaEnvio.Destino.OCCIDENTE;
+        for (int ronda = 0; ronda < 20; ronda++) {
+            Bodega bodega = new Bodega(d);
+            ShardDestino shard = new ShardDestino(d, bodega, new Flota(), 8);
+            AtomicInteger aceptadas = new AtomicInteger();
+            Thread[] hilos = new Thread[HILOS];
+            for (int t = 0; t < HILOS; t++) {
+                hilos[t] = new Thread(() -> {
+                    try {
+                        for (int i = 0; ; i++) {
+                            shard.recibir(caja("C" + i, d, i % 100));
+                            aceptadas.incrementAndGet();
+                        }
+                    } catch (IllegalStateException e) {
+                        // el actor ya no acepta comandos
+                    }
+                });
+                hilos[t].start();
+            }
+            Thread.sleep(2);
+            shard.close();
+            for (Thread t : hilos) t.join();
+            assertEquals(aceptadas.get(), bodega.cantidadCajas());
+        }
+    }
+
+    @Test(timeout = 60_000)
+    public void unComandoQueFallaNoDetieneAlActor() {
+        GuiaEnvio.Destino d = GuiaEnvio.Destino.CENTRO;
+        try (ShardDestino shard = new ShardDestino(d, 64)) {
+            // sin guía la bodega no puede calcular la distancia
+            shard.recibir(new Caja(1, 1, 1, 1));
+            List<Caja> malas = new List<>();
+            malas.list(new Caja(1, 1, 1, 1));
+            try {
+                shard.recibirTodas(malas).join();
+                fail("el futuro debía terminar con el error del comando");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof NullPointerException);
+            }
+            shard.recibir(caja("ok", d, 5));
+            assertEquals(Integer.valueOf(1), shard.cantidadCajas().join());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rechazaComandosDespuesDeCerrar() {
+        ShardDestino shard = new ShardDestino(GuiaEnvio.Destino.NORTE, 4);
+        shard.close();
+        shard.recibir(caja("tarde", GuiaEnvio.Destino.NORTE, 1));
+    }
+
+    /**
+     * Crea una caja liviana con guía.
+     *
+     * @param id ID de la caja.
+     * @param d Destino.
+     * @param distancia Distancia aproximada (km).
+     * @return Caja con guía.
+     */
+    private static Caja caja(String id, GuiaEnvio.Destino d, double distancia) {
+        Caja c = new Caja(10, 10, 10, 5);
+        GuiaEnvio g = new GuiaEnvio(id, null, d, distancia);
+        g.calcularCostos(c.getPesoFacturado());
+        c.setGuia(g);
+        return c;
+    }
+}
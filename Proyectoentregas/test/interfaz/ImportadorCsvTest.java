@@ -0,0 +1,154 @@
+package interfaz;
+
+import cosas.Bodega;
+import cosas.Caja;
+import cosas.CentroDistribucion;
+import cosas.Cliente;
+import cosas.EnrutadorLotes;
+import cosas.Flota;
+import cosas.GuiaEnvio;
+import cosas.RegistroClientes;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import persistencia.Estado;
+import persistencia.Persistencia;
+import tdas.ColaAcotada;
+import tdas.ConcurrentQueue;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link ImportadorCsv} con archivos de más filas que la capacidad de la
+ * cola de ingreso: con acción de vaciado no se pierde ninguna fila, ni siquiera al
+ * recuperar el estado desde el diario; sin ella, las filas de más se cuentan como
+ * cola llena.
+ *
+ * @author piped
+ */
+public class ImportadorCsvTest {
+
+    /** Capacidad de la cola de ingreso de las pruebas */
+    private static final int CAPACIDAD = 256;
+
+    /** Filas de cada archivo, varias veces la capacidad de la cola */
+    private static final int FILAS = 5_000;
+
+    /** Directorio temporal de cada prueba */
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    @Test
+    public void sinVaciadoLasFilasDeMasSeCuentanComoColaLlena() throws IOException {
+        RegistroClientes clientes = clientes();
+        ConcurrentQueue<Caja> cola = new ConcurrentQueue<>(CAPACIDAD);
+        ImportadorCsv.Resultado r = new ImportadorCsv(clientes, cola, null).importar(archivo());
+        assertEquals(FILAS, r.getFilas());
+        assertEquals(cola.capacity(), r.getEncoladas());
+        assertEquals(FILAS - cola.capacity(), r.getColaLlena());
+        assertEquals(0, r.getVaciadas());
+    }
+
+    @Test(timeout = 60_000)
+    public void conVaciadoSeImportanTodasLasFilas() throws IOException {
+        RegistroClientes clientes = clientes();
+        ConcurrentQueue<Caja> cola = new ConcurrentQueue<>(CAPACIDAD);
+        Bodega[] bodegas = bodegas();
+        ImportadorCsv.Resultado r;
+        try (CentroDistribucion centro = new CentroDistribucion(bodegas, new Flota())) {
+            EnrutadorLotes lotes = new EnrutadorLotes(centro, 64);
+            r = new ImportadorCsv(clientes, cola, null, lotes::procesarTodo).importar(archivo());
+        }
+        assertEquals(FILAS, r.getEncoladas());
+        assertEquals(0, r.getColaLlena());
+        assertTrue(r.getVaciadas() > 0);
+        assertEquals(FILAS, r.getVaciadas() + cola.size());
+        assertEquals(r.getVaciadas(), totalCajas(bodegas));
+    }
+
+    @Test(timeout = 60_000)
+    public void elDiarioRecuperaLasCajasVaciadas() throws IOException {
+        Path datos = carpeta.newFolder("datos").toPath();
+        Persistencia p = new Persistencia(datos, Persistencia.EVENTOS_POR_INSTANTANEA);
+        Estado estado = p.recuperar(CAPACIDAD);
+        for (Cliente c : clientes()) {
+            estado.getClientes().agregar(c);
+            p.getDiario().registrarCliente(c);
+        }
+        ColaAcotada<Caja> cola = estado.getCola();
+        ImportadorCsv.Resultado r;
+        try (CentroDistribucion centro = new CentroDistribucion(estado.getBodegas(), estado.getFlota())) {
+            EnrutadorLotes lotes = new EnrutadorLotes(centro);
+            r = new ImportadorCsv(estado.getClientes(), cola, p.getDiario(), q -> {
+                int n = lotes.procesarTodo(q);
+                if (n > 0) p.getDiario().registrarEnrutado(n);
+                return n;
+            }).importar(archivo());
+        }
+        p.cerrar();
+        assertEquals(FILAS, r.getEncoladas());
+
+        Estado recuperado = new Persistencia(datos, Persistencia.EVENTOS_POR_INSTANTANEA).recuperar(CAPACIDAD);
+        assertEquals(cola.size(), recuperado.getCola().size());
+        assertEquals(r.getVaciadas(), totalCajas(recuperado.getBodegas()));
+        for (int d = 0; d < GuiaEnvio.Destino.values().length; d++) {
+            assertEquals(estado.getBodegas()[d].cantidadCajas(), recuperado.getBodegas()[d].cantidadCajas());
+        }
+    }
+
+    /**
+     * Crea un registro con los clientes C0 a C9.
+     *
+     * @return Registro de clientes.
+     */
+    private static RegistroClientes clientes() {
+        RegistroClientes r = new RegistroClientes();
+        for (int i = 0; i < 10; i++) r.agregar(new Cliente("C" + i, "Ana Gomez", "300", null, "Calle 26 #" + (i + 1)));
+        return r;
+    }
+
+    /**
+     * Escribe un archivo con cabecera y FILAS cajas válidas.
+     *
+     * @return Ruta del archivo.
+     * @throws IOException si no se puede escribir.
+     */
+    private Path archivo() throws IOException {
+        Path f = carpeta.newFile().toPath();
+        try (Writer w = Files.newBufferedWriter(f, StandardCharsets.UTF_8)) {
+            w.write("altura,longitud,ancho,peso,idCliente,destino\n");
+            for (int i = 0; i < FILAS; i++) {
+                w.write("10,20,30," + (1 + i % 50) + ",c" + (i % 10) + "," + (i % 5) + "\n");
+            }
+        }
+        return f;
+    }
+
+    /**
+     * Crea una bodega vacía por destino.
+     *
+     * @return Bodegas en el orden de los destinos.
+     */
+    private static Bodega[] bodegas() {
+        GuiaEnvio.Destino[] destinos = GuiaEnvio.Destino.values();
+        Bodega[] b = new Bodega[destinos.length];
+        for (int i = 0; i < b.length; i++) b[i] = new Bodega(destinos[i]);
+        return b;
+    }
+
+    /**
+     * Suma las cajas de varias bodegas.
+     *
+     * @param bodegas Bodegas.
+     * @return Total de cajas.
+     */
+    private static long totalCajas(Bodega[] bodegas) {
+        long n = 0;
+        for (Bodega b : bodegas) n += b.cantidadCajas();
+        return n;
+    }
+}
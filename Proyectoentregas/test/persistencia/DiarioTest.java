@@ -0,0 +1,101 @@
+package persistencia;
+
+import cosas.GuiaEnvio;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link Diario}: registros completos con varios hilos y un búfer acotado,
+ * y lectura que se detiene en el primer registro incompleto o corrupto.
+ *
+ * @author piped
+ */
+public class DiarioTest {
+
+    /** Directorio temporal de cada prueba */
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    @Test(timeout = 60_000)
+    public void variosHilosConBuferPequenoNoPierdenRegistros() throws Exception {
+        Path log = carpeta.getRoot().toPath().resolve("diario.log");
+        int hilos = 4, porHilo = 5_000;
+        try (Diario d = new Diario(log, 64)) {
+            Thread[] ts = new Thread[hilos];
+            for (int t = 0; t < hilos; t++) {
+                ts[t] = new Thread(() -> {
+                    for (int i = 0; i < porHilo; i++) d.registrarEnrutado(i);
+                });
+                ts[t].start();
+            }
+            for (Thread t : ts) t.join();
+            d.sincronizar();
+            assertEquals(hilos * porHilo, d.getEventos());
+        }
+        AtomicInteger leidos = new AtomicInteger();
+        long validos = Diario.leer(log, (tipo, datos) -> {
+            assertEquals(Diario.ENRUTADO, tipo);
+            assertTrue(datos.readInt() < porHilo);
+            leidos.incrementAndGet();
+        });
+        assertEquals(hilos * porHilo, leidos.get());
+        assertEquals(Files.size(log), validos);
+    }
+
+    @Test
+    public void laLecturaSeDetieneEnUnRegistroIncompleto() throws IOException {
+        Path log = carpeta.getRoot().toPath().resolve("diario.log");
+        try (Diario d = new Diario(log)) {
+            d.registrarCarga(GuiaEnvio.Destino.SUR);
+            d.registrarDespacho(GuiaEnvio.Destino.SUR);
+        }
+        long completo = Files.size(log);
+        // cabecera de un registro de 100 bytes del que solo se alcanzaron a escribir 3
+        try (FileChannel c = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer b = ByteBuffer.allocate(7);
+            b.putInt(100).put(Diario.CARGA).put((byte) 0).put((byte) 0).flip();
+            c.write(b);
+        }
+        AtomicInteger leidos = new AtomicInteger();
+        long validos = Diario.leer(log, (tipo, datos) -> leidos.incrementAndGet());
+        assertEquals(2, leidos.get());
+        assertEquals(completo, validos);
+    }
+
+    @Test
+    public void laLecturaSeDetieneEnUnCrcInvalido() throws IOException {
+        Path log = carpeta.getRoot().toPath().resolve("diario.log");
+        try (Diario d = new Diario(log)) {
+            d.registrarCarga(GuiaEnvio.Destino.NORTE);
+            d.registrarCarga(GuiaEnvio.Destino.SUR);
+        }
+        long total = Files.size(log);
+        // cambia el destino del segundo registro sin actualizar su CRC
+        try (FileChannel c = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            c.write(ByteBuffer.wrap(new byte[] {(byte) GuiaEnvio.Destino.CENTRO.ordinal()}), total - 5);
+        }
+        AtomicInteger leidos = new AtomicInteger();
+        long validos = Diario.leer(log, (tipo, datos) -> {
+            assertEquals(GuiaEnvio.Destino.NORTE.ordinal(), datos.readByte());
+            leidos.incrementAndGet();
+        });
+        assertEquals(1, leidos.get());
+        assertEquals(total / 2, validos);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rechazaRegistrosDespuesDeCerrar() throws IOException {
+        Diario d = new Diario(carpeta.getRoot().toPath().resolve("diario.log"));
+        d.close();
+        d.registrarCarga(GuiaEnvio.Destino.NORTE);
+    }
+}
@@ -0,0 +1,143 @@
+package persistencia;
+
+import cosas.Caja;
+import cosas.Cliente;
+import cosas.GuiaEnvio;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link Persistencia}: recuperar repite el diario, descarta la cola
+ * incompleta del archivo y sigue agregando a continuación; las instantáneas guardan
+ * el mismo estado.
+ *
+ * @author piped
+ */
+public class PersistenciaTest {
+
+    /** Capacidad de la cola de ingreso de las pruebas */
+    private static final int CAPACIDAD = 1024;
+
+    /** Directorio temporal de cada prueba */
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    /** Directorio de datos */
+    private Path datos;
+
+    @Before
+    public void preparar() {
+        datos = carpeta.getRoot().toPath();
+    }
+
+    @Test
+    public void recuperaDelDiarioYTruncaElRegistroIncompleto() throws IOException {
+        Persistencia p = new Persistencia(datos, Persistencia.EVENTOS_POR_INSTANTANEA);
+        Estado estado = p.recuperar(CAPACIDAD);
+        Cliente cli = registrarCliente(p, estado, "C1");
+        for (int i = 0; i < 3; i++) encolar(p, estado, cli, "G" + i, GuiaEnvio.Destino.NORTE);
+        p.cerrar();
+
+        Path log = datos.resolve("diario-0.log");
+        long valido = Files.size(log);
+        try (FileChannel c = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            c.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, Diario.ENCOLADO, 1, 2}));
+        }
+
+        p = new Persistencia(datos, Persistencia.EVENTOS_POR_INSTANTANEA);
+        estado = p.recuperar(CAPACIDAD);
+        assertEquals(valido, Files.size(log));
+        assertEquals(1, estado.getClientes().size());
+        assertEquals(3, estado.getCola().size());
+
+        // lo que se registra después queda a continuación del último registro válido
+        encolar(p, estado, estado.getClientes().buscar("C1"), "G3", GuiaEnvio.Destino.SUR);
+        p.cerrar();
+
+        estado = new Persistencia(datos, Persistencia.EVENTOS_POR_INSTANTANEA).recuperar(CAPACIDAD);
+        assertEquals(4, estado.getCola().size());
+        for (int i = 0; i < 4; i++) {
+            Caja c = estado.getCola().poll();
+            assertEquals("G" + i, c.getGuia().getIdCaja());
+            assertEquals("C1", c.getGuia().getCliente().getId());
+        }
+    }
+
+    @Test
+    public void repiteElEnrutadoHaciaLasBodegas() throws IOException {
+        Persistencia p = new Persistencia(datos, Persistencia.EVENTOS_POR_INSTANTANEA);
+        Estado estado = p.recuperar(CAPACIDAD);
+        Cliente cli = registrarCliente(p, estado, "C1");
+        encolar(p, estado, cli, "G0", GuiaEnvio.Destino.NORTE);
+        encolar(p, estado, cli, "G1", GuiaEnvio.Destino.SUR);
+        encolar(p, estado, cli, "G2", GuiaEnvio.Destino.SUR);
+        p.getDiario().registrarEnrutado(2);
+        p.cerrar();
+
+        estado = new Persistencia(datos, Persistencia.EVENTOS_POR_INSTANTANEA).recuperar(CAPACIDAD);
+        assertEquals(1, estado.getBodegas()[GuiaEnvio.Destino.NORTE.ordinal()].cantidadCajas());
+        assertEquals(1, estado.getBodegas()[GuiaEnvio.Destino.SUR.ordinal()].cantidadCajas());
+        assertEquals(1, estado.getCola().size());
+        assertEquals("G2", estado.getCola().poll().getGuia().getIdCaja());
+    }
+
+    @Test
+    public void laInstantaneaReemplazaAlDiario() throws IOException {
+        Persistencia p = new Persistencia(datos, Persistencia.EVENTOS_POR_INSTANTANEA);
+        Estado estado = p.recuperar(CAPACIDAD);
+        Cliente cli = registrarCliente(p, estado, "C1");
+        encolar(p, estado, cli, "G0", GuiaEnvio.Destino.CENTRO);
+        p.tomarInstantanea(estado);
+        encolar(p, estado, cli, "G1", GuiaEnvio.Destino.CENTRO);
+        p.cerrar();
+
+        assertFalse(Files.exists(datos.resolve("diario-0.log")));
+        estado = new Persistencia(datos, Persistencia.EVENTOS_POR_INSTANTANEA).recuperar(CAPACIDAD);
+        assertEquals(1, estado.getClientes().size());
+        assertEquals("G0", estado.getCola().poll().getGuia().getIdCaja());
+        assertEquals("G1", estado.getCola().poll().getGuia().getIdCaja());
+        assertNull(estado.getCola().poll());
+    }
+
+    /**
+     * Agrega un cliente al estado y lo registra en el diario.
+     *
+     * @param p Persistencia abierta.
+     * @param estado Estado actual.
+     * @param id ID del cliente.
+     * @return Cliente registrado.
+     */
+    private static Cliente registrarCliente(Persistencia p, Estado estado, String id) {
+        Cliente cli = new Cliente(id, "Nombre " + id, "555", id + "@correo", "Calle 1");
+        assertTrue(estado.getClientes().agregar(cli));
+        p.getDiario().registrarCliente(cli);
+        return estado.getClientes().buscar(id);
+    }
+
+    /**
+     * Encola una caja con guía en el estado y la registra en el diario.
+     *
+     * @param p Persistencia abierta.
+     * @param estado Estado actual.
+     * @param cli Cliente de la guía.
+     * @param idCaja ID de la caja.
+     * @param d Destino de la guía.
+     */
+    private static void encolar(Persistencia p, Estado estado, Cliente cli, String idCaja, GuiaEnvio.Destino d) {
+        Caja c = new Caja(10, 10, 10, 5);
+        GuiaEnvio g = new GuiaEnvio(idCaja, cli, d, 12.5);
+        g.calcularCostos(c.getPesoFacturado());
+        c.setGuia(g);
+        assertTrue(estado.getCola().offer(c));
+        p.getDiario().registrarEncolado(c);
+    }
+}
@@ -0,0 +1,115 @@
+package tdas;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link ColaPrioridad}: orden de salida, desempate por llegada, capacidad
+ * y bajada de prioridad (decrease-key).
+ *
+ * @author piped
+ */
+public class ColaPrioridadTest {
+
+    @Test
+    public void saleLaMenorPrioridadYLuegoLaPrimeraEnLlegar() {
+        ColaPrioridad<String> q = new ColaPrioridad<>(String::length, 10);
+        q.offer("ccc");
+        q.offer("a");
+        q.offer("bb");
+        q.offer("b");
+        assertEquals("a", q.poll());
+        assertEquals("b", q.poll());
+        assertEquals("bb", q.poll());
+        assertEquals("ccc", q.poll());
+        assertNull(q.poll());
+    }
+
+    @Test
+    public void respetaLaCapacidad() {
+        ColaPrioridad<Integer> q = new ColaPrioridad<>(i -> i, 3);
+        assertTrue(q.offer(3));
+        assertTrue(q.offer(2));
+        assertTrue(q.offer(1));
+        assertFalse(q.offer(0));
+        assertNull(q.encolar(0));
+        assertEquals(3, q.size());
+        assertEquals(Integer.valueOf(1), q.poll());
+        assertTrue(q.offer(0));
+    }
+
+    @Test
+    public void priorizarAdelantaAlElemento() {
+        ColaPrioridad<String> q = new ColaPrioridad<>(s -> 10, 10);
+        q.encolar("x");
+        ColaPrioridad.Entrada<String> y = q.encolar("y");
+        ColaPrioridad.Entrada<String> z = q.encolar("z");
+        assertTrue(q.priorizar(z, 5));
+        assertEquals(5, z.getPrioridad(), 0);
+        assertEquals("z", q.peek());
+        assertTrue(q.priorizar(y, 5));
+        // a igual prioridad sale la que llegó antes
+        assertEquals("y", q.poll());
+        assertEquals("z", q.poll());
+        assertEquals("x", q.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void priorizarNoPermiteSubirLaPrioridad() {
+        ColaPrioridad<String> q = new ColaPrioridad<>(s -> 1, 10);
+        q.priorizar(q.encolar("x"), 2);
+    }
+
+    @Test
+    public void priorizarIgnoraEntradasQueYaSalieron() {
+        ColaPrioridad<String> q = new ColaPrioridad<>(s -> 1, 10);
+        ColaPrioridad.Entrada<String> e = q.encolar("x");
+        q.encolar("y");
+        assertSame(e, q.pollEntrada());
+        assertFalse(q.priorizar(e, 0));
+        assertEquals("y", q.poll());
+    }
+
+    @Test
+    public void buscarEncuentraLaEntradaParaPriorizar() {
+        ColaPrioridad<String> q = new ColaPrioridad<>(s -> 1, 10);
+        q.encolar("a");
+        q.encolar("b");
+        ColaPrioridad.Entrada<String> e = q.buscar("b"::equals);
+        assertEquals("b", e.getItem());
+        assertTrue(q.priorizar(e, 0));
+        assertEquals("b", q.poll());
+        assertNull(q.buscar("b"::equals));
+    }
+
+    @Test
+    public void bajadasAlAzarConservanElOrdenDelMonticulo() {
+        Random r = new Random(11);
+        int n = 2_000;
+        ColaPrioridad<Integer> q = new ColaPrioridad<>(i -> 0, n);
+        @SuppressWarnings("unchecked")
+        ColaPrioridad.Entrada<Integer>[] entradas = (ColaPrioridad.Entrada<Integer>[]) new ColaPrioridad.Entrada<?>[n];
+        double[] prioridad = new double[n];
+        for (int i = 0; i < n; i++) {
+            prioridad[i] = r.nextInt(1_000_000);
+            entradas[i] = q.encolar(i, prioridad[i]);
+        }
+        for (int k = 0; k < 5 * n; k++) {
+            int i = r.nextInt(n);
+            prioridad[i] -= r.nextInt(1_000);
+            assertTrue(q.priorizar(entradas[i], prioridad[i]));
+        }
+        // la prioridad nueva debe quedar reflejada también en ordenadas()
+        List<ColaPrioridad.Entrada<Integer>> orden = q.ordenadas();
+        assertEquals(n, orden.size());
+        ColaPrioridad.Entrada<Integer> anterior = null;
+        while (!q.isEmpty()) {
+            ColaPrioridad.Entrada<Integer> e = q.pollEntrada();
+            assertSame(orden.removeFirst(), e);
+            assertEquals(prioridad[e.getItem()], e.getPrioridad(), 0);
+            if (anterior != null) assertTrue(anterior.getPrioridad() <= e.getPrioridad());
+            anterior = e;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package tdas;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link ConcurrentQueue}: orden, capacidad y uso con varios productores
+ * y consumidores a la vez.
+ *
+ * @author piped
+ */
+public class ConcurrentQueueTest {
+
+    /** Productores y consumidores de la prueba concurrente */
+    private static final int HILOS = 4;
+
+    /** Elementos que encola cada productor */
+    private static final int POR_PRODUCTOR = 50_000;
+
+    @Test
+    public void redondeaLaCapacidadAPotenciaDeDos() {
+        assertEquals(8, new ConcurrentQueue<Integer>(5).capacity());
+        assertEquals(2, new ConcurrentQueue<Integer>(1).capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rechazaCapacidadInvalida() {
+        new ConcurrentQueue<Integer>(0);
+    }
+
+    @Test
+    public void atiendeEnOrdenDeLlegadaYRespetaLaCapacidad() {
+        ConcurrentQueue<Integer> q = new ConcurrentQueue<>(4);
+        for (int i = 0; i < 4; i++) assertTrue(q.offer(i));
+        assertFalse(q.offer(4));
+        assertEquals(4, q.size());
+        for (int vuelta = 0; vuelta < 3; vuelta++) {
+            for (int i = 0; i < 4; i++) assertEquals(Integer.valueOf(i), q.poll());
+            assertNull(q.poll());
+            assertTrue(q.isEmpty());
+            for (int i = 0; i < 4; i++) assertTrue(q.offer(i));
+        }
+    }
+
+    @Test
+    public void esperaConTiempoMaximo() throws InterruptedException {
+        ConcurrentQueue<Integer> q = new ConcurrentQueue<>(1);
+        assertNull(q.poll(5, TimeUnit.MILLISECONDS));
+        assertTrue(q.offer(1, 5, TimeUnit.MILLISECONDS));
+        assertTrue(q.offer(2, 5, TimeUnit.MILLISECONDS));
+        assertFalse(q.offer(3, 5, TimeUnit.MILLISECONDS));
+        assertEquals(Integer.valueOf(1), q.poll(5, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 60_000)
+    public void variosProductoresYConsumidoresNoPierdenNiDuplican() throws InterruptedException {
+        ConcurrentQueue<Integer> q = new ConcurrentQueue<>(64);
+        int total = HILOS * POR_PRODUCTOR;
+        AtomicIntegerArray vistos = new AtomicIntegerArray(total);
+        boolean[] desordenado = new boolean[HILOS];
+        Thread[] hilos = new Thread[2 * HILOS];
+        for (int p = 0; p < HILOS; p++) {
+            int base = p * POR_PRODUCTOR;
+            hilos[p] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < POR_PRODUCTOR; i++) q.put(base + i);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        for (int c = 0; c < HILOS; c++) {
+            int consumidor = c;
+            hilos[HILOS + c] = new Thread(() -> {
+                // cada consumidor debe ver los elementos de un mismo productor en orden creciente
+                int[] ultimo = new int[HILOS];
+                Arrays.fill(ultimo, -1);
+                try {
+                    for (int i = 0; i < POR_PRODUCTOR; i++) {
+                        int v = q.take();
+                        vistos.incrementAndGet(v);
+                        int p = v / POR_PRODUCTOR;
+                        if (v <= ultimo[p]) desordenado[consumidor] = true;
+                        ultimo[p] = v;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        for (Thread h : hilos) h.start();
+        for (Thread h : hilos) h.join();
+
+        for (int i = 0; i < total; i++) {
+            assertEquals("elemento " + i, 1, vistos.get(i));
+        }
+        for (int c = 0; c < HILOS; c++) {
+            assertFalse("consumidor " + c + " vio un productor fuera de orden", desordenado[c]);
+        }
+        assertTrue(q.isEmpty());
+    }
+}
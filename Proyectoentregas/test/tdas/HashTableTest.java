@@ -0,0 +1,82 @@
+package tdas;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de {@link HashTable} y de los iteradores de los tdas: insertar, reemplazar y
+ * borrar conservan las llaves del grupo de sondeo, y un iterador agotado lanza
+ * {@link NoSuchElementException}.
+ *
+ * @author piped
+ */
+public class HashTableTest {
+
+    @Test
+    public void ponerBuscarYBorrar() {
+        HashTable<String, Integer> t = new HashTable<>();
+        for (int i = 0; i < 1_000; i++) t.put("k" + i, i);
+        assertEquals(1_000, t.size());
+        t.put("k7", 70);
+        assertEquals(1_000, t.size());
+        assertEquals(Integer.valueOf(70), t.get("k7"));
+        for (int i = 0; i < 1_000; i += 2) t.delete("k" + i);
+        assertEquals(500, t.size());
+        for (int i = 0; i < 1_000; i++) {
+            if (i % 2 == 0) assertNull(t.get("k" + i));
+            else assertEquals(i == 7 ? 70 : i, t.get("k" + i).intValue());
+        }
+        t.put("k1", null);
+        assertFalse(t.contains("k1"));
+        assertEquals(499, t.size());
+    }
+
+    @Test
+    public void elIteradorRecorreCadaLlaveUnaVez() {
+        HashTable<Integer, String> t = new HashTable<>();
+        for (int i = 0; i < 100; i++) t.put(i, "v" + i);
+        Set<Integer> vistas = new HashSet<>();
+        for (Integer k : t) assertTrue(vistas.add(k));
+        assertEquals(100, vistas.size());
+    }
+
+    @Test
+    public void losIteradoresAgotadosLanzanNoSuchElement() {
+        HashTable<String, Integer> t = new HashTable<>(8);
+        t.put("a", 1);
+        agotado(t.iterator());
+        agotado(new HashTable<String, Integer>().iterator());
+
+        List<Integer> l = new List<>();
+        l.list(1);
+        agotado(l.iterator());
+        Stack<Integer> s = new Stack<>();
+        s.push(1);
+        agotado(s.iterator());
+        Queue<Integer> q = new Queue<>();
+        q.enqueue(1);
+        agotado(q.iterator());
+        Bag<Integer> b = new Bag<>();
+        b.add(1);
+        agotado(b.iterator());
+    }
+
+    /**
+     * Consume un iterador y comprueba que al pedir uno más lanza NoSuchElementException.
+     *
+     * @param it iterador a agotar
+     */
+    private static void agotado(Iterator<?> it) {
+        while (it.hasNext()) it.next();
+        try {
+            it.next();
+            fail("next() sobre un iterador agotado debía lanzar NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            // esperado
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package tdas;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de las instantáneas de {@link List}, {@link Stack} y {@link Queue}: un
+ * iterador no ve los cambios posteriores, y otros hilos pueden tomar instantáneas
+ * consistentes mientras un hilo modifica la colección.
+ *
+ * @author piped
+ */
+public class InstantaneasTest {
+
+    @Test
+    public void elIteradorNoVeLasEscriturasPosteriores() {
+        List<Integer> l = new List<>();
+        for (int i = 0; i < 5; i++) l.list(i);
+        Iterator<Integer> it = l.iterator();
+        l.set(0, 100);
+        l.remove(1);
+        l.list(5);
+        l.clear();
+        for (int i = 0; i < 5; i++) assertEquals(Integer.valueOf(i), it.next());
+        assertFalse(it.hasNext());
+
+        Stack<Integer> s = new Stack<>();
+        for (int i = 0; i < 5; i++) s.push(i);
+        Iterator<Integer> is = s.iterator();
+        s.pop();
+        s.push(100);
+        for (int i = 4; i >= 0; i--) assertEquals(Integer.valueOf(i), is.next());
+        assertFalse(is.hasNext());
+
+        Queue<Integer> q = new Queue<>();
+        for (int i = 0; i < 5; i++) q.enqueue(i);
+        Iterator<Integer> iq = q.iterator();
+        q.dequeue();
+        q.enqueue(100);
+        for (int i = 0; i < 5; i++) assertEquals(Integer.valueOf(i), iq.next());
+        assertFalse(iq.hasNext());
+    }
+
+    @Test(timeout = 60_000)
+    public void otrosHilosTomanInstantaneasConsistentes() throws InterruptedException {
+        // cada colección guarda siempre una secuencia de enteros consecutivos
+        List<Integer> l = new List<>();
+        Stack<Integer> s = new Stack<>();
+        Queue<Integer> q = new Queue<>();
+        AtomicBoolean fin = new AtomicBoolean();
+        AtomicLong errores = new AtomicLong();
+        AtomicLong lecturas = new AtomicLong();
+
+        Thread escritor = new Thread(() -> {
+            Random r = new Random(3);
+            int siguienteCola = 0;
+            for (int i = 0; i < 500_000; i++) {
+                if (l.size() < 40 || r.nextBoolean()) {
+                    l.list(l.isEmpty() ? 0 : l.getLast() + 1);
+                    s.push(s.isEmpty() ? 0 : s.peak() + 1);
+                } else {
+                    l.removeFirst();
+                    s.pop();
+                }
+                if (q.size() < 40 || r.nextBoolean()) q.enqueue(siguienteCola++);
+                else q.dequeue();
+                if (i % 100 == 0 && !l.isEmpty()) l.set(0, l.getFirst());
+            }
+            fin.set(true);
+        });
+
+        Runnable lector = () -> {
+            do {
+                if (!consecutivos(l, 1) || !consecutivos(s, -1) || !consecutivos(q, 1)) errores.incrementAndGet();
+                if (l.stream().anyMatch(v -> v == null)) errores.incrementAndGet();
+                lecturas.incrementAndGet();
+            } while (!fin.get());
+        };
+        Thread[] lectores = new Thread[3];
+        for (int i = 0; i < lectores.length; i++) {
+            lectores[i] = new Thread(lector);
+            lectores[i].start();
+        }
+        escritor.start();
+        escritor.join();
+        for (Thread t : lectores) t.join();
+
+        assertEquals(0, errores.get());
+        assertTrue(lecturas.get() > 0);
+    }
+
+    /**
+     * Verifica que una colección recorra enteros consecutivos sin huecos ni nulos.
+     *
+     * @param c colección a recorrer
+     * @param paso diferencia esperada entre un elemento y el siguiente
+     * @return true si la secuencia es consecutiva
+     */
+    private static boolean consecutivos(Iterable<Integer> c, int paso) {
+        Integer anterior = null;
+        for (Integer v : c) {
+            if (v == null || (anterior != null && v != anterior + paso)) return false;
+            anterior = v;
+        }
+        return true;
+    }
+}
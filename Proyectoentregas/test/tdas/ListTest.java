@@ -0,0 +1,65 @@
+package tdas;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de las operaciones en bloque y del control de capacidad de {@link List}.
+ *
+ * @author piped
+ */
+public class ListTest {
+
+    @Test
+    public void addYRemoveDesplazanLosElementos() {
+        List<String> l = new List<>();
+        l.list("b");
+        l.addFirst("a");
+        l.addLast("d");
+        assertTrue(l.add(2, "c"));
+        assertFalse(l.add(9, "x"));
+        assertEquals("abcd", String.join("", l));
+        assertEquals("b", l.remove(1));
+        assertNull(l.remove(3));
+        assertEquals("d", l.removeLast());
+        assertEquals("ac", String.join("", l));
+    }
+
+    @Test
+    public void addAllDrainToYRemoveLastEnBloque() {
+        List<Integer> a = new List<>();
+        a.addAll(new Integer[] {0, 1, 2, 3, 4}, 0, 5);
+        List<Integer> b = new List<>(2);
+        b.list(-1);
+        b.addAll(a);
+        assertEquals(6, b.size());
+
+        List<Integer> destino = new List<>();
+        int capacidad = a.capacidad();
+        a.drainTo(destino);
+        assertTrue(a.isEmpty());
+        assertEquals(capacidad, a.capacidad());
+        assertEquals(5, destino.size());
+
+        Integer[] ultimos = new Integer[4];
+        b.removeLast(3, ultimos, 1);
+        assertArrayEquals(new Integer[] {null, 2, 3, 4}, ultimos);
+        assertEquals(3, b.size());
+        assertEquals(Integer.valueOf(1), b.getLast());
+    }
+
+    @Test
+    public void capacidadSeControlaExplicitamente() {
+        List<Integer> l = new List<>();
+        l.ensureCapacity(100_000);
+        assertEquals(100_000, l.capacidad());
+        for (int i = 0; i < 100_000; i++) l.list(i);
+        assertEquals(100_000, l.capacidad());
+        for (int i = 0; i < 99_990; i++) l.removeLast();
+        l.trimToSize();
+        assertEquals(10, l.capacidad());
+        l.clear();
+        assertEquals(10, l.capacidad());
+        assertTrue(l.isEmpty());
+    }
+}
@@ -0,0 +1,62 @@
+package tdas;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de las operaciones en bloque y del control de capacidad de {@link Queue}.
+ *
+ * @author piped
+ */
+public class QueueTest {
+
+    @Test
+    public void enqueueAllConservaElOrdenAunqueElArregloDeLaVuelta() {
+        Queue<Integer> q = new Queue<>(8);
+        for (int i = 0; i < 6; i++) q.enqueue(i);
+        for (int i = 0; i < 5; i++) q.dequeue();
+        // la cabeza quedó en la posición 5: el tramo se parte en dos bloques
+        q.enqueueAll(new Integer[] {6, 7, 8, 9}, 0, 4);
+        List<Integer> l = new List<>();
+        for (int i = 10; i < 14; i++) l.list(i);
+        q.enqueueAll(l);
+        assertEquals(9, q.size());
+
+        List<Integer> destino = new List<>();
+        q.drainTo(destino);
+        assertTrue(q.isEmpty());
+        for (int i = 0; i < 9; i++) assertEquals(Integer.valueOf(5 + i), destino.get(i));
+        q.enqueue(42);
+        assertEquals(Integer.valueOf(42), q.dequeue());
+    }
+
+    @Test
+    public void ensureCapacityConservaLosElementos() {
+        Queue<Integer> q = new Queue<>(4);
+        for (int i = 0; i < 4; i++) q.enqueue(i);
+        q.dequeue();
+        q.enqueue(4);
+        q.ensureCapacity(100);
+        assertEquals(100, q.capacidad());
+        for (int i = 1; i <= 4; i++) assertEquals(Integer.valueOf(i), q.dequeue());
+    }
+
+    @Test
+    public void trimToSizeNoSubeElPisoDeReduccion() {
+        Queue<Integer> q = new Queue<>();
+        for (int i = 0; i < 1000; i++) q.enqueue(i);
+        q.trimToSize();
+        assertEquals(1000, q.capacidad());
+        for (int i = 0; i < 990; i++) assertEquals(Integer.valueOf(i), q.dequeue());
+        assertTrue("la cola debe poder liberar memoria después de recortar", q.capacidad() < 1000);
+        for (int i = 990; i < 1000; i++) assertEquals(Integer.valueOf(i), q.dequeue());
+    }
+
+    @Test
+    public void noSeReduceDebajoDeLaCapacidadInicial() {
+        Queue<Integer> q = new Queue<>(64);
+        for (int i = 0; i < 256; i++) q.enqueue(i);
+        while (q.size() > 1) q.dequeue();
+        assertEquals(64, q.capacidad());
+    }
+}
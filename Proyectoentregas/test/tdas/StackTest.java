@@ -0,0 +1,72 @@
+package tdas;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de las operaciones en bloque y del control de capacidad de {@link Stack}.
+ *
+ * @author piped
+ */
+public class StackTest {
+
+    @Test
+    public void pushAllApilaEnOrdenYDrainToDesapilaDesdeLaCima() {
+        Stack<Integer> s = new Stack<>();
+        s.pushAll(new Integer[] {9, 1, 2, 3, 9}, 1, 3);
+        List<Integer> l = new List<>();
+        l.list(4);
+        l.list(5);
+        s.pushAll(l);
+        assertEquals(5, s.size());
+        assertEquals(Integer.valueOf(5), s.peak());
+
+        List<Integer> destino = new List<>();
+        destino.list(0);
+        s.drainTo(destino);
+        assertTrue(s.isEmpty());
+        assertEquals(6, destino.size());
+        for (int i = 1; i <= 5; i++) assertEquals(Integer.valueOf(6 - i), destino.get(i));
+        assertNull(s.pop());
+    }
+
+    @Test
+    public void ensureCapacityCreceUnaSolaVez() {
+        Stack<Integer> s = new Stack<>();
+        s.ensureCapacity(1000);
+        assertEquals(1000, s.capacidad());
+        for (int i = 0; i < 1000; i++) s.push(i);
+        assertEquals(1000, s.capacidad());
+        s.ensureCapacity(10);
+        assertEquals(1000, s.capacidad());
+    }
+
+    @Test
+    public void seReduceConHisteresisYNoBajaDelMinimo() {
+        Stack<Integer> s = new Stack<>(16);
+        for (int i = 0; i < 128; i++) s.push(i);
+        assertEquals(128, s.capacidad());
+        // se reduce a la mitad al quedar ocupada a 1/8
+        while (s.size() > 16) s.pop();
+        assertEquals(64, s.capacidad());
+        // una carga que oscila en el umbral no redimensiona en cada operación
+        for (int k = 0; k < 10; k++) {
+            s.push(0);
+            s.pop();
+        }
+        assertEquals(64, s.capacidad());
+        while (s.size() > 1) s.pop();
+        assertEquals(16, s.capacidad());
+    }
+
+    @Test
+    public void trimToSizeNoSubeElPisoDeReduccion() {
+        Stack<Integer> s = new Stack<>();
+        for (int i = 0; i < 1000; i++) s.push(i);
+        s.trimToSize();
+        assertEquals(1000, s.capacidad());
+        while (s.size() > 10) s.pop();
+        assertTrue("la pila debe poder liberar memoria después de recortar", s.capacidad() < 1000);
+        for (int i = 9; i >= 0; i--) assertEquals(Integer.valueOf(i), s.pop());
+    }
+}